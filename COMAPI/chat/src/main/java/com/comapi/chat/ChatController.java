@@ -25,8 +25,11 @@ import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.comapi.RxComapiClient;
+import com.comapi.chat.database.model.DbSyncCheckpoint;
+import com.comapi.chat.internal.AdaptivePageSize;
 import com.comapi.chat.internal.AttachmentController;
-import com.comapi.chat.internal.CallLimiter;
+import com.comapi.chat.internal.DeliveryReceiptsAggregator;
+import com.comapi.chat.internal.EventQueriesRegistry;
 import com.comapi.chat.internal.MessageProcessor;
 import com.comapi.chat.model.Attachment;
 import com.comapi.chat.model.ChatConversation;
@@ -55,21 +58,22 @@ import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import rx.Observable;
 import rx.functions.Func1;
-import rx.functions.Func2;
 
 /**
  * Main controller for Chat Layer specific functionality.
@@ -81,16 +85,36 @@ class ChatController {
 
     private static final int ETAG_NOT_VALID = 412;
 
+    /**
+     * Time in milliseconds for which conversation reported by the server as not found or forbidden won't be queried again.
+     */
+    private static final long CONVERSATION_UNAVAILABLE_TIMEOUT = 30000;
+
+    /**
+     * Time in milliseconds after which progress saved by interrupted store synchronisation is outdated and won't be resumed.
+     */
+    private static final long SYNC_CHECKPOINT_TIMEOUT = 3600000;
+
     private final Integer messagesPerQuery;
 
     private final Integer eventsPerQuery;
 
+    private final AdaptivePageSize eventPageSize;
+
     private final AttachmentController attCon;
 
     private int maxEventQueries;
 
     private int maxConversationsSynced;
 
+    private int maxConversationsInFlight;
+
+    private int maxEventQueriesPerTurn;
+
+    private int maxEventPagesPrefetched;
+
+    private volatile String activeConversationId;
+
     private final WeakReference<RxComapiClient> clientReference;
 
     private final ModelAdapter adapter;
@@ -113,10 +137,33 @@ class ChatController {
         void remove(String[] ids);
     }
 
-    private final AtomicBoolean isSynchronising;
+    private final Object synchronisationLock;
+    private Observable<ChatResult> synchronisation;
+    private SynchronisationTracker synchronisationTracker;
+    private boolean isSynchronisationQueued;
+
+    private final long minSynchronisationInterval;
+    private volatile long lastSynchronisation;
+    private volatile long socketConnectedOn;
 
     private final AtomicBoolean socketWasDisconnected;
-    private final CallLimiter syncCallsLimiter;
+    private final TokenBucketLimiter autoSyncLimiter;
+
+    private final RetryPolicy messageStatusesRetry;
+    private final RetryPolicy sendingRetry;
+    private final RetryPolicy eventQueriesRetry;
+    private final RetryPolicy conversationQueriesRetry;
+
+    private final ConversationPriority conversationPriority;
+    private volatile Set<String> pinnedConversations;
+
+    private final DeliveryReceiptsAggregator receiptsAggregator;
+
+    private final ConcurrentMap<String, Observable<ChatResult>> conversationQueries;
+
+    private final ConcurrentMap<String, Long> unavailableConversations;
+
+    private final EventQueriesRegistry<ComapiResult<ConversationEventsResponse>> eventQueries;
 
     /**
      * Recommended constructor.
@@ -127,7 +174,7 @@ class ChatController {
      * @param log                   Internal logger instance.
      */
     ChatController(final RxComapiClient client, final PersistenceController persistenceController, final AttachmentController attachmentController, InternalConfig internal, final ObservableExecutor obsExec, final ModelAdapter adapter, final Logger log) {
-        this.isSynchronising = new AtomicBoolean(false);
+        this.synchronisationLock = new Object();
         this.clientReference = new WeakReference<>(client);
         this.adapter = adapter;
         this.log = log;
@@ -140,27 +187,135 @@ class ChatController {
         messagesPerQuery = internal.getMaxMessagesPerPage();
         eventsPerQuery = internal.getMaxEventsPerQuery();
         maxEventQueries = internal.getMaxEventQueries();
+        eventPageSize = new AdaptivePageSize(internal.getMinEventsPerQuery(), eventsPerQuery, internal.getEventQueryTargetLatency());
         maxConversationsSynced = internal.getMaxConversationsSynced();
+        maxConversationsInFlight = Math.max(1, internal.getMaxConversationsInFlight());
+        maxEventQueriesPerTurn = Math.max(1, internal.getMaxEventQueriesPerTurn());
+        maxEventPagesPrefetched = Math.max(0, internal.getMaxEventPagesPrefetched());
+        minSynchronisationInterval = internal.getMinSynchronisationInterval();
+        messageStatusesRetry = internal.getMessageStatusesRetryPolicy();
+        sendingRetry = internal.getSendingRetryPolicy();
+        eventQueriesRetry = internal.getEventQueriesRetryPolicy();
+        conversationQueriesRetry = internal.getConversationQueriesRetryPolicy();
+        conversationPriority = internal.getConversationPriority();
+        pinnedConversations = Collections.emptySet();
+        socketConnectedOn = -1L;
 
         this.socketWasDisconnected = new AtomicBoolean(false);
-        this.syncCallsLimiter = new CallLimiter(30, 50, TimeUnit.MINUTES, 5, 15, TimeUnit.MINUTES, 60);
+        this.autoSyncLimiter = new TokenBucketLimiter(internal.getMaxAutoSyncBurst(), internal.getAutoSyncRefillPeriod(), internal.getAutoSyncBackoff(), internal.getAutoSyncMaxBackoff());
+        this.conversationQueries = new ConcurrentHashMap<>();
+        this.unavailableConversations = new ConcurrentHashMap<>();
+        this.eventQueries = new EventQueriesRegistry<>();
+        this.receiptsAggregator = new DeliveryReceiptsAggregator((conversationId, ids) -> obsExec.execute(sendDeliveryReceipts(conversationId, ids)), internal.getMaxDeliveryReceiptsDelay(), internal.getMaxDeliveryReceiptsBatch());
     }
 
     void handleSocketConnected() {
         System.out.println("handleSocketConnected");
+        socketConnectedOn = System.currentTimeMillis();
         if (socketWasDisconnected.compareAndSet(true, false)) {
-            if (syncCallsLimiter.checkAndIncrease() && !TextUtils.isEmpty(getProfileId())) {
+            if (!TextUtils.isEmpty(getProfileId()) && isAutoSyncAllowed()) {
                 System.out.println("auto synchroniseStore");
-                obsExec.execute(synchroniseStore());
+                // Events may have been missed after the running synchronisation started
+                obsExec.execute(synchroniseStore(true));
             }
         }
     }
 
     void handleSocketDisconnected() {
         System.out.println("handleSocketConnected");
+        socketConnectedOn = -1L;
         socketWasDisconnected.compareAndSet(false, true);
     }
 
+    /**
+     * Synchronises the store when the app is foregrounded. Full synchronisation is skipped if the socket stayed connected since the last successful synchronisation and it happened recently, see {@link InternalConfig#limitSynchronisationInterval(int)}.
+     * In this case only the active conversation is checked for missing events.
+     * Staleness is checked before the limiter, so a token of {@link InternalConfig#limitAutoSyncBurst(int)} is taken only if a new synchronisation starts, not when the store is fresh or a synchronisation is already running.
+     */
+    void handleForegrounded() {
+        if (TextUtils.isEmpty(getProfileId())) {
+            return;
+        }
+        if (isSynchronisationStale() && (isSynchronising() || isAutoSyncAllowed())) {
+            obsExec.execute(synchroniseStore());
+        } else {
+            final String conversationId = activeConversationId;
+            log.i("Skipping store synchronisation.");
+            if (conversationId != null) {
+                obsExec.execute(synchroniseConversation(conversationId));
+            }
+        }
+    }
+
+    /**
+     * Sends collected delivery receipts when the app is backgrounded. Receipts are sent asynchronously, so the caller on the main thread isn't blocked.
+     */
+    void handleBackgrounded() {
+        obsExec.execute(flushDeliveryReceipts());
+    }
+
+    /**
+     * Checks if automatic synchronisation is allowed by the limiter, see {@link InternalConfig#limitAutoSyncBurst(int)}.
+     *
+     * @return True if automatic synchronisation can start.
+     */
+    private boolean isAutoSyncAllowed() {
+        if (autoSyncLimiter.tryAcquire()) {
+            return true;
+        }
+        log.i("Automatic synchronisation suppressed. " + autoSyncLimiter.getState());
+        return false;
+    }
+
+    /**
+     * Checks if store synchronisation is running.
+     *
+     * @return True if a synchronisation started and hasn't finished yet.
+     */
+    private boolean isSynchronising() {
+        synchronized (synchronisationLock) {
+            return synchronisation != null;
+        }
+    }
+
+    /**
+     * Observe the state of automatic synchronisation limiter.
+     *
+     * @return Observable emitting the limiter state whenever it changes.
+     */
+    Observable<TokenBucketLimiter.State> observeAutoSyncLimiter() {
+        return autoSyncLimiter.observeState();
+    }
+
+    /**
+     * Checks if events could have been missed since the last successful synchronisation.
+     *
+     * @return True if the socket was disconnected since the last successful synchronisation or the minimum interval between synchronisations has passed.
+     */
+    boolean isSynchronisationStale() {
+        final long connectedOn = socketConnectedOn;
+        final long syncedOn = lastSynchronisation;
+        return syncedOn == 0 || connectedOn < 0 || connectedOn > syncedOn || System.currentTimeMillis() - syncedOn >= minSynchronisationInterval;
+    }
+
+    /**
+     * Sets conversation currently opened by the user. Missing events in this conversation will be synchronised before the other conversations.
+     *
+     * @param conversationId Unique conversation id or null if no conversation is opened.
+     */
+    void setActiveConversation(@Nullable String conversationId) {
+        this.activeConversationId = conversationId;
+    }
+
+    /**
+     * Sets conversations pinned by the app. Pinned conversations are synchronised before the other conversations.
+     *
+     * @param conversationIds Unique ids of pinned conversations.
+     */
+    void setPinnedConversations(@Nullable Collection<String> conversationIds) {
+        this.pinnedConversations = conversationIds != null ? Collections.unmodifiableSet(new HashSet<>(conversationIds)) : Collections.emptySet();
+    }
+
     /**
      * Save and send message with attachments.
      *
@@ -187,7 +342,7 @@ class ChatController {
                                     return Observable.fromCallable(() -> true);
                                 }
                             })
-                            .flatMap(isOk -> client.service().messaging().sendMessage(conversationId, messageProcessor.prepareMessageToSend()) // send message with attachments details as additional message parts
+                            .flatMap(isOk -> sendingRetry.applyToResult(client.service().messaging().sendMessage(conversationId, messageProcessor.prepareMessageToSend())) // send message with attachments details as additional message parts
                                     .flatMap(result -> result.isSuccessful() ? updateStoreWithSentMsg(messageProcessor, result) : handleMessageError(messageProcessor, new ComapiException(result.getErrorBody()))) // update temporary message with a new message id obtained from the response
                                     .onErrorResumeNext(t -> handleMessageError(messageProcessor, t))); // if error occurred update message status list adding error status
                 });
@@ -238,14 +393,48 @@ class ChatController {
 
     /**
      * When SDK detects missing conversation it makes query in services and saves in the saves locally.
+     * Concurrent calls for the same conversation share a single query. Conversation reported by the server as not found or forbidden won't be queried again for {@link ChatController#CONVERSATION_UNAVAILABLE_TIMEOUT}.
      *
      * @param conversationId Unique identifier of an conversation.
      * @return Observable to handle missing local conversation data.
      */
     Observable<ChatResult> handleNoLocalConversation(String conversationId) {
 
-        return checkState().flatMap(client -> client.service().messaging().getConversation(conversationId)
+        Long unavailableUntil = unavailableConversations.get(conversationId);
+        if (unavailableUntil != null) {
+            if (unavailableUntil > System.currentTimeMillis()) {
+                return Observable.fromCallable(() -> new ChatResult(false, new ChatResult.Error(0, "Conversation not available.", "Conversation " + conversationId + " recently reported by the server as not found or forbidden.")));
+            } else {
+                unavailableConversations.remove(conversationId, unavailableUntil);
+            }
+        }
+
+        // Remove only this query, a newer one may have been registered after it terminated
+        final AtomicReference<Observable<ChatResult>> self = new AtomicReference<>();
+        final Observable<ChatResult> query = queryMissingConversation(conversationId)
+                .doOnTerminate(() -> conversationQueries.remove(conversationId, self.get()))
+                .cache();
+        self.set(query);
+
+        Observable<ChatResult> inFlight = conversationQueries.putIfAbsent(conversationId, query);
+        return inFlight != null ? inFlight : query;
+    }
+
+    /**
+     * Queries conversation missing in the local store and saves it.
+     *
+     * @param conversationId Unique identifier of an conversation.
+     * @return Observable to handle missing local conversation data.
+     */
+    private Observable<ChatResult> queryMissingConversation(String conversationId) {
+
+        return checkState().flatMap(client -> conversationQueriesRetry.applyToResult(client.service().messaging().getConversation(conversationId))
                 .flatMap(result -> {
+                    if (result.getCode() == 403 || result.getCode() == 404) {
+                        final long now = System.currentTimeMillis();
+                        purgeUnavailableConversations(now);
+                        unavailableConversations.put(conversationId, now + CONVERSATION_UNAVAILABLE_TIMEOUT);
+                    }
                     if (result.isSuccessful() && result.getResult() != null) {
                         return persistenceController.upsertConversation(ChatConversation.builder().populate(result.getResult(), result.getETag()).build())
                                 .map(success -> new ChatResult(success, success ? null : new ChatResult.Error(0, "External store reported failure.", "Error when inserting conversation "+conversationId)));
@@ -255,27 +444,64 @@ class ChatController {
                 }));
     }
 
+    /**
+     * Removes conversations which can be queried again, so the map doesn't keep every conversation ever reported as unavailable.
+     *
+     * @param now Current time in milliseconds.
+     */
+    private void purgeUnavailableConversations(long now) {
+        for (Map.Entry<String, Long> entry : unavailableConversations.entrySet()) {
+            if (entry.getValue() <= now) {
+                unavailableConversations.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     /**
      * Mark messages in a conversations as delivered.
      *
      * @param conversationId Conversation unique id.
      * @param ids            Ids of messages in a single conversation to be marked as delivered.
+     * @return Observable with the service response. Emits an error if the call failed after all retries.
      */
     Observable<ComapiResult<Void>> markDelivered(String conversationId, Set<String> ids) {
 
         final List<MessageStatusUpdate> updates = new ArrayList<>();
         updates.add(MessageStatusUpdate.builder().setMessagesIds(ids).setStatus(MessageStatus.delivered).setTimestamp(DateHelper.getCurrentUTC()).build());
 
-        return checkState().flatMap(client -> client.service().messaging().updateMessageStatus(conversationId, updates)
-                .retryWhen(observable -> {
-                    return observable.zipWith(Observable.range(1, 3), (Func2<Throwable, Integer, Integer>) (throwable, integer) -> integer).flatMap(new Func1<Integer, Observable<Long>>() {
-                        @Override
-                        public Observable<Long> call(Integer retryCount) {
-                            return Observable.timer((long) Math.pow(1, retryCount), TimeUnit.SECONDS);
-                        }
-                    });
-                }
-                ));
+        return checkState().flatMap(client -> messageStatusesRetry.applyToResult(client.service().messaging().updateMessageStatus(conversationId, updates))
+                .doOnError(t -> log.e("Error marking messages as delivered. " + t.getLocalizedMessage())));
+    }
+
+    /**
+     * Mark messages in a conversations as delivered. Failed call is reported as an unsuccessful result.
+     *
+     * @param conversationId Conversation unique id.
+     * @param ids            Ids of messages in a single conversation to be marked as delivered.
+     * @return Observable emitting true if messages were marked as delivered.
+     */
+    private Observable<Boolean> sendDeliveryReceipts(String conversationId, Set<String> ids) {
+        return markDelivered(conversationId, ids)
+                .map(ComapiResult::isSuccessful)
+                .onErrorReturn(t -> false);
+    }
+
+    /**
+     * Sends delivery receipts collected but not yet sent.
+     *
+     * @return Observable emitting true if all collected receipts were sent.
+     */
+    Observable<Boolean> flushDeliveryReceipts() {
+
+        final Map<String, Set<String>> batches = receiptsAggregator.drain();
+
+        if (batches.isEmpty()) {
+            return Observable.just(true);
+        }
+
+        return Observable.from(batches.entrySet())
+                .flatMap(entry -> sendDeliveryReceipts(entry.getKey(), entry.getValue()))
+                .all(Boolean::booleanValue);
     }
 
     /**
@@ -305,7 +531,7 @@ class ChatController {
                         queryFrom = null;
                     }
 
-                    return checkState().flatMap(client -> client.service().messaging().queryMessages(conversationId, queryFrom, messagesPerQuery))
+                    return checkState().flatMap(client -> eventQueriesRetry.applyToResult(client.service().messaging().queryMessages(conversationId, queryFrom, messagesPerQuery)))
                             .flatMap(result -> persistenceController.processMessageQueryResponse(conversationId, result))
                             .flatMap(result -> persistenceController.processOrphanedEvents(result, orphanedEventsToRemoveListener))
                             .flatMap((Func1<ComapiResult<MessagesQueryResponse>, Observable<ChatResult>>) result -> (result.isSuccessful() && result.getResult().getMessages().isEmpty() && result.getResult().getEarliestEventId() > 0) ?
@@ -326,25 +552,96 @@ class ChatController {
 
     /**
      * Check state for all conversations and update from services.
+     * If the synchronisation is already in progress the caller joins it and receives its result.
      *
      * @return Result of synchronisation process.
      */
     Observable<ChatResult> synchroniseStore() {
-        if (isSynchronising.getAndSet(true)) {
-            log.i("Synchronisation in progress.");
-            return Observable.fromCallable(() -> new ChatResult(true, null));
+        return synchroniseStore(false);
+    }
+
+    /**
+     * Check state for all conversations and update from services.
+     * If the synchronisation is already in progress the caller joins it and receives its result. Triggers that may bring data newer than the start of the running synchronisation, e.g. socket reconnection, queue a follow-up synchronisation instead.
+     * Single follow-up synchronisation starts when the current one finishes, regardless of how many triggers queued it.
+     *
+     * @param isFollowUpNeeded True if a follow-up synchronisation should start when the running one finishes.
+     * @return Result of synchronisation process.
+     */
+    private Observable<ChatResult> synchroniseStore(boolean isFollowUpNeeded) {
+        synchronized (synchronisationLock) {
+            if (synchronisation != null) {
+                if (isFollowUpNeeded) {
+                    log.i("Synchronisation in progress, next synchronisation queued.");
+                    isSynchronisationQueued = true;
+                } else {
+                    log.i("Synchronisation in progress, joining.");
+                }
+                return synchronisation;
+            }
+            log.i("Synchronising store.");
+            final long startedOn = System.currentTimeMillis();
+            final SynchronisationTracker tracker = new SynchronisationTracker();
+            synchronisationTracker = tracker;
+            synchronisation = synchroniseConversations(tracker)
+                    .onErrorReturn(t -> new ChatResult(false, new ChatResult.Error(0, t)))
+                    .doOnNext(i -> {
+                        if (i.isSuccessful()) {
+                            lastSynchronisation = startedOn;
+                            autoSyncLimiter.onSuccess();
+                            log.i("Synchronisation successfully finished.");
+                        } else {
+                            autoSyncLimiter.onFailure();
+                            log.e("Synchronisation finished with error. " + (i.getError() != null ? i.getError().getDetails() : ""));
+                        }
+                        tracker.onFinished(i);
+                    })
+                    .doOnTerminate(this::onSynchronisationFinished)
+                    .cache();
+            return synchronisation;
+        }
+    }
+
+    /**
+     * Check state for all conversations and update from services, see {@link ChatController#synchroniseStore()}.
+     *
+     * @return Observable emitting progress of the synchronisation, the last emitted progress contains the synchronisation result.
+     */
+    Observable<SynchronisationProgress> synchroniseStoreWithProgress() {
+        final Observable<ChatResult> result;
+        final SynchronisationTracker tracker;
+        synchronized (synchronisationLock) {
+            result = synchroniseStore();
+            tracker = synchronisationTracker;
+        }
+        return observeProgress(tracker, result);
+    }
+
+    /**
+     * Combines synchronisation progress updates with the synchronisation itself, so subscribing to progress starts the synchronisation.
+     *
+     * @param tracker Tracker counting the synchronisation progress.
+     * @param result  Synchronisation to run.
+     * @return Observable emitting progress of the synchronisation.
+     */
+    private Observable<SynchronisationProgress> observeProgress(final SynchronisationTracker tracker, final Observable<ChatResult> result) {
+        return Observable.merge(tracker.observe(), result.flatMap(r -> Observable.<SynchronisationProgress>empty()));
+    }
+
+    /**
+     * Clears the synchronisation in progress and starts the follow-up synchronisation if any was queued in the meantime.
+     */
+    private void onSynchronisationFinished() {
+        boolean isQueued;
+        synchronized (synchronisationLock) {
+            synchronisation = null;
+            synchronisationTracker = null;
+            isQueued = isSynchronisationQueued;
+            isSynchronisationQueued = false;
+        }
+        if (isQueued) {
+            obsExec.execute(synchroniseStore());
         }
-        log.i("Synchronising store.");
-        return synchroniseConversations()
-                .onErrorReturn(t -> new ChatResult(false, new ChatResult.Error(0, t)))
-                .doOnNext(i -> {
-                    if (i.isSuccessful()) {
-                        log.i("Synchronisation successfully finished.");
-                    } else {
-                        log.e("Synchronisation finished with error. " + (i.getError() != null ? i.getError().getDetails() : ""));
-                    }
-                    isSynchronising.compareAndSet(true, false);
-                });
     }
 
     /**
@@ -372,7 +669,7 @@ class ChatController {
         if (result.getCode() != ETAG_NOT_VALID) {
             return persistenceController.deleteConversation(conversationId).map(success -> adapter.adaptResult(result, success));
         } else {
-            return checkState().flatMap(client -> client.service().messaging().getConversation(conversationId)
+            return checkState().flatMap(client -> conversationQueriesRetry.applyToResult(client.service().messaging().getConversation(conversationId))
                     .flatMap(newResult -> {
                         if (newResult.isSuccessful()) {
                             return persistenceController.upsertConversation(ChatConversation.builder().populate(newResult.getResult(), newResult.getETag()).build())
@@ -399,7 +696,7 @@ class ChatController {
         }
         if (result.getCode() == ETAG_NOT_VALID) {
 
-            return checkState().flatMap(client -> client.service().messaging().getConversation(request.getId())
+            return checkState().flatMap(client -> conversationQueriesRetry.applyToResult(client.service().messaging().getConversation(request.getId()))
                     .flatMap(newResult -> {
                         if (newResult.isSuccessful()) {
 
@@ -430,6 +727,23 @@ class ChatController {
         }
     }
 
+    /**
+     * Handles marking messages as read service response.
+     *
+     * @param conversationId Unique identifier of an conversation.
+     * @param messages       Messages marked as read.
+     * @param updatedOn      Time when the messages were read.
+     * @param result         Service call response.
+     * @return Observable emitting result of operations.
+     */
+    Observable<ChatResult> handleConversationRead(String conversationId, List<ChatMessage> messages, long updatedOn, ComapiResult<Void> result) {
+        if (result.isSuccessful() && messages != null && !messages.isEmpty()) {
+            return persistenceController.upsertReadWatermark(conversationId, getProfileId(), messages, updatedOn).map(success -> adapter.adaptResult(result, success));
+        } else {
+            return Observable.fromCallable(() -> adapter.adaptResult(result));
+        }
+    }
+
     /**
      * Insert temporary message to the store for the ui to be responsive.
      *
@@ -458,21 +772,64 @@ class ChatController {
     }
 
     /**
-     * Updates all conversation states.
+     * Updates all conversation states. If previous synchronisation was interrupted it is resumed from the saved list of conversations still to synchronise, without querying and comparing the whole conversation list again.
      *
+     * @param tracker Tracker counting the synchronisation progress.
      * @return Result of synchronisation with services.
      */
-    private Observable<ChatResult> synchroniseConversations() {
-
-        return checkState().flatMap(client -> client.service().messaging()
-                .getConversations(false)
-                .flatMap(result -> persistenceController.loadAllConversations()
-                        .map(chatConversationBases -> compare(result.isSuccessful(), result.getResult(), chatConversationBases)))
-                .flatMap(this::updateLocalConversationList)
+    private Observable<ChatResult> synchroniseConversations(final SynchronisationTracker tracker) {
+
+        return checkState().flatMap(client -> loadSyncCheckpoints(true)
+                .flatMap(checkpoints -> {
+                    List<String> pending = new ArrayList<>();
+                    for (DbSyncCheckpoint checkpoint : checkpoints.values()) {
+                        if (!checkpoint.isFinished()) {
+                            pending.add(checkpoint.conversationId());
+                        }
+                    }
+                    return pending.isEmpty() ? compareConversations(client, tracker) : resumeConversations(pending, tracker);
+                })
                 .flatMap(result -> lookForMissingEvents(client, result))
                 .map(result -> new ChatResult(result.isSuccessful, null)));
     }
 
+    /**
+     * Compares remote and local conversation lists and updates the local one.
+     *
+     * @param client  Foundation client.
+     * @param tracker Tracker counting the synchronisation progress.
+     * @return Observable emitting comparison object with the conversations to synchronise.
+     */
+    private Observable<ConversationComparison> compareConversations(final RxComapiClient client, final SynchronisationTracker tracker) {
+
+        return Observable.zip(
+                conversationQueriesRetry.applyToResult(client.service().messaging().getConversations(false)),
+                persistenceController.loadAllConversations(),
+                (result, chatConversationBases) -> compare(result.isSuccessful(), result.getResult(), chatConversationBases).setTracker(tracker))
+                .flatMap(this::updateLocalConversationList);
+    }
+
+    /**
+     * Loads conversations left to synchronise by the interrupted synchronisation. Local conversation list has been updated before the interruption so it is not compared again.
+     *
+     * @param conversationIds Unique ids of conversations left to synchronise.
+     * @param tracker         Tracker counting the synchronisation progress.
+     * @return Observable emitting comparison object with the conversations to synchronise.
+     */
+    private Observable<ConversationComparison> resumeConversations(final List<String> conversationIds, final SynchronisationTracker tracker) {
+
+        return Observable.from(conversationIds)
+                .concatMap(persistenceController::getConversation)
+                .filter(conversation -> conversation != null)
+                .toList()
+                .map(conversations -> {
+                    ConversationComparison comparison = new ConversationComparison(conversations).setTracker(tracker);
+                    comparison.addSuccess(true);
+                    tracker.onConversationsCompared(0, 0, comparison.conversationsToUpdate.size(), 0);
+                    return comparison;
+                });
+    }
+
     /**
      * Compares remote and local conversation lists.
      *
@@ -499,19 +856,44 @@ class ChatController {
     /**
      * Updates single conversation state.
      *
+     * @param conversationId Unique conversation id.
      * @return Result of synchronisation with services.
      */
     Observable<ChatResult> synchroniseConversation(String conversationId) {
+        return synchroniseConversation(conversationId, SynchronisationTracker.NONE);
+    }
+
+    /**
+     * Updates single conversation state.
+     *
+     * @param conversationId Unique conversation id.
+     * @return Observable emitting progress of the synchronisation, the last emitted progress contains the synchronisation result.
+     */
+    Observable<SynchronisationProgress> synchroniseConversationWithProgress(String conversationId) {
+        final SynchronisationTracker tracker = new SynchronisationTracker();
+        return observeProgress(tracker, synchroniseConversation(conversationId, tracker)
+                .onErrorReturn(t -> new ChatResult(false, new ChatResult.Error(0, t)))
+                .doOnNext(tracker::onFinished));
+    }
+
+    /**
+     * Updates single conversation state.
+     *
+     * @param conversationId Unique conversation id.
+     * @param tracker        Tracker counting the synchronisation progress.
+     * @return Result of synchronisation with services.
+     */
+    private Observable<ChatResult> synchroniseConversation(final String conversationId, final SynchronisationTracker tracker) {
 
-        return checkState().flatMap(client -> client.service().messaging()
-                .queryMessages(conversationId, null, 1)
+        return checkState().flatMap(client -> eventQueriesRetry.applyToResult(client.service().messaging()
+                .queryMessages(conversationId, null, 1))
                 .map(result -> {
                     if (result.isSuccessful() && result.getResult() != null) {
                         return (long) result.getResult().getLatestEventId();
                     }
                     return -1L;
                 })
-                .flatMap(result -> persistenceController.getConversation(conversationId).map(loaded -> compare(result, loaded)))
+                .flatMap(result -> persistenceController.getConversation(conversationId).map(loaded -> compare(result, loaded).setTracker(tracker)))
                 .flatMap(this::updateLocalConversationList)
                 .flatMap(result -> lookForMissingEvents(client, result))
                 .map(result -> new ChatResult(result.isSuccessful, null)));
@@ -530,7 +912,7 @@ class ChatController {
             return Observable.fromCallable(() -> conversationComparison);
         }
 
-        return synchroniseEvents(client, conversationComparison.conversationsToUpdate, new ArrayList<>())
+        return synchroniseEvents(client, conversationComparison.conversationsToUpdate, new ArrayList<>(), conversationComparison.isResumable, conversationComparison.tracker)
                 .map(result -> {
                     if (conversationComparison.isSuccessful && !result) {
                         conversationComparison.addSuccess(false);
@@ -553,19 +935,25 @@ class ChatController {
                 (success1, success2, success3) -> success1 && success2 && success3)
                 .map(result -> {
                     conversationComparison.addSuccess(result);
+                    conversationComparison.tracker.onConversationsCompared(conversationComparison.conversationsCompared, conversationComparison.conversationsToAdd.size(),
+                            conversationComparison.conversationsToUpdate.size(), conversationComparison.conversationsToDelete.size());
                     return conversationComparison;
                 });
     }
 
     /**
-     * Synchronise missing events for the list of locally stored conversations.
+     * Synchronise missing events for the list of locally stored conversations. At most {@link ChatController#maxConversationsInFlight} conversations are queried at the same time.
+     * Conversations are served in turns, the active conversation set in {@link ChatController#setActiveConversation(String)} goes first and is synchronised without yielding to the others.
+     * Progress of resumable synchronisation is saved in internal database after every turn, so synchronisation interrupted e.g. by the app being killed continues where it stopped instead of starting over.
      *
      * @param client                Foundation client.
      * @param conversationsToUpdate List of conversations to query last events.
      * @param successes             List of partial successes.
+     * @param isResumable           True if progress should be saved and synchronisation resumed from the saved progress.
+     * @param tracker               Tracker counting the synchronisation progress.
      * @return Observable with the merged result of operations.
      */
-    private Observable<Boolean> synchroniseEvents(final RxComapiClient client, @NonNull final List<ChatConversation> conversationsToUpdate, @NonNull final List<Boolean> successes) {
+    private Observable<Boolean> synchroniseEvents(final RxComapiClient client, @NonNull final List<ChatConversation> conversationsToUpdate, @NonNull final List<Boolean> successes, final boolean isResumable, final SynchronisationTracker tracker) {
 
         final List<ChatConversation> limited = limitNumberOfConversations(conversationsToUpdate);
 
@@ -573,51 +961,203 @@ class ChatController {
             return Observable.fromCallable(() -> true);
         }
 
-        return Observable.from(limited)
-                .onBackpressureBuffer()
-                .flatMap(conversation -> persistenceController.getConversation(conversation.getConversationId()))
-                .flatMap(conversation -> {
-                    if (conversation.getLastRemoteEventId() > conversation.getLastLocalEventId()) {
-                        final long from = conversation.getLastLocalEventId() >= 0 ? conversation.getLastLocalEventId() : 0;
-                        return queryEventsRecursively(client, conversation.getConversationId(), from, 0, successes).map(ComapiResult::isSuccessful);
-                    } else {
-                        return Observable.fromCallable((Callable<Object>) () -> true);
-                    }
+        final List<Boolean> results = Collections.synchronizedList(successes);
+
+        return loadSyncCheckpoints(isResumable)
+                .flatMap(checkpoints -> Observable.from(limited)
+                        .onBackpressureBuffer()
+                        .concatMap(conversation -> persistenceController.getConversation(conversation.getConversationId()))
+                        .filter(conversation -> conversation != null && conversation.getLastRemoteEventId() > conversation.getLastLocalEventId())
+                        .map(conversation -> resumeCursor(conversation, checkpoints.get(conversation.getConversationId())))
+                        .filter(cursor -> !cursor.isFinished)
+                        .toList()
+                        .flatMap(cursors -> saveSyncCheckpoints(isResumable, cursors, checkpoints).map(saved -> cursors)))
+                .flatMap(cursors -> {
+                    final EventQueryScheduler<ComapiResult<ConversationEventsResponse>> scheduler = new EventQueryScheduler<>(cursors,
+                            (conversationId, from) -> queryConversationEvents(client, conversationId, from, eventPageSize.getPageSize()).toList(),
+                            result -> result.getResult() != null ? result.getResult().getEventsInOrder().size() : 0,
+                            conversationId -> conversationId.equals(activeConversationId),
+                            maxEventQueriesPerTurn, (int) Math.min(Integer.MAX_VALUE, (long) eventsPerQuery * maxEventQueries), maxEventPagesPrefetched);
+                    return Observable.range(0, Math.max(1, Math.min(maxConversationsInFlight, cursors.size())))
+                            .flatMap(worker -> synchroniseEventsQueue(scheduler, results, isResumable, tracker))
+                            .doOnTerminate(scheduler::shutdown)
+                            .doOnUnsubscribe(scheduler::shutdown);
                 })
+                .toList()
+                .flatMap(res -> isResumable ? persistenceController.clearSyncCheckpoints().onErrorReturn(t -> 0) : Observable.just(0))
                 .flatMap(res -> Observable.from(successes).all(Boolean::booleanValue));
     }
 
     /**
-     * Synchronise missing events for particular conversation.
+     * Takes conversations from the scheduler queue one at a time and queries missing events for them in turns, see {@link InternalConfig#limitEventQueriesPerTurn(int)}.
      *
-     * @param client         Foundation client.
-     * @param conversationId Unique ID of a conversation.
-     * @param lastEventId    Last known event id - query should start form it.
-     * @param count          Number of queries already made.
-     * @param successes      list of query & processing results in recursive call.
-     * @return Observable with the merged result of operations.
+     * @param scheduler   Scheduler of event queries shared by all parallel calls.
+     * @param successes   List of partial successes.
+     * @param isResumable True if synchronisation progress should be saved after the turn.
+     * @param tracker     Tracker counting the synchronisation progress.
+     * @return Observable emitting true when there are no more conversations in the queue.
      */
-    private Observable<ComapiResult<ConversationEventsResponse>> queryEventsRecursively(final RxComapiClient client, final String conversationId, final long lastEventId, final int count, final List<Boolean> successes) {
+    private Observable<Boolean> synchroniseEventsQueue(final EventQueryScheduler<ComapiResult<ConversationEventsResponse>> scheduler, final List<Boolean> successes, final boolean isResumable, final SynchronisationTracker tracker) {
 
-        return client.service().messaging().queryConversationEvents(conversationId, lastEventId, eventsPerQuery)
-                .flatMap(result -> processEventsQueryResponse(result, successes))
-                .flatMap(result -> {
-                    if (result.getResult() != null && result.getResult().getEventsInOrder().size() >= eventsPerQuery && count < maxEventQueries) {
-                        return queryEventsRecursively(client, conversationId, lastEventId + result.getResult().getEventsInOrder().size(), count + 1, successes);
+        final EventQueryScheduler.Page<ComapiResult<ConversationEventsResponse>> page = scheduler.nextTurn();
+
+        if (page == null) {
+            return Observable.fromCallable(() -> true);
+        }
+
+        final List<Boolean> turnSuccesses = Collections.synchronizedList(new ArrayList<>());
+
+        return processEventsPages(scheduler, page, turnSuccesses, tracker)
+                .flatMap(next -> {
+                    successes.addAll(turnSuccesses);
+                    scheduler.onTurnFinished(next);
+                    return updateSyncCheckpoint(isResumable, next, !turnSuccesses.contains(false));
+                })
+                .flatMap(saved -> synchroniseEventsQueue(scheduler, successes, isResumable, tracker));
+    }
+
+    /**
+     * Loads progress saved by previous, interrupted store synchronisation.
+     *
+     * @param isResumable True if synchronisation can be resumed from saved progress.
+     * @return Observable emitting map of saved checkpoints by conversation id, empty if there is nothing to resume.
+     */
+    private Observable<Map<String, DbSyncCheckpoint>> loadSyncCheckpoints(final boolean isResumable) {
+
+        if (!isResumable) {
+            return Observable.just(Collections.emptyMap());
+        }
+
+        final long notOlderThan = System.currentTimeMillis() - SYNC_CHECKPOINT_TIMEOUT;
+
+        return persistenceController.purgeSyncCheckpoints(notOlderThan)
+                .onErrorReturn(t -> 0)
+                .flatMap(purged -> persistenceController.loadSyncCheckpoints(notOlderThan))
+                .map(checkpoints -> {
+                    Map<String, DbSyncCheckpoint> map = new HashMap<>();
+                    for (DbSyncCheckpoint checkpoint : checkpoints) {
+                        map.put(checkpoint.conversationId(), checkpoint);
+                    }
+                    if (!map.isEmpty()) {
+                        log.i("Resuming store synchronisation, " + map.size() + " conversations in progress.");
+                    }
+                    return map;
+                })
+                .onErrorReturn(t -> Collections.emptyMap());
+    }
+
+    /**
+     * Creates synchronisation state for a conversation, continuing from the saved progress if there is one.
+     * Conversation finished by the interrupted synchronisation is synchronised again if new events arrived after the checkpoint.
+     *
+     * @param conversation Locally stored conversation.
+     * @param checkpoint   Progress saved by interrupted synchronisation or null.
+     * @return Conversation synchronisation state.
+     */
+    private EventQueryScheduler.Cursor resumeCursor(@NonNull ChatConversationBase conversation, @Nullable DbSyncCheckpoint checkpoint) {
+        long from = conversation.getLastLocalEventId() >= 0 ? conversation.getLastLocalEventId() : 0;
+        if (checkpoint == null) {
+            return new EventQueryScheduler.Cursor(conversation.getConversationId(), from, 0);
+        } else if (checkpoint.isFinished() && checkpoint.from() >= conversation.getLastRemoteEventId()) {
+            return new EventQueryScheduler.Cursor(conversation.getConversationId(), from, checkpoint.events(), true);
+        } else {
+            return new EventQueryScheduler.Cursor(conversation.getConversationId(), Math.max(from, checkpoint.from()), checkpoint.events());
+        }
+    }
+
+    /**
+     * Saves progress of store synchronisation that is about to start. Conversations finished by the interrupted synchronisation are kept, so they are not synchronised again if this one is interrupted too.
+     *
+     * @param isResumable True if synchronisation progress should be saved.
+     * @param cursors     Synchronisation state of conversations to synchronise.
+     * @param resumed     Progress saved by interrupted synchronisation.
+     * @return Observable emitting number of saved checkpoints.
+     */
+    private Observable<Integer> saveSyncCheckpoints(final boolean isResumable, final List<EventQueryScheduler.Cursor> cursors, final Map<String, DbSyncCheckpoint> resumed) {
+
+        if (!isResumable) {
+            return Observable.just(0);
+        }
+
+        final long now = System.currentTimeMillis();
+        final Set<String> synchronised = new HashSet<>();
+        for (EventQueryScheduler.Cursor cursor : cursors) {
+            synchronised.add(cursor.conversationId);
+        }
+        final List<DbSyncCheckpoint> checkpoints = new ArrayList<>();
+        for (DbSyncCheckpoint checkpoint : resumed.values()) {
+            if (checkpoint.isFinished() && !synchronised.contains(checkpoint.conversationId())) {
+                checkpoints.add(DbSyncCheckpoint.create(checkpoint.conversationId(), checkpoint.from(), checkpoint.events(), true, now));
+            }
+        }
+        for (EventQueryScheduler.Cursor cursor : cursors) {
+            checkpoints.add(DbSyncCheckpoint.create(cursor.conversationId, cursor.from, cursor.events, false, now));
+        }
+
+        return persistenceController.saveSyncCheckpoints(checkpoints).onErrorReturn(t -> 0);
+    }
+
+    /**
+     * Saves progress of store synchronisation in a single conversation after a turn of event queries. Progress of a turn with failed queries is discarded, so the conversation stays on the list to synchronise but will be synchronised from the local store state.
+     *
+     * @param isResumable  True if synchronisation progress should be saved.
+     * @param cursor       Conversation synchronisation state after the turn.
+     * @param isSuccessful True if all queries in the turn were successful.
+     * @return Observable emitting true when the progress has been saved.
+     */
+    private Observable<Boolean> updateSyncCheckpoint(final boolean isResumable, final EventQueryScheduler.Cursor cursor, final boolean isSuccessful) {
+
+        if (!isResumable) {
+            return Observable.just(true);
+        }
+
+        if (isSuccessful) {
+            return persistenceController.updateSyncCheckpoint(DbSyncCheckpoint.create(cursor.conversationId, cursor.from, cursor.events, cursor.isFinished, System.currentTimeMillis()))
+                    .onErrorReturn(t -> false);
+        } else {
+            return persistenceController.updateSyncCheckpoint(DbSyncCheckpoint.create(cursor.conversationId, 0, 0, false, System.currentTimeMillis()))
+                    .onErrorReturn(t -> false);
+        }
+    }
+
+    /**
+     * Saves event pages of a conversation turn in the store one after another. Next event pages are queried while the current one is being saved in the store, see {@link InternalConfig#limitEventPagesPrefetched(int)}.
+     *
+     * @param scheduler Scheduler of event queries.
+     * @param page      Event page to save.
+     * @param successes list of query & processing results in recursive call.
+     * @param tracker   Tracker counting the synchronisation progress.
+     * @return Observable with the synchronisation state after the last page has been saved.
+     */
+    private Observable<EventQueryScheduler.Cursor> processEventsPages(final EventQueryScheduler<ComapiResult<ConversationEventsResponse>> scheduler, final EventQueryScheduler.Page<ComapiResult<ConversationEventsResponse>> page, final List<Boolean> successes, final SynchronisationTracker tracker) {
+
+        return scheduler.getResponse(page)
+                .flatMap(parts -> {
+                    tracker.onEventPagesFetched(parts.size());
+                    // Shared responses are saved again, so the range is stored even if the query owner didn't save it
+                    return Observable.from(parts).concatMap(part -> processEventsQueryResponse(page.cursor.conversationId, part.result, successes, tracker)).toList();
+                })
+                .flatMap(results -> {
+                    scheduler.onSaved(page);
+                    final EventQueryScheduler.Page<ComapiResult<ConversationEventsResponse>> following = scheduler.getFollowing(page);
+                    if (following != null) {
+                        return processEventsPages(scheduler, following, successes, tracker);
                     } else {
-                        return Observable.just(result);
+                        return Observable.just(scheduler.getNext(page));
                     }
                 });
     }
 
     /**
-     * Process the event query response. Calls appropraiate persistance controller methods for received events.
+     * Process the event query response. Received events are saved in the store in a single transaction.
      *
-     * @param result    Event query response.
-     * @param successes List of successes in recursive query.
+     * @param conversationId Unique id of a conversation the events belong to.
+     * @param result         Event query response.
+     * @param successes      List of successes in recursive query.
+     * @param tracker        Tracker counting the synchronisation progress.
      * @return Observable with same result object for further processing.
      */
-    private Observable<ComapiResult<ConversationEventsResponse>> processEventsQueryResponse(ComapiResult<ConversationEventsResponse> result, final List<Boolean> successes) {
+    private Observable<ComapiResult<ConversationEventsResponse>> processEventsQueryResponse(final String conversationId, ComapiResult<ConversationEventsResponse> result, final List<Boolean> successes, final SynchronisationTracker tracker) {
 
         ConversationEventsResponse response = result.getResult();
         successes.add(result.isSuccessful());
@@ -625,23 +1165,27 @@ class ChatController {
 
             Collection<Event> events = response.getEventsInOrder();
 
-            List<Observable<Boolean>> list = new ArrayList<>();
+            List<ChatMessage> messages = new ArrayList<>();
+            List<ChatMessageStatus> statuses = new ArrayList<>();
 
             for (Event event : events) {
 
                 if (event instanceof MessageSentEvent) {
-                    MessageSentEvent messageEvent = (MessageSentEvent) event;
-                    list.add(persistenceController.updateStoreWithNewMessage(ChatMessage.builder().populate(messageEvent).build(), noConversationListener));
+                    messages.add(ChatMessage.builder().populate((MessageSentEvent) event).build());
                 } else if (event instanceof MessageDeliveredEvent) {
-                    list.add(persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate((MessageDeliveredEvent) event).build()));
+                    statuses.add(ChatMessageStatus.builder().populate((MessageDeliveredEvent) event).build());
                 } else if (event instanceof MessageReadEvent) {
-                    list.add(persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate((MessageReadEvent) event).build()));
+                    statuses.add(ChatMessageStatus.builder().populate((MessageReadEvent) event).build());
                 }
             }
 
-            return Observable.from(list)
-                    .flatMap(task -> task)
-                    .doOnNext(successes::add)
+            return persistenceController.updateStoreFromEvents(conversationId, messages, statuses, noConversationListener)
+                    .doOnNext(success -> {
+                        successes.add(success);
+                        if (success) {
+                            tracker.onEventsApplied(messages, statuses.size());
+                        }
+                    })
                     .toList()
                     .map(results -> result);
         }
@@ -650,10 +1194,11 @@ class ChatController {
     }
 
     /**
-     * Limits number of conversations to check and synchronise. Emty conversations wont be synchronised. The synchronisation will take place for twenty conversations updated most recently.
+     * Limits number of conversations to check and synchronise. Emty conversations wont be synchronised. The synchronisation will take place for conversations with the highest score, see {@link InternalConfig#prioritiseConversations(ConversationPriority)}.
+     * Conversations are selected with a heap bounded to the synchronisation limit.
      *
      * @param conversations List of conversations to be limited.
-     * @return Limited list of conversations to update.
+     * @return Limited list of conversations to update, the highest score first.
      */
     private List<ChatConversation> limitNumberOfConversations(List<ChatConversation> conversations) {
 
@@ -664,30 +1209,32 @@ class ChatController {
             }
         }
 
-        List<ChatConversation> limitedList;
-
         if (noEmptyConversations.size() <= maxConversationsSynced) {
-            limitedList = noEmptyConversations;
-        } else {
-            SortedMap<Long, ChatConversation> sorted = new TreeMap<>();
-            for (ChatConversation conversation : noEmptyConversations) {
-                Long updatedOn = conversation.getUpdatedOn();
-                if (updatedOn != null) {
-                    sorted.put(updatedOn, conversation);
-                }
-            }
-            limitedList = new ArrayList<>();
-            Object[] array = sorted.values().toArray();
-            for (int i = 0; i < Math.min(maxConversationsSynced, array.length); i++) {
-                limitedList.add((ChatConversation) array[i]);
+            return noEmptyConversations;
+        }
+
+        final Set<String> pinned = pinnedConversations;
+        final PriorityQueue<ScoredConversation> heap = new PriorityQueue<>(Math.max(1, maxConversationsSynced));
+        for (ChatConversation conversation : noEmptyConversations) {
+            ScoredConversation scored = new ScoredConversation(conversation, conversationPriority.getScore(conversation, pinned.contains(conversation.getConversationId())));
+            if (heap.size() < maxConversationsSynced) {
+                heap.add(scored);
+            } else if (maxConversationsSynced > 0 && scored.compareTo(heap.peek()) > 0) {
+                heap.poll();
+                heap.add(scored);
             }
         }
 
-        return limitedList;
+        ChatConversation[] limited = new ChatConversation[heap.size()];
+        for (int i = limited.length - 1; i >= 0; i--) {
+            limited[i] = heap.poll().conversation;
+        }
+
+        return new ArrayList<>(Arrays.asList(limited));
     }
 
     /**
-     * Handle incomming message. Replace temporary message with received one and mark as delivered.
+     * Handle incomming message. Replace temporary message with received one and mark as delivered. If delivery receipts are collected in batches the result won't include marking message as delivered.
      *
      * @param message Message to save and mark delivered.
      * @return Observable with a result.
@@ -698,12 +1245,17 @@ class ChatController {
 
         Observable<Boolean> replaceMessages = persistenceController.updateStoreWithNewMessage(message, noConversationListener);
 
-        if (!TextUtils.isEmpty(sender) && !sender.equals(getProfileId())) {
+        if (!TextUtils.isEmpty(sender) && !sender.equals(getProfileId()) && receiptsAggregator.isEnabled()) {
+
+            receiptsAggregator.add(message.getConversationId(), message.getMessageId());
+            return replaceMessages;
+
+        } else if (!TextUtils.isEmpty(sender) && !sender.equals(getProfileId())) {
 
             final Set<String> ids = new HashSet<>();
             ids.add(message.getMessageId());
 
-            return Observable.zip(replaceMessages, markDelivered(message.getConversationId(), ids), (saved, result) -> saved && result.isSuccessful());
+            return Observable.zip(replaceMessages, sendDeliveryReceipts(message.getConversationId(), ids), (saved, delivered) -> saved && delivered);
 
         } else {
 
@@ -711,6 +1263,37 @@ class ChatController {
         }
     }
 
+    /**
+     * Handle batch of incoming messages and message statuses. Saves all of them in a single store transaction and marks messages from other users as delivered.
+     *
+     * @param messages Received messages with conversation ids as keys.
+     * @param statuses Received message statuses with conversation ids as keys.
+     * @return Observable with a result of saving events in the store.
+     */
+    Observable<Boolean> handleEvents(final Map<String, List<ChatMessage>> messages, final Map<String, List<ChatMessageStatus>> statuses) {
+
+        final String profileId = getProfileId();
+
+        for (Map.Entry<String, List<ChatMessage>> entry : messages.entrySet()) {
+            final Set<String> ids = new HashSet<>();
+            for (ChatMessage message : entry.getValue()) {
+                String sender = message.getSentBy();
+                if (!TextUtils.isEmpty(sender) && !sender.equals(profileId)) {
+                    if (receiptsAggregator.isEnabled()) {
+                        receiptsAggregator.add(entry.getKey(), message.getMessageId());
+                    } else {
+                        ids.add(message.getMessageId());
+                    }
+                }
+            }
+            if (!ids.isEmpty()) {
+                obsExec.execute(sendDeliveryReceipts(entry.getKey(), ids));
+            }
+        }
+
+        return persistenceController.updateStoreFromEvents(messages, statuses, noConversationListener);
+    }
+
     /**
      * Query missing events as {@link com.comapi.chat.internal.MissingEventsTracker} reported.
      *
@@ -719,8 +1302,33 @@ class ChatController {
      * @param limit          Limit of events in a query.
      */
     void queryMissingEvents(String conversationId, long from, int limit) {
-        obsExec.execute(checkState().flatMap(client -> client.service().messaging().queryConversationEvents(conversationId, from, limit))
-                .flatMap((result) -> processEventsQueryResponse(result, new ArrayList<>())));
+        obsExec.execute(checkState().flatMap(client -> queryConversationEvents(client, conversationId, from, limit))
+                .concatMap(part -> processEventsQueryResponse(conversationId, part.result, new ArrayList<>(), SynchronisationTracker.NONE)));
+    }
+
+    /**
+     * Query conversation events. Events already being queried are not queried again, the query joins the one in progress instead.
+     * Every service call is timed to adjust size of the next event pages, see {@link InternalConfig#adaptEventsPerQuery(int, int)}.
+     *
+     * @param client         Foundation client.
+     * @param conversationId Unique conversation id.
+     * @param from           Conversation event id to start from.
+     * @param limit          Number of events to query.
+     * @return Observable with query results covering the requested range of events. Every caller saves the results it gets, including results shared with other callers.
+     */
+    private Observable<EventQueriesRegistry.Part<ComapiResult<ConversationEventsResponse>>> queryConversationEvents(final RxComapiClient client, final String conversationId, final long from, final int limit) {
+        return eventQueries.query(conversationId, from, limit, (queryFrom, queryLimit) -> eventQueriesRetry.applyToResult(Observable.defer(() -> {
+            final long startedOn = System.currentTimeMillis();
+            return client.service().messaging().queryConversationEvents(conversationId, queryFrom, queryLimit)
+                    .doOnNext(result -> {
+                        if (result.isSuccessful()) {
+                            eventPageSize.onResponse(queryLimit, result.getResult() != null ? result.getResult().getEventsInOrder().size() : 0, System.currentTimeMillis() - startedOn);
+                        } else {
+                            eventPageSize.onError(queryLimit);
+                        }
+                    })
+                    .doOnError(t -> eventPageSize.onError(queryLimit));
+        })));
     }
 
     /**
@@ -761,10 +1369,40 @@ class ChatController {
         return map;
     }
 
+    /**
+     * Conversation with its synchronisation priority score. Ordered by score and conversation id for equal scores.
+     */
+    private static class ScoredConversation implements Comparable<ScoredConversation> {
+
+        final ChatConversation conversation;
+        final long score;
+
+        ScoredConversation(ChatConversation conversation, long score) {
+            this.conversation = conversation;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(@NonNull ScoredConversation other) {
+            if (score != other.score) {
+                return score < other.score ? -1 : 1;
+            }
+            String id = conversation.getConversationId();
+            String otherId = other.conversation.getConversationId();
+            if (id == null || otherId == null) {
+                return id == null ? (otherId == null ? 0 : -1) : 1;
+            }
+            return otherId.compareTo(id);
+        }
+    }
+
     class ConversationComparison {
 
         boolean remoteCallSuccessful = true;
         boolean isSuccessful = false;
+        boolean isResumable = false;
+        int conversationsCompared = 0;
+        SynchronisationTracker tracker = SynchronisationTracker.NONE;
 
         List<ChatConversation> conversationsToAdd;
         List<ChatConversationBase> conversationsToDelete;
@@ -780,11 +1418,13 @@ class ChatController {
         ConversationComparison(boolean successful, Map<String, Conversation> downloadedList, Map<String, ChatConversationBase> savedList) {
 
             remoteCallSuccessful = successful;
+            isResumable = true;
             conversationsToDelete = new ArrayList<>();
             conversationsToUpdate = new ArrayList<>();
             conversationsToAdd = new ArrayList<>();
 
             Map<String, ChatConversationBase> savedListProcessed = new HashMap<>(savedList);
+            conversationsCompared = downloadedList.size();
 
             for (String key : downloadedList.keySet()) {
                 if (savedListProcessed.containsKey(key)) {
@@ -806,6 +1446,7 @@ class ChatController {
 
             if (!savedListProcessed.isEmpty()) {
                 conversationsToDelete.addAll(savedListProcessed.values());
+                conversationsCompared += savedListProcessed.size();
             }
         }
 
@@ -817,11 +1458,14 @@ class ChatController {
          */
         public ConversationComparison(Long remoteLastEventId, ChatConversationBase conversation) {
 
+            // Saving progress of a single conversation would replace the list of conversations left by interrupted synchronisation of all conversations.
+            isResumable = false;
             conversationsToDelete = new ArrayList<>();
             conversationsToUpdate = new ArrayList<>();
             conversationsToAdd = new ArrayList<>();
 
             if (conversation != null && remoteLastEventId != null) {
+                conversationsCompared = 1;
                 if (conversation.getLastRemoteEventId() != null && conversation.getLastRemoteEventId() != -1L && remoteLastEventId > conversation.getLastRemoteEventId()) {
                     conversationsToUpdate.add(ChatConversation.builder().populate(conversation).setLastRemoteEventId(remoteLastEventId).build());
                 }
@@ -832,6 +1476,23 @@ class ChatController {
             }
         }
 
+        /**
+         * Creates comparison object for synchronisation resumed from the saved progress.
+         *
+         * @param pending Locally stored conversations left to synchronise by the interrupted synchronisation.
+         */
+        ConversationComparison(List<ChatConversationBase> pending) {
+
+            isResumable = true;
+            conversationsToDelete = new ArrayList<>();
+            conversationsToUpdate = new ArrayList<>();
+            conversationsToAdd = new ArrayList<>();
+
+            for (ChatConversationBase conversation : pending) {
+                conversationsToUpdate.add(ChatConversation.builder().populate(conversation).build());
+            }
+        }
+
         /**
          * Set if processing of conversations was successful.
          *
@@ -840,5 +1501,16 @@ class ChatController {
         void addSuccess(boolean isSuccessful) {
             this.isSuccessful = isSuccessful && remoteCallSuccessful;
         }
+
+        /**
+         * Set tracker to report the synchronisation progress to.
+         *
+         * @param tracker Tracker counting the synchronisation progress.
+         * @return This comparison object.
+         */
+        ConversationComparison setTracker(@NonNull SynchronisationTracker tracker) {
+            this.tracker = tracker;
+            return this;
+        }
     }
 }
\ No newline at end of file
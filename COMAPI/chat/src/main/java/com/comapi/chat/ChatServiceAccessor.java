@@ -29,6 +29,7 @@ import com.comapi.RxServiceAccessor;
 import com.comapi.ServiceAccessor;
 import com.comapi.Session;
 import com.comapi.chat.model.Attachment;
+import com.comapi.chat.model.ChatMessage;
 import com.comapi.chat.model.ChatParticipant;
 import com.comapi.internal.CallbackAdapter;
 import com.comapi.internal.network.ComapiResult;
@@ -39,6 +40,7 @@ import com.comapi.internal.network.model.messaging.MessageToSend;
 import com.comapi.internal.network.model.profile.ComapiProfile;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -236,6 +238,17 @@ public class ChatServiceAccessor {
             callbackAdapter.adapt(rxMessaging.markMessagesAsRead(conversationId, messageIds), callback);
         }
 
+        /**
+         * Sets statuses for messages to 'read' with a single status update. If the store keeps status watermarks a single 'read up to' watermark is saved instead of a status for every message.
+         *
+         * @param conversationId ID of a conversation to modify.
+         * @param messages       Messages for which the status should be updated, usually all messages up to the latest one displayed to the user.
+         * @param callback       Callback with the result.
+         */
+        public void markConversationAsRead(@NonNull final String conversationId, @NonNull final List<ChatMessage> messages, @Nullable Callback<ChatResult> callback) {
+            callbackAdapter.adapt(rxMessaging.markConversationAsRead(conversationId, messages), callback);
+        }
+
         /**
          * Queries the next message page in conversation and delivers messages to store implementation.
          *
@@ -265,6 +278,24 @@ public class ChatServiceAccessor {
             callbackAdapter.adapt(rxMessaging.synchroniseConversation(conversationId), callback);
         }
 
+        /**
+         * Sets conversation currently opened by the user. Missing events in this conversation will be synchronised before the other conversations.
+         *
+         * @param conversationId Unique conversationId or null if no conversation is opened.
+         */
+        public void setActiveConversation(@Nullable final String conversationId) {
+            rxMessaging.setActiveConversation(conversationId);
+        }
+
+        /**
+         * Sets conversations pinned by the app. When there are more conversations than the synchronisation limit, pinned conversations are synchronised first.
+         *
+         * @param conversationIds Unique ids of pinned conversations or null to unpin all.
+         */
+        public void setPinnedConversations(@Nullable final Collection<String> conversationIds) {
+            rxMessaging.setPinnedConversations(conversationIds);
+        }
+
         /**
          * Sends participant is typing in conversation event.
          *
@@ -35,6 +35,7 @@ import com.comapi.chat.internal.MissingEventsTracker;
 import com.comapi.chat.listeners.ParticipantsListener;
 import com.comapi.chat.listeners.ProfileListener;
 import com.comapi.chat.listeners.TypingListener;
+import com.comapi.chat.model.ChatStore;
 import com.comapi.chat.model.ModelAdapter;
 import com.comapi.chat.profile.ProfileManager;
 import com.comapi.internal.CallbackAdapter;
@@ -51,6 +52,7 @@ import java.io.File;
 import java.lang.ref.WeakReference;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import rx.Observable;
 import rx.Subscriber;
@@ -66,9 +68,13 @@ public class ComapiChatClient {
 
     private final static String VERSION = "1.1.0";
 
+    /**
+     * Time in milliseconds to wait for collected delivery receipts to be sent when the app goes to background or the client is closed.
+     */
+    private final static long FLUSH_RECEIPTS_TIMEOUT = 2000;
+
     private final RxComapiClient client;
 
-    @SuppressWarnings("FieldCanBeLocal")
     private final EventsHandler eventsHandler;
 
     @SuppressWarnings("FieldCanBeLocal")
@@ -84,6 +90,8 @@ public class ComapiChatClient {
 
     private final Database db;
 
+    private final GroupCommitStoreFactory groupCommitStoreFactory;
+
     /**
      * Recommended constructor.
      *
@@ -99,12 +107,14 @@ public class ComapiChatClient {
         final Logger log = ClientHelper.getLogger(client).clone("Chat_" + VERSION);
         ModelAdapter modelAdapter = new ModelAdapter();
         db = Database.getInstance(app, false, log);
-        PersistenceController persistenceController = new PersistenceController(db, modelAdapter, chatConfig.getStoreFactory(), log);
         final InternalConfig internal = chatConfig.getInternalConfig();
-        controller = new ChatController(client, persistenceController, new AttachmentController(log, internal.getMaxPartDataSize()), internal, chatConfig.getObservableExecutor(), modelAdapter, log);
-        rxServiceAccessor = new RxChatServiceAccessor(modelAdapter, client, controller);
+        groupCommitStoreFactory = internal.getMaxTransactionsPerCommit() > 1 ? new GroupCommitStoreFactory(chatConfig.getStoreFactory(), internal.getMaxTransactionsPerCommit(), log) : null;
+        StoreFactory<ChatStore> storeFactory = groupCommitStoreFactory != null ? groupCommitStoreFactory : chatConfig.getStoreFactory();
+        PersistenceController persistenceController = new PersistenceController(db, modelAdapter, storeFactory, internal, log);
+        controller = new ChatController(client, persistenceController, new AttachmentController(log, internal.getMaxPartDataSize(), internal.getUploadsRetryPolicy()), internal, chatConfig.getObservableExecutor(), modelAdapter, log);
+        rxServiceAccessor = new RxChatServiceAccessor(modelAdapter, client, controller, internal);
         serviceAccessor = new ChatServiceAccessor(callbackAdapter, rxServiceAccessor);
-        eventsHandler.init(persistenceController, controller, new MissingEventsTracker(), chatConfig);
+        eventsHandler.init(persistenceController, controller, new MissingEventsTracker(internal.getMaxMissingEventsGracePeriod(), internal.getMaxMissingEventsIdleTimeout()), chatConfig);
 
         client.addListener(eventsHandler.getMessagingListenerAdapter());
         client.addListener(eventsHandler.getStateListenerAdapter());
@@ -165,7 +175,7 @@ public class ComapiChatClient {
             public void onForegrounded(Context context) {
                 ComapiChatClient client = ref.get();
                 if (client != null) {
-                    client.service().messaging().synchroniseStore(null);
+                    client.controller.handleForegrounded();
                 }
             }
 
@@ -175,7 +185,10 @@ public class ComapiChatClient {
              * @param context Application context
              */
             public void onBackgrounded(Context context) {
-
+                ComapiChatClient client = ref.get();
+                if (client != null) {
+                    client.controller.handleBackgrounded();
+                }
             }
         };
     }
@@ -210,13 +223,47 @@ public class ComapiChatClient {
         return client.getLogs();
     }
 
+    /**
+     * Gets number of received socket events waiting to be saved in the store. Useful for monitoring processing of event bursts.
+     *
+     * @return Number of socket events waiting to be processed.
+     */
+    public int getPendingEventsCount() {
+        return eventsHandler.getQueueDepth();
+    }
+
+    /**
+     * Observe the state of the limiter for automatic store synchronisations triggered by socket reconnection or app being foregrounded. Useful to check when automatic synchronisation is being suppressed.
+     *
+     * @return Observable emitting the limiter state whenever it changes.
+     */
+    public Observable<TokenBucketLimiter.State> observeAutoSyncLimiter() {
+        return controller.observeAutoSyncLimiter();
+    }
+
+    /**
+     * Sends collected delivery receipts and waits until they are sent or the timeout passes. Blocks the calling thread, use only when closing the client.
+     */
+    private void flushDeliveryReceipts() {
+        controller.flushDeliveryReceipts()
+                .timeout(FLUSH_RECEIPTS_TIMEOUT, TimeUnit.MILLISECONDS)
+                .onErrorReturn(t -> false)
+                .toBlocking()
+                .first();
+    }
+
     /**
      * Method to close the client state, won't be usable anymore. Useful e.g. for unit testing.
      *
      * @param context Context.
      */
     public void close(Context context) {
+        flushDeliveryReceipts();
         client.clean(context.getApplicationContext());
+        eventsHandler.shutdown();
+        if (groupCommitStoreFactory != null) {
+            groupCommitStoreFactory.shutdown();
+        }
         if (db != null) {
             db.closeDatabase();
         }
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.chat;
+
+import com.comapi.chat.model.ChatConversation;
+
+/**
+ * Scores conversations to decide which of them should be synchronised first when there are more conversations than the synchronisation limit, see {@link InternalConfig#limitConversationSynced(int)}.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public abstract class ConversationPriority {
+
+    /**
+     * Maximum number of missing events taken into account by the default score.
+     */
+    private static final long MAX_GAP_SCORED = 1000;
+
+    /**
+     * Score added for every missing event by the default score, equivalent to a conversation updated one minute later.
+     */
+    private static final long GAP_EVENT_SCORE = 60 * 1000;
+
+    /**
+     * Score added to pinned conversations by the default score, higher than any other score.
+     */
+    private static final long PINNED_SCORE = 1L << 62;
+
+    /**
+     * Calculate conversation score. Conversations with higher scores are synchronised first.
+     *
+     * @param conversation Conversation to score.
+     * @param isPinned     True if the conversation was pinned by the app, see {@link RxChatServiceAccessor.MessagingService#setPinnedConversations(java.util.Collection)}.
+     * @return Conversation score.
+     */
+    public abstract long getScore(ChatConversation conversation, boolean isPinned);
+
+    /**
+     * New instance of the default priority. Pinned conversations go first, the rest is ordered by the time of the last update increased by one minute for every missing event.
+     *
+     * @return New instance.
+     */
+    public static ConversationPriority getInstance() {
+
+        return new ConversationPriority() {
+
+            @Override
+            public long getScore(ChatConversation conversation, boolean isPinned) {
+
+                final Long updatedOn = conversation.getUpdatedOn();
+                final Long lastRemote = conversation.getLastRemoteEventId();
+                final Long lastLocal = conversation.getLastLocalEventId();
+
+                long gap = 0;
+                if (lastRemote != null && lastRemote >= 0) {
+                    gap = lastRemote - (lastLocal != null && lastLocal >= 0 ? lastLocal : -1L);
+                }
+
+                return (isPinned ? PINNED_SCORE : 0L)
+                        + (updatedOn != null && updatedOn > 0 ? updatedOn : 0L)
+                        + Math.max(0, Math.min(gap, MAX_GAP_SCORED)) * GAP_EVENT_SCORE;
+            }
+        };
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.internal.EventQueriesRegistry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Func1;
+import rx.observables.ConnectableObservable;
+
+/**
+ * Schedules conversation event queries of the store synchronisation. Conversations are served in turns of a limited number of queries, the active conversation goes first and doesn't yield to the others.
+ * Event pages following the last saved page are queried ahead within the prefetch limit, including the first page of the conversation served next.
+ * All the scheduling state is guarded by this object lock. Page queries are started outside of it.
+ *
+ * @param <R> Type of event query result.
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+class EventQueryScheduler<R> {
+
+    /**
+     * Queries a single page of conversation events.
+     *
+     * @param <R> Type of event query result.
+     */
+    interface PageQuery<R> {
+
+        /**
+         * Query conversation events.
+         *
+         * @param conversationId Unique conversation id.
+         * @param from           Conversation event id to start from.
+         * @return Observable with query results covering the requested range of events.
+         */
+        Observable<List<EventQueriesRegistry.Part<R>>> query(String conversationId, long from);
+    }
+
+    private final PageQuery<R> query;
+
+    private final Func1<R, Integer> eventCount;
+
+    private final Func1<String, Boolean> isActive;
+
+    private final int queriesPerTurn;
+
+    private final int maxEvents;
+
+    private final int maxPagesPrefetched;
+
+    private final Deque<Cursor> queue;
+
+    private final Map<String, Page<R>> prefetched;
+
+    /**
+     * Pages which queries have been started but the pages haven't been saved yet.
+     */
+    private final Set<Page<R>> outstanding;
+
+    private boolean isShutdown;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param cursors            Synchronisation state of conversations to synchronise.
+     * @param query              Queries a single page of conversation events.
+     * @param eventCount         Gets number of events in the query result, 0 if the query failed.
+     * @param isActive           Checks if the conversation is currently opened by the user.
+     * @param queriesPerTurn     Maximum number of queries in a turn of conversation that isn't active.
+     * @param maxEvents          Maximum number of events queried in a conversation. Pages of any size count towards the same limit, so reducing the page size doesn't reduce the number of synchronised events.
+     * @param maxPagesPrefetched Maximum number of pages queried ahead of the page being saved.
+     */
+    EventQueryScheduler(List<Cursor> cursors, PageQuery<R> query, Func1<R, Integer> eventCount, Func1<String, Boolean> isActive, int queriesPerTurn, int maxEvents, int maxPagesPrefetched) {
+        this.query = query;
+        this.eventCount = eventCount;
+        this.isActive = isActive;
+        this.queriesPerTurn = Math.max(1, queriesPerTurn);
+        this.maxEvents = maxEvents;
+        this.maxPagesPrefetched = Math.max(0, maxPagesPrefetched);
+        this.queue = new ArrayDeque<>();
+        this.prefetched = new HashMap<>();
+        this.outstanding = new HashSet<>();
+        for (Cursor cursor : cursors) {
+            offer(cursor);
+        }
+    }
+
+    /**
+     * Starts turn of the next conversation in the queue.
+     *
+     * @return The first page of the turn or null if there are no more conversations to synchronise.
+     */
+    Page<R> nextTurn() {
+
+        final Page<R> page;
+        final List<Page<R>> toStart = new ArrayList<>();
+        Page<R> abandoned = null;
+
+        synchronized (this) {
+
+            final Cursor cursor = isShutdown ? null : queue.pollFirst();
+            if (cursor == null) {
+                return null;
+            }
+
+            final Turn<R> turn = new Turn<>(isActive.call(cursor.conversationId) ? Integer.MAX_VALUE : queriesPerTurn);
+            final Page<R> pending = prefetched.remove(cursor.conversationId);
+            if (pending != null && pending.cursor == cursor) {
+                page = pending;
+                page.turn = turn;
+                createFollowing(page, toStart);
+            } else {
+                // Page prefetched from progress that has been discarded since
+                abandoned = pending;
+                page = new Page<>(this, cursor, turn, 0);
+            }
+            toStart.add(page);
+        }
+
+        if (abandoned != null) {
+            cancel(abandoned);
+        }
+        start(toStart);
+        return page;
+    }
+
+    /**
+     * Gets the page query response. Starts the query if it hasn't been started yet.
+     *
+     * @param page Event page.
+     * @return Observable with the page query responses.
+     */
+    Observable<List<EventQueriesRegistry.Part<R>>> getResponse(Page<R> page) {
+        start(Collections.singletonList(page));
+        return page.response;
+    }
+
+    /**
+     * Marks the page as saved and starts queries for the following pages within the prefetch limit.
+     *
+     * @param page Event page that has been saved.
+     */
+    void onSaved(Page<R> page) {
+
+        final List<Page<R>> toStart = new ArrayList<>();
+
+        synchronized (this) {
+            outstanding.remove(page);
+            final Turn<R> turn = page.turn;
+            turn.consumed = page.index + 1;
+            Page<R> p = page.following;
+            while (p != null && isInWindow(turn, p.index)) {
+                toStart.add(p);
+                p = p.following;
+            }
+            if (turn.prefetched != null && isInWindow(turn, turn.prefetchedIndex)) {
+                toStart.add(turn.prefetched);
+            }
+        }
+
+        start(toStart);
+    }
+
+    /**
+     * Cancels queries of pages that haven't been saved, e.g. prefetched for turns that won't happen because the synchronisation has finished or failed. No more pages are queried after that.
+     */
+    void shutdown() {
+
+        final List<Subscription> connections = new ArrayList<>();
+
+        synchronized (this) {
+            if (isShutdown) {
+                return;
+            }
+            isShutdown = true;
+            for (Page<R> page : outstanding) {
+                page.isCancelled = true;
+                if (page.connection != null) {
+                    connections.add(page.connection);
+                }
+            }
+            outstanding.clear();
+            prefetched.clear();
+            queue.clear();
+        }
+
+        for (Subscription connection : connections) {
+            connection.unsubscribe();
+        }
+    }
+
+    /**
+     * Gets the page following the saved one in the same turn.
+     *
+     * @param page Saved event page.
+     * @return The following page or null if this was the last page in the turn.
+     */
+    synchronized Page<R> getFollowing(Page<R> page) {
+        return page.following;
+    }
+
+    /**
+     * Gets synchronisation state after the page.
+     *
+     * @param page Saved event page.
+     * @return Synchronisation state for the next query or null if the page query hasn't finished.
+     */
+    synchronized Cursor getNext(Page<R> page) {
+        return page.next;
+    }
+
+    /**
+     * Ends turn of a conversation. Conversation that has more events to query is put back at the end of the queue, or at the front if it is the active conversation.
+     *
+     * @param cursor Synchronisation state after the turn.
+     */
+    synchronized void onTurnFinished(Cursor cursor) {
+        if (cursor != null && !cursor.isFinished) {
+            offer(cursor);
+        }
+    }
+
+    /**
+     * Puts conversation in the queue. Should be called while holding the lock.
+     *
+     * @param cursor Conversation synchronisation state.
+     */
+    private void offer(Cursor cursor) {
+        if (isActive.call(cursor.conversationId)) {
+            queue.offerFirst(cursor);
+        } else {
+            queue.offerLast(cursor);
+        }
+    }
+
+    /**
+     * Creates synchronisation state after processing the events query response.
+     *
+     * @param page  Event page.
+     * @param parts Event query responses covering the queried range of events.
+     */
+    private void onResponse(Page<R> page, List<EventQueriesRegistry.Part<R>> parts) {
+
+        final List<Page<R>> toStart = new ArrayList<>();
+
+        synchronized (this) {
+            final Cursor cursor = page.cursor;
+            boolean isFull = !parts.isEmpty();
+            long end = cursor.from;
+            for (EventQueriesRegistry.Part<R> part : parts) {
+                end = Math.max(end, part.from + part.limit);
+                if (eventCount.call(part.result) < part.limit) {
+                    isFull = false;
+                }
+            }
+            if (isFull && cursor.events < maxEvents) {
+                page.next = new Cursor(cursor.conversationId, end, (int) Math.min(Integer.MAX_VALUE, cursor.events + end - cursor.from), false);
+            } else {
+                page.next = new Cursor(cursor.conversationId, cursor.from, cursor.events, true);
+            }
+            createFollowing(page, toStart);
+        }
+
+        start(toStart);
+    }
+
+    /**
+     * Creates the page following the given one in the same turn. If this is the last page of the turn creates the first page of the conversation that will be served next, the first one in the queue or this one if the queue is empty.
+     * Should be called while holding the lock.
+     *
+     * @param page    Event page.
+     * @param toStart Pages to start after the lock is released.
+     */
+    private void createFollowing(Page<R> page, List<Page<R>> toStart) {
+        final Turn<R> turn = page.turn;
+        final Cursor next = page.next;
+        if (turn == null || next == null || page.following != null || isShutdown) {
+            return;
+        }
+        final int index = page.index + 1;
+        if (!next.isFinished && index < turn.queries) {
+            page.following = new Page<>(this, next, turn, index);
+            if (isInWindow(turn, index)) {
+                toStart.add(page.following);
+            }
+        } else if (maxPagesPrefetched > 0 && turn.prefetched == null) {
+            final Cursor upcoming = !queue.isEmpty() ? queue.peekFirst() : (!next.isFinished ? next : null);
+            if (upcoming != null && !prefetched.containsKey(upcoming.conversationId)) {
+                turn.prefetched = new Page<>(this, upcoming, null, 0);
+                turn.prefetchedIndex = index;
+                prefetched.put(upcoming.conversationId, turn.prefetched);
+                if (isInWindow(turn, index)) {
+                    toStart.add(turn.prefetched);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the page can be queried ahead. At most the prefetch limit of pages are queried beyond the first page in the turn that hasn't been saved. Should be called while holding the lock.
+     *
+     * @param turn  Conversation turn.
+     * @param index Index of the page counting from the first page in the turn.
+     * @return True if the page can be queried.
+     */
+    private boolean isInWindow(Turn<R> turn, int index) {
+        return index - turn.consumed <= maxPagesPrefetched;
+    }
+
+    /**
+     * Starts page queries that haven't been started yet. Should be called without holding the lock, the query can finish synchronously.
+     *
+     * @param pages Pages to start.
+     */
+    private void start(List<Page<R>> pages) {
+        for (Page<R> page : pages) {
+            synchronized (this) {
+                if (page.isStarted || page.isCancelled || isShutdown) {
+                    continue;
+                }
+                page.isStarted = true;
+                outstanding.add(page);
+            }
+            page.response.connect(connection -> onConnected(page, connection));
+        }
+    }
+
+    /**
+     * Keeps the page query connection to be able to cancel it.
+     *
+     * @param page       Event page.
+     * @param connection Page query connection.
+     */
+    private void onConnected(Page<R> page, Subscription connection) {
+        final boolean isCancelled;
+        synchronized (this) {
+            page.connection = connection;
+            isCancelled = page.isCancelled;
+        }
+        if (isCancelled) {
+            connection.unsubscribe();
+        }
+    }
+
+    /**
+     * Cancels the page query.
+     *
+     * @param page Event page that won't be saved.
+     */
+    private void cancel(Page<R> page) {
+        final Subscription connection;
+        synchronized (this) {
+            page.isCancelled = true;
+            outstanding.remove(page);
+            connection = page.connection;
+        }
+        if (connection != null) {
+            connection.unsubscribe();
+        }
+    }
+
+    /**
+     * State of events synchronisation in a single conversation.
+     */
+    static class Cursor {
+
+        final String conversationId;
+        final long from;
+        final int events;
+        final boolean isFinished;
+
+        /**
+         * Creates synchronisation state for conversation that has more events to query.
+         *
+         * @param conversationId Unique ID of a conversation.
+         * @param from           Conversation event id the next query should start from.
+         * @param events         Number of events already queried.
+         */
+        Cursor(String conversationId, long from, int events) {
+            this(conversationId, from, events, false);
+        }
+
+        /**
+         * Creates synchronisation state for conversation.
+         *
+         * @param conversationId Unique ID of a conversation.
+         * @param from           Conversation event id the next query should start from.
+         * @param events         Number of events already queried.
+         * @param isFinished     True if there are no more events to query.
+         */
+        Cursor(String conversationId, long from, int events, boolean isFinished) {
+            this.conversationId = conversationId;
+            this.from = from;
+            this.events = events;
+            this.isFinished = isFinished;
+        }
+    }
+
+    /**
+     * Turn of a single conversation.
+     *
+     * @param <R> Type of event query result.
+     */
+    private static class Turn<R> {
+
+        final int queries;
+
+        /**
+         * Number of pages in this turn that have been saved.
+         */
+        int consumed;
+
+        /**
+         * First page of the conversation served after this turn, queried ahead.
+         */
+        Page<R> prefetched;
+
+        /**
+         * Index of the page queried ahead counting from the first page in this turn.
+         */
+        int prefetchedIndex;
+
+        Turn(int queries) {
+            this.queries = queries;
+        }
+    }
+
+    /**
+     * Single page of conversation events. The page query starts when the turn reaches the page or earlier if it is within the prefetch limit from the last saved page.
+     * Page prefetched for the next turn doesn't belong to any turn until that turn starts.
+     *
+     * @param <R> Type of event query result.
+     */
+    static class Page<R> {
+
+        final Cursor cursor;
+
+        private final int index;
+
+        private final ConnectableObservable<List<EventQueriesRegistry.Part<R>>> response;
+
+        private boolean isStarted;
+
+        private boolean isCancelled;
+
+        private Subscription connection;
+
+        private Turn<R> turn;
+
+        private Cursor next;
+
+        private Page<R> following;
+
+        /**
+         * @param scheduler Scheduler of the page queries.
+         * @param cursor    Conversation synchronisation state for this page query.
+         * @param turn      Turn the page belongs to, null if prefetched for the next turn.
+         * @param index     Index of this page in the turn.
+         */
+        Page(EventQueryScheduler<R> scheduler, Cursor cursor, Turn<R> turn, int index) {
+            this.cursor = cursor;
+            this.turn = turn;
+            this.index = index;
+            this.response = scheduler.query.query(cursor.conversationId, cursor.from)
+                    .doOnNext(parts -> scheduler.onResponse(this, parts))
+                    .replay();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.model.ChatMessage;
+import com.comapi.chat.model.ChatMessageStatus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Subscription;
+
+/**
+ * Collects messages and message statuses received from socket to save them in the store in batches. Batch is released when the time window from the first collected event passes or when the batch reaches the size limit.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+class EventsBatcher {
+
+    /**
+     * Receives batches of collected events. Should pass the batch on for processing without blocking.
+     */
+    interface BatchListener {
+
+        /**
+         * Process batch of events.
+         *
+         * @param messages Received messages with conversation ids as keys.
+         * @param statuses Received message statuses with conversation ids as keys.
+         */
+        void onBatch(Map<String, List<ChatMessage>> messages, Map<String, List<ChatMessageStatus>> statuses);
+    }
+
+    private final BatchListener listener;
+
+    private final Object flushLock = new Object();
+
+    private final long window;
+
+    private final int maxBatchSize;
+
+    private Map<String, List<ChatMessage>> messages;
+
+    private Map<String, List<ChatMessageStatus>> statuses;
+
+    private int size;
+
+    private Subscription timer;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param listener     Receives batches of collected events.
+     * @param window       Time window in milliseconds to collect events in.
+     * @param maxBatchSize Maximum number of events in a batch.
+     */
+    EventsBatcher(BatchListener listener, long window, int maxBatchSize) {
+        this.listener = listener;
+        this.window = window;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.messages = new LinkedHashMap<>();
+        this.statuses = new LinkedHashMap<>();
+    }
+
+    /**
+     * Checks if events should be batched.
+     *
+     * @return True if events are collected over time window before saving.
+     */
+    boolean isEnabled() {
+        return window > 0;
+    }
+
+    /**
+     * Adds received message to the next batch.
+     *
+     * @param message Received message.
+     */
+    void add(ChatMessage message) {
+        boolean isFull;
+        synchronized (this) {
+            List<ChatMessage> list = messages.get(message.getConversationId());
+            if (list == null) {
+                list = new ArrayList<>();
+                messages.put(message.getConversationId(), list);
+            }
+            list.add(message);
+            isFull = onAdded();
+        }
+        if (isFull) {
+            flush();
+        }
+    }
+
+    /**
+     * Adds received message status to the next batch.
+     *
+     * @param status Received message status.
+     */
+    void add(ChatMessageStatus status) {
+        boolean isFull;
+        synchronized (this) {
+            List<ChatMessageStatus> list = statuses.get(status.getConversationId());
+            if (list == null) {
+                list = new ArrayList<>();
+                statuses.put(status.getConversationId(), list);
+            }
+            list.add(status);
+            isFull = onAdded();
+        }
+        if (isFull) {
+            flush();
+        }
+    }
+
+    /**
+     * Starts the time window if this is the first event in the batch. Should be called while holding the lock.
+     *
+     * @return True if the batch is full.
+     */
+    private boolean onAdded() {
+        size++;
+        if (size >= maxBatchSize) {
+            return true;
+        } else if (timer == null) {
+            timer = Observable.timer(window, TimeUnit.MILLISECONDS).subscribe(tick -> flush(), error -> flush());
+        }
+        return false;
+    }
+
+    /**
+     * Releases collected events immediately.
+     */
+    void flush() {
+
+        // Separate lock keeps batches passed on in order without blocking events being added to the next batch
+        synchronized (flushLock) {
+
+            final Map<String, List<ChatMessage>> batchMessages;
+            final Map<String, List<ChatMessageStatus>> batchStatuses;
+
+            synchronized (this) {
+                if (size == 0) {
+                    return;
+                }
+                if (timer != null) {
+                    timer.unsubscribe();
+                    timer = null;
+                }
+                batchMessages = messages;
+                batchStatuses = statuses;
+                messages = new LinkedHashMap<>();
+                statuses = new LinkedHashMap<>();
+                size = 0;
+            }
+
+            listener.onBatch(batchMessages, batchStatuses);
+        }
+    }
+}
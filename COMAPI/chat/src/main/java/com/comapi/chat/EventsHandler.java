@@ -21,6 +21,7 @@ package com.comapi.chat;
 
 import com.comapi.MessagingListener;
 import com.comapi.StateListener;
+import com.comapi.chat.internal.EventLanes;
 import com.comapi.chat.internal.MissingEventsTracker;
 import com.comapi.chat.model.ChatConversation;
 import com.comapi.chat.model.ChatMessage;
@@ -33,6 +34,13 @@ import com.comapi.internal.network.model.events.conversation.message.MessageDeli
 import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import rx.Observable;
+
 /**
  * Event interceptor for foundation events. Also adapter for Foundation SDK listeners.
  *
@@ -57,6 +65,10 @@ public class EventsHandler {
 
     private ObservableExecutor observableExecutor;
 
+    private EventLanes lanes;
+
+    private EventsBatcher batcher;
+
     void init(PersistenceController store, ChatController controller, MissingEventsTracker tracker, ChatConfig config) {
         this.persistenceController = store;
         this.controller = controller;
@@ -64,6 +76,9 @@ public class EventsHandler {
         this.stateListenerAdapter = new StateListenerAdapter();
         this.tracker = tracker;
         this.observableExecutor = config.getObservableExecutor();
+        final InternalConfig internal = config.getInternalConfig();
+        this.lanes = internal.getMaxEventLanes() > 0 ? new EventLanes(internal.getMaxEventLanes()) : null;
+        this.batcher = new EventsBatcher(this::executeBatch, internal.getMaxEventsBatchDelay(), internal.getMaxEventsBatch());
         this.missingEventsListener = controller::queryMissingEvents;
     }
 
@@ -80,6 +95,73 @@ public class EventsHandler {
         return stateListenerAdapter;
     }
 
+    /**
+     * Gets number of socket events waiting to be processed.
+     *
+     * @return Number of socket events waiting to be processed.
+     */
+    int getQueueDepth() {
+        return lanes != null ? lanes.getQueueDepth() : 0;
+    }
+
+    /**
+     * Stops threads processing socket events.
+     */
+    void shutdown() {
+        if (lanes != null) {
+            lanes.shutdown();
+        }
+    }
+
+    /**
+     * Executes processing of conversation event. Events in the same conversation are processed in order of arrival.
+     *
+     * @param conversationId Unique conversation id.
+     * @param obs            Observable processing the event.
+     * @param <T>            Type of emitted results.
+     */
+    private <T> void execute(String conversationId, Observable<T> obs) {
+        if (lanes != null) {
+            queue(lanes.serialise(conversationId, obs));
+        } else {
+            observableExecutor.execute(obs);
+        }
+    }
+
+    /**
+     * Executes processing of a batch of events. The whole batch is saved in a single store transaction. It waits for the lanes of all its conversations, so it is processed in order with the other events in these conversations.
+     *
+     * @param messages Received messages with conversation ids as keys.
+     * @param statuses Received message statuses with conversation ids as keys.
+     */
+    private void executeBatch(Map<String, List<ChatMessage>> messages, Map<String, List<ChatMessageStatus>> statuses) {
+
+        final Observable<Boolean> obs = controller.handleEvents(messages, statuses);
+
+        if (lanes == null) {
+            observableExecutor.execute(obs);
+            return;
+        }
+
+        final Set<String> conversationIds = new LinkedHashSet<>(messages.keySet());
+        conversationIds.addAll(statuses.keySet());
+        queue(lanes.serialise(conversationIds, obs));
+    }
+
+    /**
+     * Subscribes to the task serialised in the event lanes. Subscription queues the task in the lanes, so it is made on the calling thread to keep the events in order of arrival. The task itself is executed on the lane thread.
+     *
+     * @param obs Observable serialised in the event lanes.
+     * @param <T> Type of emitted results.
+     */
+    private <T> void queue(Observable<T> obs) {
+        obs.subscribe(result -> {
+            // Ignore result
+        }, error -> {
+            // Report errors in doOnError
+        });
+    }
+
     class StateListenerAdapter extends StateListener {
 
         @Override
@@ -98,7 +180,11 @@ public class EventsHandler {
         @Override
         public void onMessage(MessageSentEvent event) {
             tracker.checkEventId(event.getContext().getConversationId(), event.getConversationEventId(), missingEventsListener);
-            observableExecutor.execute(controller.handleMessage(ChatMessage.builder().populate(event).build()));
+            if (batcher.isEnabled()) {
+                batcher.add(ChatMessage.builder().populate(event).build());
+            } else {
+                execute(event.getContext().getConversationId(), controller.handleMessage(ChatMessage.builder().populate(event).build()));
+            }
         }
 
         /**
@@ -109,7 +195,11 @@ public class EventsHandler {
         @Override
         public void onMessageDelivered(MessageDeliveredEvent event) {
             tracker.checkEventId(event.getConversationId(), event.getConversationEventId(), missingEventsListener);
-            observableExecutor.execute(persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate(event).build()));
+            if (batcher.isEnabled()) {
+                batcher.add(ChatMessageStatus.builder().populate(event).build());
+            } else {
+                execute(event.getConversationId(), persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate(event).build()));
+            }
         }
 
         /**
@@ -120,7 +210,11 @@ public class EventsHandler {
         @Override
         public void onMessageRead(MessageReadEvent event) {
             tracker.checkEventId(event.getConversationId(), event.getConversationEventId(), missingEventsListener);
-            observableExecutor.execute(persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate(event).build()));
+            if (batcher.isEnabled()) {
+                batcher.add(ChatMessageStatus.builder().populate(event).build());
+            } else {
+                execute(event.getConversationId(), persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate(event).build()));
+            }
         }
 
         /**
@@ -130,7 +224,7 @@ public class EventsHandler {
          */
         @Override
         public void onParticipantAdded(ParticipantAddedEvent event) {
-            observableExecutor.execute(controller.handleParticipantsAdded(event.getConversationId()));
+            execute(event.getConversationId(), controller.handleParticipantsAdded(event.getConversationId()));
         }
 
         /**
@@ -140,7 +234,7 @@ public class EventsHandler {
          */
         @Override
         public void onConversationUpdated(ConversationUpdateEvent event) {
-            observableExecutor.execute(persistenceController.upsertConversation(ChatConversation.builder().populate(event).build()));
+            execute(event.getConversationId(), persistenceController.upsertConversation(ChatConversation.builder().populate(event).build()));
         }
 
         /**
@@ -150,7 +244,7 @@ public class EventsHandler {
          */
         @Override
         public void onConversationDeleted(ConversationDeleteEvent event) {
-            observableExecutor.execute(persistenceController.deleteConversation(event.getConversationId()));
+            execute(event.getConversationId(), persistenceController.deleteConversation(event.getConversationId()));
         }
 
         /**
@@ -160,7 +254,7 @@ public class EventsHandler {
          */
         @Override
         public void onConversationUndeleted(ConversationUndeleteEvent event) {
-            observableExecutor.execute(persistenceController.upsertConversation(ChatConversation.builder().populate(event).build()));
+            execute(event.getConversation() != null ? event.getConversation().getId() : null, persistenceController.upsertConversation(ChatConversation.builder().populate(event).build()));
         }
     }
 }
\ No newline at end of file
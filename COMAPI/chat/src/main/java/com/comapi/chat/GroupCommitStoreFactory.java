@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import android.support.annotation.NonNull;
+
+import com.comapi.chat.model.ChatStore;
+import com.comapi.internal.log.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Emitter;
+import rx.Observable;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * Store factory executing all store transactions on a single writer thread. SDK writes queued while the writer is busy are executed together inside a single {@link ChatStore#beginTransaction()} and {@link ChatStore#endTransaction()} pair, the store is opened and closed once for the whole group.
+ * Writes get the store created by the app's factory, there is no wrapper to keep in line with {@link ChatStore} methods. Transactions setting their own boundaries, e.g. those passed to {@link StoreFactory#execute(StoreTransaction)}, are executed alone in the queue order.
+ * If any write in a group fails, the group transaction is not ended, so the app's factory rolls it back like a single failed transaction, and the writes are replayed one by one, each in its own transaction.
+ * Results are emitted only after the transaction ends and not on the writer thread. The app's factory is expected to create the store before {@link StoreFactory#build(StoreCallback)} returns.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+class GroupCommitStoreFactory extends StoreFactory<ChatStore> {
+
+    private final StoreFactory<ChatStore> factory;
+
+    private final int maxTransactionsPerCommit;
+
+    private final Logger log;
+
+    private final Queue<Member<?>> pending;
+
+    private final AtomicBoolean isScheduled;
+
+    private final ExecutorService writer;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param factory                  Store factory provided by the app.
+     * @param maxTransactionsPerCommit Maximum number of writes executed in a single store transaction.
+     * @param log                      Logger instance.
+     */
+    GroupCommitStoreFactory(@NonNull StoreFactory<ChatStore> factory, int maxTransactionsPerCommit, Logger log) {
+        this.factory = factory;
+        this.maxTransactionsPerCommit = maxTransactionsPerCommit;
+        this.log = log;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.isScheduled = new AtomicBoolean(false);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "comapi-chat-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected void build(StoreCallback<ChatStore> callback) {
+        pending.offer(new Member<>(callback));
+        schedule();
+    }
+
+    @Override
+    <R> Observable<R> write(@NonNull Func1<ChatStore, R> write) {
+        return Observable.<R>create(emitter -> {
+            pending.offer(new Member<>(write, emitter));
+            schedule();
+        }, Emitter.BackpressureMode.BUFFER).observeOn(Schedulers.io());
+    }
+
+    /**
+     * Stops the writer thread. Transactions already queued are still committed, transactions requested after shutdown are committed on the calling thread.
+     */
+    void shutdown() {
+        writer.shutdown();
+    }
+
+    /**
+     * Schedules commit of pending transactions if not already scheduled.
+     */
+    private void schedule() {
+        if (!pending.isEmpty() && isScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::commit);
+            } catch (RejectedExecutionException e) {
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Executes pending transactions until there is nothing left in the queue. Consecutive writes are grouped, other transactions are executed alone.
+     */
+    private void commit() {
+
+        List<Member<?>> group = new ArrayList<>();
+        Member<?> member;
+
+        while ((member = pending.poll()) != null) {
+            if (member.callback != null) {
+                commit(group);
+                group = new ArrayList<>();
+                execute(member.callback);
+            } else {
+                group.add(member);
+                if (group.size() >= maxTransactionsPerCommit || pending.isEmpty()) {
+                    commit(group);
+                    group = new ArrayList<>();
+                }
+            }
+        }
+        commit(group);
+
+        isScheduled.set(false);
+        schedule();
+    }
+
+    /**
+     * Executes writes in a single store transaction and emits their results. If the group fails the writes are replayed one by one, so a failing write doesn't affect the others.
+     *
+     * @param group Writes to execute.
+     */
+    private void commit(final List<Member<?>> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        if (execute(group)) {
+            for (Member<?> member : group) {
+                member.deliver();
+            }
+        } else if (group.size() > 1) {
+            if (log != null) {
+                log.w("Group of " + group.size() + " store transactions failed, replaying them one by one.");
+            }
+            for (Member<?> member : group) {
+                if (execute(Collections.singletonList(member))) {
+                    member.deliver();
+                } else {
+                    member.discard();
+                }
+            }
+        } else {
+            group.get(0).discard();
+        }
+    }
+
+    /**
+     * Executes writes in a single store transaction. The transaction is ended only if all writes succeeded.
+     *
+     * @param group Writes to execute.
+     * @return True if the transaction was ended.
+     */
+    private boolean execute(final List<Member<?>> group) {
+        final AtomicBoolean isCommitted = new AtomicBoolean(false);
+        try {
+            factory.build(store -> {
+                store.open();
+                try {
+                    store.beginTransaction();
+                    for (Member<?> member : group) {
+                        member.execute(store);
+                    }
+                    store.endTransaction();
+                    isCommitted.set(true);
+                } finally {
+                    store.close();
+                }
+            });
+        } catch (Exception e) {
+            if (log != null) {
+                log.f("Error executing external store transaction : " + e.getLocalizedMessage(), e);
+            }
+        }
+        return isCommitted.get();
+    }
+
+    /**
+     * Executes transaction setting its own boundaries.
+     *
+     * @param callback Transaction to execute.
+     */
+    private void execute(final StoreCallback<ChatStore> callback) {
+        try {
+            factory.build(callback);
+        } catch (Exception e) {
+            if (log != null) {
+                log.f("Error executing external store transaction : " + e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Transaction queued for the writer thread. Either an SDK write with the emitter for its result or a transaction setting its own boundaries.
+     *
+     * @param <R> Write result class.
+     */
+    private static class Member<R> {
+
+        private final Func1<ChatStore, R> write;
+
+        private final Emitter<R> emitter;
+
+        private final StoreCallback<ChatStore> callback;
+
+        private R result;
+
+        Member(Func1<ChatStore, R> write, Emitter<R> emitter) {
+            this.write = write;
+            this.emitter = emitter;
+            this.callback = null;
+        }
+
+        Member(StoreCallback<ChatStore> callback) {
+            this.write = null;
+            this.emitter = null;
+            this.callback = callback;
+        }
+
+        void execute(ChatStore store) {
+            result = write.call(store);
+        }
+
+        void deliver() {
+            emitter.onNext(result);
+            emitter.onCompleted();
+        }
+
+        void discard() {
+            emitter.onCompleted();
+        }
+    }
+}
@@ -39,16 +39,108 @@ public class InternalConfig {
 
     public static final int DEFAULT_CONVERSATION_SYNCED = 20;
 
+    public static final int DEFAULT_CONVERSATIONS_IN_FLIGHT = 4;
+
+    public static final int DEFAULT_EVENT_QUERIES_PER_TURN = 1;
+
+    public static final int DEFAULT_EVENT_PAGES_PREFETCHED = 1;
+
+    public static final int DEFAULT_TRANSACTIONS_PER_COMMIT = 1;
+
+    public static final int DEFAULT_CONVERSATIONS_CACHED = 0;
+
+    public static final int DEFAULT_DELIVERY_RECEIPTS_DELAY = 0;
+
+    public static final int DEFAULT_DELIVERY_RECEIPTS_BATCH = 100;
+
+    public static final int DEFAULT_EVENT_LANES = 4;
+
+    public static final int DEFAULT_EVENTS_BATCH_DELAY = 0;
+
+    public static final int DEFAULT_EVENTS_BATCH = 100;
+
+    public static final int DEFAULT_MISSING_EVENTS_GRACE_PERIOD = 1000;
+
+    public static final int DEFAULT_MISSING_EVENTS_IDLE_TIMEOUT = 15 * 60 * 1000;
+
+    public static final int DEFAULT_SYNCHRONISATION_INTERVAL = 60000;
+
+    public static final int DEFAULT_AUTO_SYNC_BURST = 10;
+
+    public static final int DEFAULT_AUTO_SYNC_REFILL_PERIOD = 60000;
+
+    public static final int DEFAULT_AUTO_SYNC_BACKOFF = 5000;
+
+    public static final int DEFAULT_AUTO_SYNC_MAX_BACKOFF = 900000;
+
+    public static final int DEFAULT_MIN_EVENTS_PER_QUERY = 10;
+
+    public static final int DEFAULT_EVENT_QUERY_TARGET_LATENCY = 0;
+
+    public static final int DEFAULT_MESSAGE_STATUSES_CACHED = 0;
+
     private int maxMessagesPerPage;
 
     private int maxEventsPerQuery;
 
     private int maxEventQueries;
 
+    private int minEventsPerQuery;
+
+    private int eventQueryTargetLatency;
+
     private int maxPartDataSize;
 
     private int maxConversationsSynced;
 
+    private int maxConversationsInFlight;
+
+    private int maxEventQueriesPerTurn;
+
+    private int maxEventPagesPrefetched;
+
+    private int maxTransactionsPerCommit;
+
+    private int maxConversationsCached;
+
+    private int maxMessageStatusesCached;
+
+    private int maxDeliveryReceiptsDelay;
+
+    private int maxDeliveryReceiptsBatch;
+
+    private int maxEventLanes;
+
+    private int maxEventsBatchDelay;
+
+    private int maxEventsBatch;
+
+    private int maxMissingEventsGracePeriod;
+
+    private int maxMissingEventsIdleTimeout;
+
+    private int minSynchronisationInterval;
+
+    private int maxAutoSyncBurst;
+
+    private int autoSyncRefillPeriod;
+
+    private int autoSyncBackoff;
+
+    private int autoSyncMaxBackoff;
+
+    private RetryPolicy messageStatusesRetryPolicy;
+
+    private RetryPolicy sendingRetryPolicy;
+
+    private RetryPolicy uploadsRetryPolicy;
+
+    private RetryPolicy eventQueriesRetryPolicy;
+
+    private RetryPolicy conversationQueriesRetryPolicy;
+
+    private ConversationPriority conversationPriority;
+
     /**
      * Recommended constructor.
      */
@@ -56,8 +148,34 @@ public class InternalConfig {
         maxMessagesPerPage = DEFAULT_MESSAGES_PER_PAGE;
         maxEventsPerQuery = DEFAULT_EVENTS_PER_QUERY;
         maxEventQueries = DEFAULT_EVENT_QUERIES;
+        minEventsPerQuery = DEFAULT_MIN_EVENTS_PER_QUERY;
+        eventQueryTargetLatency = DEFAULT_EVENT_QUERY_TARGET_LATENCY;
         maxPartDataSize = DEFAULT_PART_DATA_SIZE;
         maxConversationsSynced = DEFAULT_CONVERSATION_SYNCED;
+        maxConversationsInFlight = DEFAULT_CONVERSATIONS_IN_FLIGHT;
+        maxEventQueriesPerTurn = DEFAULT_EVENT_QUERIES_PER_TURN;
+        maxEventPagesPrefetched = DEFAULT_EVENT_PAGES_PREFETCHED;
+        maxTransactionsPerCommit = DEFAULT_TRANSACTIONS_PER_COMMIT;
+        maxConversationsCached = DEFAULT_CONVERSATIONS_CACHED;
+        maxDeliveryReceiptsDelay = DEFAULT_DELIVERY_RECEIPTS_DELAY;
+        maxDeliveryReceiptsBatch = DEFAULT_DELIVERY_RECEIPTS_BATCH;
+        maxEventLanes = DEFAULT_EVENT_LANES;
+        maxEventsBatchDelay = DEFAULT_EVENTS_BATCH_DELAY;
+        maxEventsBatch = DEFAULT_EVENTS_BATCH;
+        maxMissingEventsGracePeriod = DEFAULT_MISSING_EVENTS_GRACE_PERIOD;
+        maxMissingEventsIdleTimeout = DEFAULT_MISSING_EVENTS_IDLE_TIMEOUT;
+        minSynchronisationInterval = DEFAULT_SYNCHRONISATION_INTERVAL;
+        maxAutoSyncBurst = DEFAULT_AUTO_SYNC_BURST;
+        autoSyncRefillPeriod = DEFAULT_AUTO_SYNC_REFILL_PERIOD;
+        autoSyncBackoff = DEFAULT_AUTO_SYNC_BACKOFF;
+        autoSyncMaxBackoff = DEFAULT_AUTO_SYNC_MAX_BACKOFF;
+        messageStatusesRetryPolicy = new RetryPolicy(3, 500, 4000).retryServerErrors(true).retryAllErrors(true);
+        sendingRetryPolicy = RetryPolicy.none();
+        uploadsRetryPolicy = new RetryPolicy(2, 1000, 4000);
+        eventQueriesRetryPolicy = new RetryPolicy(3, 1000, 8000);
+        conversationQueriesRetryPolicy = new RetryPolicy(3, 1000, 8000);
+        conversationPriority = ConversationPriority.getInstance();
+        maxMessageStatusesCached = DEFAULT_MESSAGE_STATUSES_CACHED;
     }
 
     /**
@@ -84,8 +202,23 @@ public class InternalConfig {
         return this;
     }
 
+    /**
+     * When syncing the SDK will adjust number of events requested in a single events query to the measured query times, so that a single query takes about the target time.
+     * The page size stays between the minimum and the limit set in {@link InternalConfig#limitEventsPerQuery(int)}. By default the page size is fixed, see {@link InternalConfig#DEFAULT_EVENT_QUERY_TARGET_LATENCY}
+     *
+     * @param minEventsPerQuery Minimum number of events requested in a single events query.
+     * @param targetLatency     Time in milliseconds a single events query should take or 0 to query fixed size pages.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig adaptEventsPerQuery(int minEventsPerQuery, int targetLatency) {
+        this.minEventsPerQuery = minEventsPerQuery;
+        this.eventQueryTargetLatency = targetLatency;
+        return this;
+    }
+
     /**
      * When syncing the SDK will impose a limit on number of sequential events queries per conversation. Any missing events not obtained in this number of calls will be still missing.
+     * The limit applies to the number of events, this number of queries times {@link InternalConfig#limitEventsPerQuery(int)}, so more queries are made when the page size is reduced, see {@link InternalConfig#adaptEventsPerQuery(int, int)}.
      * The default is {@link InternalConfig#DEFAULT_EVENT_QUERIES}
      *
      * @param eventQueries Limit of event queries per conversation when synchronising.
@@ -120,6 +253,290 @@ public class InternalConfig {
         return this;
     }
 
+    /**
+     * When syncing the SDK will query missing events for at most this number of conversations at the same time. Conversations are served in a round robin fashion so a single long conversation will not block the others.
+     * The default is {@link InternalConfig#DEFAULT_CONVERSATIONS_IN_FLIGHT}
+     *
+     * @param conversationsInFlight Limit of conversations synchronised in parallel.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitConversationsInFlight(int conversationsInFlight) {
+        this.maxConversationsInFlight = conversationsInFlight;
+        return this;
+    }
+
+    /**
+     * When syncing the SDK will make at most this number of event queries for a conversation before it yields to the other conversations waiting to be synchronised. Conversation set with {@link RxChatServiceAccessor.MessagingService#setActiveConversation(String)} doesn't yield.
+     * The default is {@link InternalConfig#DEFAULT_EVENT_QUERIES_PER_TURN}
+     *
+     * @param eventQueriesPerTurn Limit of event queries in a single conversation turn.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitEventQueriesPerTurn(int eventQueriesPerTurn) {
+        this.maxEventQueriesPerTurn = eventQueriesPerTurn;
+        return this;
+    }
+
+    /**
+     * When syncing the SDK will query this number of next event pages while the current page is being saved in the store. Set to 0 to query next page only after the previous one has been saved.
+     * The default is {@link InternalConfig#DEFAULT_EVENT_PAGES_PREFETCHED}
+     *
+     * @param eventPagesPrefetched Limit of event pages queried ahead of the page being saved.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitEventPagesPrefetched(int eventPagesPrefetched) {
+        this.maxEventPagesPrefetched = eventPagesPrefetched;
+        return this;
+    }
+
+    /**
+     * When set to more than 1 the SDK will execute store transactions on a single writer thread and commit store transactions queued in the meantime together, calling {@link com.comapi.chat.model.ChatStore#beginTransaction()} and {@link com.comapi.chat.model.ChatStore#endTransaction()} once for the whole group.
+     * The default is {@link InternalConfig#DEFAULT_TRANSACTIONS_PER_COMMIT}
+     *
+     * @param transactionsPerCommit Limit of SDK store transactions committed together in a single ChatStore transaction.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitTransactionsPerCommit(int transactionsPerCommit) {
+        this.maxTransactionsPerCommit = transactionsPerCommit;
+        return this;
+    }
+
+    /**
+     * The SDK will keep in memory this number of recently used conversation states to avoid reading them from the store when processing new messages and events. Set only if the app doesn't modify conversations in the store by itself. The cache is disabled by default.
+     * The default is {@link InternalConfig#DEFAULT_CONVERSATIONS_CACHED}
+     *
+     * @param conversationsCached Limit of conversation states cached in memory.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitConversationsCached(int conversationsCached) {
+        this.maxConversationsCached = conversationsCached;
+        return this;
+    }
+
+    /**
+     * When set to more than 0 the SDK will collect ids of received messages for this number of milliseconds and mark them as delivered with a single request per conversation. Collected receipts are also sent when the app goes to background. By default every message is marked as delivered with a separate request.
+     * The default is {@link InternalConfig#DEFAULT_DELIVERY_RECEIPTS_DELAY}
+     *
+     * @param deliveryReceiptsDelay Time window in milliseconds to collect delivery receipts in.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitDeliveryReceiptsDelay(int deliveryReceiptsDelay) {
+        this.maxDeliveryReceiptsDelay = deliveryReceiptsDelay;
+        return this;
+    }
+
+    /**
+     * When delivery receipts are collected (see {@link InternalConfig#limitDeliveryReceiptsDelay(int)}) receipts for a conversation are sent as soon as this number of message ids has been collected.
+     * The default is {@link InternalConfig#DEFAULT_DELIVERY_RECEIPTS_BATCH}
+     *
+     * @param deliveryReceiptsBatch Limit of message ids in a single delivery receipts request.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitDeliveryReceiptsBatch(int deliveryReceiptsBatch) {
+        this.maxDeliveryReceiptsBatch = deliveryReceiptsBatch;
+        return this;
+    }
+
+    /**
+     * The SDK will process socket events on this number of serial lanes. Events in the same conversation are always processed on the same lane in order of arrival, different conversations are processed in parallel. Set to 0 to process every event independently.
+     * The default is {@link InternalConfig#DEFAULT_EVENT_LANES}
+     *
+     * @param eventLanes Limit of serial lanes processing socket events.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitEventLanes(int eventLanes) {
+        this.maxEventLanes = eventLanes;
+        return this;
+    }
+
+    /**
+     * When set to more than 0 the SDK will collect messages and message statuses received from socket for up to this number of milliseconds and save them in the store in a single transaction. By default every socket event is saved separately.
+     * The default is {@link InternalConfig#DEFAULT_EVENTS_BATCH_DELAY}
+     *
+     * @param eventsBatchDelay Time window in milliseconds to collect socket events in.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitEventsBatchDelay(int eventsBatchDelay) {
+        this.maxEventsBatchDelay = eventsBatchDelay;
+        return this;
+    }
+
+    /**
+     * When socket events are collected (see {@link InternalConfig#limitEventsBatchDelay(int)}) collected events are saved as soon as there is this number of them.
+     * The default is {@link InternalConfig#DEFAULT_EVENTS_BATCH}
+     *
+     * @param eventsBatch Limit of socket events saved in a single store transaction.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitEventsBatch(int eventsBatch) {
+        this.maxEventsBatch = eventsBatch;
+        return this;
+    }
+
+    /**
+     * Time in milliseconds the SDK waits for socket events arriving out of order before it queries the service for missing events. Set 0 to query immediately.
+     * The default is {@link InternalConfig#DEFAULT_MISSING_EVENTS_GRACE_PERIOD}
+     *
+     * @param gracePeriod Grace period in milliseconds.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitMissingEventsGracePeriod(int gracePeriod) {
+        this.maxMissingEventsGracePeriod = gracePeriod;
+        return this;
+    }
+
+    /**
+     * Time in milliseconds after which the SDK stops tracking socket events of a conversation with no missing events and no new events. Lower value frees memory sooner, but the next event in the conversation won't be checked for missing events before it.
+     * The default is {@link InternalConfig#DEFAULT_MISSING_EVENTS_IDLE_TIMEOUT}
+     *
+     * @param idleTimeout Idle timeout in milliseconds.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitMissingEventsIdleTimeout(int idleTimeout) {
+        this.maxMissingEventsIdleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * When the app is foregrounded the SDK synchronises the store only if the socket has been disconnected since the last successful synchronisation or the last synchronisation is older than this number of milliseconds. Otherwise only the conversation set with {@link RxChatServiceAccessor.MessagingService#setActiveConversation(String)} is checked for missing events.
+     * The default is {@link InternalConfig#DEFAULT_SYNCHRONISATION_INTERVAL}
+     *
+     * @param synchronisationInterval Minimum time in milliseconds between foreground synchronisations.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitSynchronisationInterval(int synchronisationInterval) {
+        this.minSynchronisationInterval = synchronisationInterval;
+        return this;
+    }
+
+    /**
+     * Maximum number of automatic synchronisations (after socket reconnection or app being foregrounded) allowed in a burst. Next automatic synchronisation is allowed every {@link InternalConfig#limitAutoSyncRefillPeriod(int)} milliseconds.
+     * The default is {@link InternalConfig#DEFAULT_AUTO_SYNC_BURST}
+     *
+     * @param autoSyncBurst Maximum number of automatic synchronisations in a burst.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitAutoSyncBurst(int autoSyncBurst) {
+        this.maxAutoSyncBurst = autoSyncBurst;
+        return this;
+    }
+
+    /**
+     * Time in milliseconds after which a single automatic synchronisation is allowed again after the burst limit was used.
+     * The default is {@link InternalConfig#DEFAULT_AUTO_SYNC_REFILL_PERIOD}
+     *
+     * @param refillPeriod Time in milliseconds.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitAutoSyncRefillPeriod(int refillPeriod) {
+        this.autoSyncRefillPeriod = refillPeriod;
+        return this;
+    }
+
+    /**
+     * Time in milliseconds for which automatic synchronisations are suppressed after a failed synchronisation. The time doubles with every next failure in a row, up to {@link InternalConfig#limitAutoSyncMaxBackoff(int)}.
+     * The default is {@link InternalConfig#DEFAULT_AUTO_SYNC_BACKOFF}
+     *
+     * @param backoff Time in milliseconds.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitAutoSyncBackoff(int backoff) {
+        this.autoSyncBackoff = backoff;
+        return this;
+    }
+
+    /**
+     * Maximum time in milliseconds for which automatic synchronisations are suppressed after failed synchronisations.
+     * The default is {@link InternalConfig#DEFAULT_AUTO_SYNC_MAX_BACKOFF}
+     *
+     * @param maxBackoff Time in milliseconds.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitAutoSyncMaxBackoff(int maxBackoff) {
+        this.autoSyncMaxBackoff = maxBackoff;
+        return this;
+    }
+
+    /**
+     * Sets retry policy for message status updates, including delivery receipts. The default policy retries 3 times, also on server errors.
+     *
+     * @param policy Retry policy.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig retryMessageStatuses(RetryPolicy policy) {
+        this.messageStatusesRetryPolicy = policy != null ? policy : RetryPolicy.none();
+        return this;
+    }
+
+    /**
+     * Sets retry policy for sending messages. Retried message could be delivered twice if the first call reached the server, so by default messages are not retried.
+     *
+     * @param policy Retry policy.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig retrySending(RetryPolicy policy) {
+        this.sendingRetryPolicy = policy != null ? policy : RetryPolicy.none();
+        return this;
+    }
+
+    /**
+     * Sets retry policy for attachment uploads. The default policy retries network errors 2 times.
+     *
+     * @param policy Retry policy.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig retryUploads(RetryPolicy policy) {
+        this.uploadsRetryPolicy = policy != null ? policy : RetryPolicy.none();
+        return this;
+    }
+
+    /**
+     * Sets retry policy for conversation events and messages queries. The default policy retries network errors 3 times.
+     *
+     * @param policy Retry policy.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig retryEventQueries(RetryPolicy policy) {
+        this.eventQueriesRetryPolicy = policy != null ? policy : RetryPolicy.none();
+        return this;
+    }
+
+    /**
+     * Sets retry policy for conversation and participants queries. The default policy retries network errors 3 times.
+     *
+     * @param policy Retry policy.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig retryConversationQueries(RetryPolicy policy) {
+        this.conversationQueriesRetryPolicy = policy != null ? policy : RetryPolicy.none();
+        return this;
+    }
+
+    /**
+     * Sets priority deciding which conversations are synchronised when there are more of them than {@link InternalConfig#limitConversationSynced(int)}.
+     * The default is {@link ConversationPriority#getInstance()}
+     *
+     * @param priority Conversation priority.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig prioritiseConversations(ConversationPriority priority) {
+        this.conversationPriority = priority != null ? priority : ConversationPriority.getInstance();
+        return this;
+    }
+
+    /**
+     * The SDK will keep in memory the highest 'delivered' and 'read' statuses of this number of recently updated messages and will not save again a status that doesn't advance the message state.
+     * Note that with the cache enabled a 'delivered' status received after 'read' status of the same message and participant is not saved, so the store won't get a 'delivered' row for such message. Keep it disabled if the app modifies message statuses in the store by itself or relies on every status being saved.
+     * The default is {@link InternalConfig#DEFAULT_MESSAGE_STATUSES_CACHED}, cache disabled.
+     *
+     * @param messageStatusesCached Limit of messages with statuses cached in memory.
+     * @return InternalConfig instance.
+     */
+    public InternalConfig limitMessageStatusesCached(int messageStatusesCached) {
+        this.maxMessageStatusesCached = messageStatusesCached;
+        return this;
+    }
+
     int getMaxMessagesPerPage() {
         return maxMessagesPerPage;
     }
@@ -132,6 +549,14 @@ public class InternalConfig {
         return maxEventQueries;
     }
 
+    int getMinEventsPerQuery() {
+        return minEventsPerQuery;
+    }
+
+    int getEventQueryTargetLatency() {
+        return eventQueryTargetLatency;
+    }
+
     int getMaxPartDataSize() {
         return maxPartDataSize;
     }
@@ -140,8 +565,104 @@ public class InternalConfig {
         return maxConversationsSynced;
     }
 
+    int getMaxConversationsInFlight() {
+        return maxConversationsInFlight;
+    }
+
+    int getMaxEventQueriesPerTurn() {
+        return maxEventQueriesPerTurn;
+    }
+
+    int getMaxEventPagesPrefetched() {
+        return maxEventPagesPrefetched;
+    }
+
+    int getMaxTransactionsPerCommit() {
+        return maxTransactionsPerCommit;
+    }
+
+    int getMaxConversationsCached() {
+        return maxConversationsCached;
+    }
+
+    int getMaxDeliveryReceiptsDelay() {
+        return maxDeliveryReceiptsDelay;
+    }
+
+    int getMaxDeliveryReceiptsBatch() {
+        return maxDeliveryReceiptsBatch;
+    }
+
+    int getMaxEventLanes() {
+        return maxEventLanes;
+    }
+
+    int getMaxEventsBatchDelay() {
+        return maxEventsBatchDelay;
+    }
+
+    int getMaxEventsBatch() {
+        return maxEventsBatch;
+    }
+
+    int getMaxMissingEventsGracePeriod() {
+        return maxMissingEventsGracePeriod;
+    }
+
+    int getMaxMissingEventsIdleTimeout() {
+        return maxMissingEventsIdleTimeout;
+    }
+
+    int getMinSynchronisationInterval() {
+        return minSynchronisationInterval;
+    }
+
+    int getMaxAutoSyncBurst() {
+        return maxAutoSyncBurst;
+    }
+
+    int getAutoSyncRefillPeriod() {
+        return autoSyncRefillPeriod;
+    }
+
+    int getAutoSyncBackoff() {
+        return autoSyncBackoff;
+    }
+
+    int getAutoSyncMaxBackoff() {
+        return autoSyncMaxBackoff;
+    }
+
+    RetryPolicy getMessageStatusesRetryPolicy() {
+        return messageStatusesRetryPolicy;
+    }
+
+    RetryPolicy getSendingRetryPolicy() {
+        return sendingRetryPolicy;
+    }
+
+    RetryPolicy getUploadsRetryPolicy() {
+        return uploadsRetryPolicy;
+    }
+
+    RetryPolicy getEventQueriesRetryPolicy() {
+        return eventQueriesRetryPolicy;
+    }
+
+    RetryPolicy getConversationQueriesRetryPolicy() {
+        return conversationQueriesRetryPolicy;
+    }
+
+    ConversationPriority getConversationPriority() {
+        return conversationPriority;
+    }
+
+    int getMaxMessageStatusesCached() {
+        return maxMessageStatusesCached;
+    }
+
     @Override
     public String toString() {
-        return "Max messages per conversation: " + maxMessagesPerPage + "; Max events per query: " + maxEventsPerQuery + "; Max event queries: " + maxEventQueries + "; Max data part size: " + maxPartDataSize;
+        return "Max messages per conversation: " + maxMessagesPerPage + "; Max events per query: " + maxEventsPerQuery + "; Max event queries: " + maxEventQueries + "; Min events per query: " + minEventsPerQuery + "; Event query target latency: " + eventQueryTargetLatency + "; Max data part size: " + maxPartDataSize + "; Max conversations in flight: " + maxConversationsInFlight + "; Max event queries per turn: " + maxEventQueriesPerTurn + "; Max event pages prefetched: " + maxEventPagesPrefetched + "; Max transactions per commit: " + maxTransactionsPerCommit + "; Max conversations cached: " + maxConversationsCached + "; Max delivery receipts delay: " + maxDeliveryReceiptsDelay + "; Max delivery receipts batch: " + maxDeliveryReceiptsBatch + "; Max event lanes: " + maxEventLanes + "; Max events batch delay: " + maxEventsBatchDelay + "; Max events batch: " + maxEventsBatch + "; Max missing events grace period: " + maxMissingEventsGracePeriod + "; Max missing events idle timeout: " + maxMissingEventsIdleTimeout + "; Min synchronisation interval: " + minSynchronisationInterval + "; Max auto sync burst: " + maxAutoSyncBurst + "; Auto sync refill period: " + autoSyncRefillPeriod + "; Auto sync backoff: " + autoSyncBackoff + "; Auto sync max backoff: " + autoSyncMaxBackoff + "; Max message statuses cached: " + maxMessageStatusesCached;
     }
 }
\ No newline at end of file
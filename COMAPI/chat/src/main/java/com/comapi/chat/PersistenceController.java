@@ -24,10 +24,14 @@ import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import com.comapi.chat.database.Database;
+import com.comapi.chat.database.model.DbSyncCheckpoint;
+import com.comapi.chat.internal.ConversationCache;
+import com.comapi.chat.internal.MessageStatusCache;
 import com.comapi.chat.model.ChatConversation;
 import com.comapi.chat.model.ChatConversationBase;
 import com.comapi.chat.model.ChatMessage;
 import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.ChatStatusWatermark;
 import com.comapi.chat.model.ChatStore;
 import com.comapi.chat.model.LocalMessageStatus;
 import com.comapi.chat.model.ModelAdapter;
@@ -40,10 +44,17 @@ import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
 import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import rx.Emitter;
 import rx.Observable;
+import rx.functions.Action0;
 
 import static com.comapi.chat.EventsHandler.MESSAGE_METADATA_TEMP_ID;
 
@@ -58,6 +69,8 @@ class PersistenceController {
     private final StoreFactory<ChatStore> storeFactory;
     private final ModelAdapter modelAdapter;
     private final Database db;
+    private final ConversationCache conversationCache;
+    private final MessageStatusCache statusCache;
 
     /**
      * Recommended constructor.
@@ -65,12 +78,16 @@ class PersistenceController {
      * @param db           Chat layer database.
      * @param adapter      Model adapter between Foundation and Chat Layer.
      * @param storeFactory Transaction factory for messaging persistence store implementation.
+     * @param internal     SDK internal configuration, sets the limits of conversation and message status caches.
+     * @param log          Logger instance.
      */
-    PersistenceController(Database db, ModelAdapter adapter, StoreFactory<ChatStore> storeFactory, Logger log) {
+    PersistenceController(Database db, ModelAdapter adapter, StoreFactory<ChatStore> storeFactory, InternalConfig internal, Logger log) {
         this.db = db;
         this.modelAdapter = adapter;
         storeFactory.injectLogger(log);
         this.storeFactory = storeFactory;
+        this.conversationCache = new ConversationCache(internal.getMaxConversationsCached());
+        this.statusCache = new MessageStatusCache(internal.getMaxMessageStatusesCached());
     }
 
     /**
@@ -103,7 +120,7 @@ class PersistenceController {
             @Override
             protected void execute(ChatStore store) {
                 store.open();
-                ChatConversationBase c = store.getConversation(conversationId);
+                ChatConversationBase c = getConversation(store, null, conversationId);
                 store.close();
                 emitter.onNext(c);
                 emitter.onCompleted();
@@ -124,46 +141,45 @@ class PersistenceController {
 
         return result.isSuccessful() && response != null ?
 
-                Observable.create(emitter -> storeFactory.execute(new StoreTransaction<ChatStore>() {
+                asObservable(new Executor<ComapiResult<MessagesQueryResponse>>() {
 
                     @Override
-                    protected void execute(ChatStore store) {
+                    ComapiResult<MessagesQueryResponse> execute(ChatStore store, List<Action0> onCommit) {
 
-                        List<ChatMessage> messages = modelAdapter.adaptMessages(response.getMessages());
+                        final boolean useWatermarks = store.supportsWatermarks();
+                        List<ChatMessage> messages = modelAdapter.adaptMessages(response.getMessages(), useWatermarks);
 
                         long updatedOn = 0;
 
-                        store.beginTransaction();
-
                         if (messages != null && !messages.isEmpty()) {
+                            invalidateStatuses(messages);
+                            store.upsertMessages(messages);
+                            if (useWatermarks) {
+                                List<ChatMessageStatus> statuses = new ArrayList<>();
+                                for (MessageReceived msg : response.getMessages()) {
+                                    if (msg.getSentEventId() != null && msg.getStatusUpdate() != null) {
+                                        statuses.addAll(modelAdapter.adaptStatuses(msg.getConversationId(), msg.getMessageId(), msg.getStatusUpdate()));
+                                    }
+                                }
+                                List<ChatMessageStatus> toSave = updateWatermarks(store, statuses, messages);
+                                if (!toSave.isEmpty()) {
+                                    store.updateStatuses(toSave);
+                                }
+                            }
                             for (ChatMessage msg : messages) {
-                                store.upsert(msg);
                                 if (msg.getSentOn() > updatedOn) {
                                     updatedOn = msg.getSentOn();
                                 }
                             }
                         }
 
-                        ChatConversationBase savedConversation = store.getConversation(conversationId);
-                        if (savedConversation != null) {
-                            ChatConversationBase updateConversation = ChatConversationBase.baseBuilder()
-                                    .setConversationId(savedConversation.getConversationId())
-                                    .setETag(savedConversation.getETag())
-                                    .setFirstLocalEventId(nullOrNegative(savedConversation.getFirstLocalEventId()) ? response.getEarliestEventId() : Math.min(savedConversation.getFirstLocalEventId(), response.getEarliestEventId()))
-                                    .setLastLocalEventId(nullOrNegative(savedConversation.getLastLocalEventId()) ? response.getLatestEventId() : Math.max(savedConversation.getLastLocalEventId(), response.getLatestEventId()))
-                                    .setLastRemoteEventId(nullOrNegative(savedConversation.getLastRemoteEventId()) ? response.getLatestEventId() : Math.max(savedConversation.getLastRemoteEventId(), response.getLatestEventId()))
-                                    .setUpdatedOn(Math.max(savedConversation.getUpdatedOn(), updatedOn))
-                                    .build();
-
-                            store.update(updateConversation);
-                        }
-
-                        store.endTransaction();
+                        final long earliestEventId = response.getEarliestEventId();
+                        final long latestEventId = response.getLatestEventId();
+                        mergeWatermarks(store, onCommit, conversationId, earliestEventId, latestEventId, latestEventId, updatedOn);
 
-                        emitter.onNext(result);
-                        emitter.onCompleted();
+                        return result;
                     }
-                }), Emitter.BackpressureMode.BUFFER) : Observable.fromCallable(() -> result);
+                }) : Observable.fromCallable(() -> result);
     }
 
     /**
@@ -199,46 +215,28 @@ class PersistenceController {
 
             return db.save(response.getOrphanedEvents())
                     .flatMap(count -> db.queryOrphanedEvents(ids))
-                    .flatMap(toDelete -> Observable.create(emitter ->
-                            storeFactory.execute(new StoreTransaction<ChatStore>() {
-
-                                @Override
-                                protected void execute(ChatStore store) {
-
-                                    if (!toDelete.isEmpty()) {
+                    .flatMap(toDelete -> toDelete.isEmpty() ? Observable.just(result) : asObservable(new Executor<ComapiResult<MessagesQueryResponse>>() {
 
-                                        storeFactory.execute(new StoreTransaction<ChatStore>() {
-                                            @Override
-                                            protected void execute(ChatStore store) {
+                        @Override
+                        ComapiResult<MessagesQueryResponse> execute(ChatStore store, List<Action0> onCommit) {
 
-                                                List<ChatMessageStatus> statuses = modelAdapter.adaptEvents(toDelete);
+                            List<ChatMessageStatus> statuses = modelAdapter.adaptEvents(toDelete);
 
-                                                store.beginTransaction();
-
-                                                if (!statuses.isEmpty()) {
-                                                    for (ChatMessageStatus status : statuses) {
-                                                        store.update(status);
-                                                    }
-                                                }
-
-                                                String[] ids = new String[toDelete.size()];
-                                                for (int i = 0; i < toDelete.size(); i++) {
-                                                    ids[i] = toDelete.get(i).id();
-                                                }
-                                                removeListener.remove(ids);
+                            List<ChatMessageStatus> toSave = statusCache.filter(statuses);
+                            List<ChatMessageStatus> rows = updateWatermarks(store, toSave, null);
+                            if (!toSave.isEmpty() && (rows.isEmpty() || store.updateStatuses(rows))) {
+                                onCommit.add(() -> statusCache.onSaved(toSave));
+                            }
 
-                                                store.endTransaction();
+                            String[] ids = new String[toDelete.size()];
+                            for (int i = 0; i < toDelete.size(); i++) {
+                                ids[i] = toDelete.get(i).id();
+                            }
+                            removeListener.remove(ids);
 
-                                                emitter.onNext(result);
-                                                emitter.onCompleted();
-                                            }
-                                        });
-                                    } else {
-                                        emitter.onNext(result);
-                                        emitter.onCompleted();
-                                    }
-                                }
-                            }), Emitter.BackpressureMode.BUFFER));
+                            return result;
+                        }
+                    }));
         } else {
             return Observable.fromCallable(() -> result);
         }
@@ -255,45 +253,180 @@ class PersistenceController {
 
         return asObservable(new Executor<Boolean>() {
             @Override
-            protected void execute(ChatStore store, Emitter<Boolean> emitter) {
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
 
                 boolean isSuccessful = true;
 
-                store.beginTransaction();
+                ChatConversationBase conversation = getConversation(store, onCommit, message.getConversationId());
 
-                ChatConversationBase conversation = store.getConversation(message.getConversationId());
+                prepareNewMessage(store, message, conversation != null ? conversation.getLastLocalEventId() : -1L);
+                statusCache.invalidate(message.getMessageId());
+                isSuccessful = store.upsert(message);
 
-                String tempId = (String) (message.getMetadata() != null ? message.getMetadata().get(MESSAGE_METADATA_TEMP_ID) : null);
-                if (!TextUtils.isEmpty(tempId)) {
-                    store.deleteMessage(message.getConversationId(), tempId);
+                if (!doUpdateConversationFromEvent(store, onCommit, message.getConversationId(), message.getSentEventId(), message.getSentOn()) && noConversationListener != null) {
+                    noConversationListener.getConversation(message.getConversationId());
                 }
 
-                if (message.getSentEventId() == null) {
-                    message.setSentEventId(-1L);
-                }
+                return isSuccessful;
+            }
+        });
+    }
 
-                if (message.getSentEventId() == -1L) {
-                    if (conversation != null && conversation.getLastLocalEventId() != -1L) {
-                        message.setSentEventId(conversation.getLastLocalEventId() + 1);
-                    }
-                    message.addStatusUpdate(ChatMessageStatus.builder().populate(message.getConversationId(), message.getMessageId(), message.getFromWhom().getId(), LocalMessageStatus.sent, System.currentTimeMillis(), null).build());
-                    isSuccessful = store.upsert(message);
-                } else {
-                    isSuccessful = store.upsert(message);
-                }
+    /**
+     * Save messages and message statuses received in a single conversation events page. All changes are made in a single store transaction and the conversation state is updated once.
+     *
+     * @param conversationId         Unique conversation id.
+     * @param messages               Messages received in the events page.
+     * @param statuses               Message statuses received in the events page.
+     * @param noConversationListener Listener for the case when there is no local conversation to save the messages in.
+     * @return Observable emitting result.
+     */
+    public Observable<Boolean> updateStoreFromEvents(final String conversationId, final List<ChatMessage> messages, final List<ChatMessageStatus> statuses, final ChatController.NoConversationListener noConversationListener) {
 
-                if (!doUpdateConversationFromEvent(store, message.getConversationId(), message.getSentEventId(), message.getSentOn()) && noConversationListener != null) {
-                    noConversationListener.getConversation(message.getConversationId());
-                }
+        return asObservable(new Executor<Boolean>() {
+            @Override
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
 
-                store.endTransaction();
+                boolean isSuccessful = doUpdateStoreFromEvents(store, onCommit, conversationId, messages, statuses, noConversationListener);
 
-                emitter.onNext(isSuccessful);
-                emitter.onCompleted();
+                return isSuccessful;
+            }
+        });
+    }
+
+    /**
+     * Save messages and message statuses received in multiple conversations. All changes are made in a single store transaction and the state of each conversation is updated once.
+     *
+     * @param messages               Received messages with conversation ids as keys.
+     * @param statuses               Received message statuses with conversation ids as keys.
+     * @param noConversationListener Listener for the case when there is no local conversation to save the messages in.
+     * @return Observable emitting result.
+     */
+    public Observable<Boolean> updateStoreFromEvents(final Map<String, List<ChatMessage>> messages, final Map<String, List<ChatMessageStatus>> statuses, final ChatController.NoConversationListener noConversationListener) {
+
+        return asObservable(new Executor<Boolean>() {
+            @Override
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
+
+                Set<String> conversationIds = new LinkedHashSet<>(messages.keySet());
+                conversationIds.addAll(statuses.keySet());
+
+                boolean isSuccessful = true;
+
+                for (String conversationId : conversationIds) {
+                    List<ChatMessage> conversationMessages = messages.get(conversationId);
+                    List<ChatMessageStatus> conversationStatuses = statuses.get(conversationId);
+                    isSuccessful = doUpdateStoreFromEvents(store, onCommit, conversationId,
+                            conversationMessages != null ? conversationMessages : new ArrayList<>(),
+                            conversationStatuses != null ? conversationStatuses : new ArrayList<>(),
+                            noConversationListener) && isSuccessful;
+                }
+
+                return isSuccessful;
             }
         });
     }
 
+    /**
+     * Save messages and message statuses received in a single conversation and update conversation state once. This should be called only inside transaction.
+     *
+     * @param store                  Chat Store instance.
+     * @param onCommit               Actions to run after the transaction is committed.
+     * @param conversationId         Unique conversation id.
+     * @param messages               Received messages.
+     * @param statuses               Received message statuses.
+     * @param noConversationListener Listener for the case when there is no local conversation to save the messages in.
+     * @return True if successful.
+     */
+    private boolean doUpdateStoreFromEvents(ChatStore store, List<Action0> onCommit, String conversationId, List<ChatMessage> messages, List<ChatMessageStatus> statuses, ChatController.NoConversationListener noConversationListener) {
+
+        boolean isSuccessful = true;
+
+        ChatConversationBase conversation = getConversation(store, onCommit, conversationId);
+
+        long lastLocalEventId = conversation != null ? conversation.getLastLocalEventId() : -1L;
+        Long firstEventId = null;
+        Long lastEventId = null;
+        Long updatedOn = null;
+
+        for (ChatMessage message : messages) {
+
+            prepareNewMessage(store, message, lastLocalEventId);
+
+            Long eventId = message.getSentEventId();
+            if (eventId != null && eventId != -1L) {
+                lastLocalEventId = Math.max(lastLocalEventId, eventId);
+                firstEventId = firstEventId == null ? eventId : Math.min(firstEventId, eventId);
+                lastEventId = lastEventId == null ? eventId : Math.max(lastEventId, eventId);
+            }
+            updatedOn = max(updatedOn, message.getSentOn());
+        }
+
+        if (!messages.isEmpty()) {
+            invalidateStatuses(messages);
+            isSuccessful = store.upsertMessages(messages);
+        }
+
+        List<ChatMessageStatus> toSave = statusCache.filter(statuses);
+        if (!toSave.isEmpty()) {
+            List<ChatMessageStatus> rows = updateWatermarks(store, toSave, messages);
+            boolean isSaved = rows.isEmpty() || store.updateStatuses(rows);
+            if (isSaved) {
+                onCommit.add(() -> statusCache.onSaved(toSave));
+            }
+            isSuccessful = isSaved && isSuccessful;
+        }
+
+        for (ChatMessageStatus status : statuses) {
+
+            Long eventId = status.getConversationEventId();
+            if (eventId != null) {
+                firstEventId = firstEventId == null ? eventId : Math.min(firstEventId, eventId);
+                lastEventId = lastEventId == null ? eventId : Math.max(lastEventId, eventId);
+            }
+            updatedOn = max(updatedOn, status.getUpdatedOn());
+        }
+
+        if (conversation != null) {
+            isSuccessful = doUpdateConversationFromEvents(store, onCommit, conversation, firstEventId, lastEventId, updatedOn) && isSuccessful;
+        } else {
+            if (!statuses.isEmpty()) {
+                isSuccessful = false;
+            }
+            if (!messages.isEmpty() && noConversationListener != null) {
+                noConversationListener.getConversation(conversationId);
+            }
+        }
+
+        return isSuccessful;
+    }
+
+    /**
+     * Prepares received message to be saved. Deletes temporary message with the id from message metadata. If the message has no sent event id, assigns the event id following the latest one known by the app and adds 'sent' status. This should be called only inside transaction.
+     *
+     * @param store            Chat Store instance.
+     * @param message          Received message.
+     * @param lastLocalEventId Latest conversation event id known by the app or -1 if unknown.
+     */
+    private void prepareNewMessage(ChatStore store, ChatMessage message, long lastLocalEventId) {
+
+        String tempId = (String) (message.getMetadata() != null ? message.getMetadata().get(MESSAGE_METADATA_TEMP_ID) : null);
+        if (!TextUtils.isEmpty(tempId)) {
+            store.deleteMessage(message.getConversationId(), tempId);
+        }
+
+        if (message.getSentEventId() == null) {
+            message.setSentEventId(-1L);
+        }
+
+        if (message.getSentEventId() == -1L) {
+            if (lastLocalEventId != -1L) {
+                message.setSentEventId(lastLocalEventId + 1);
+            }
+            message.addStatusUpdate(ChatMessageStatus.builder().populate(message.getConversationId(), message.getMessageId(), message.getFromWhom().getId(), LocalMessageStatus.sent, System.currentTimeMillis(), null).build());
+        }
+    }
+
     /**
      * Insert 'error' message status if sending message failed.
      *
@@ -306,12 +439,9 @@ class PersistenceController {
 
         return asObservable(new Executor<Boolean>() {
             @Override
-            protected void execute(ChatStore store, Emitter<Boolean> emitter) {
-                store.beginTransaction();
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
                 boolean isSuccess = store.update(ChatMessageStatus.builder().populate(conversationId, tempId, profileId, LocalMessageStatus.error, System.currentTimeMillis(), null).build());
-                store.endTransaction();
-                emitter.onNext(isSuccess);
-                emitter.onCompleted();
+                return isSuccess;
             }
         });
     }
@@ -320,37 +450,59 @@ class PersistenceController {
      * Update conversation state with received event details. This should be called only inside transaction.
      *
      * @param store          Chat Store instance.
+     * @param onCommit       Actions to run after the transaction is committed.
      * @param conversationId Unique conversation id.
      * @param eventId        Conversation event id.
      * @param updatedOn      New timestamp of state update.
      * @return True if successful.
      */
-    private boolean doUpdateConversationFromEvent(ChatStore store, String conversationId, Long eventId, Long updatedOn) {
+    private boolean doUpdateConversationFromEvent(ChatStore store, List<Action0> onCommit, String conversationId, Long eventId, Long updatedOn) {
 
-        ChatConversationBase conversation = store.getConversation(conversationId);
+        ChatConversationBase conversation = getConversation(store, onCommit, conversationId);
 
         if (conversation != null) {
+            return doUpdateConversationFromEvents(store, onCommit, conversation, eventId, eventId, updatedOn);
+        }
+        return false;
+    }
 
-            ChatConversationBase.Builder builder = ChatConversationBase.baseBuilder().populate(conversation);
+    /**
+     * Update conversation state with details of received events. Event ids are merged into the stored state, so they never move the state back. This should be called only inside transaction.
+     *
+     * @param store        Chat Store instance.
+     * @param onCommit     Actions to run after the transaction is committed.
+     * @param conversation Conversation state to update.
+     * @param firstEventId Lowest received conversation event id.
+     * @param lastEventId  Highest received conversation event id.
+     * @param updatedOn    New timestamp of state update.
+     * @return True if successful.
+     */
+    private boolean doUpdateConversationFromEvents(ChatStore store, List<Action0> onCommit, @NonNull ChatConversationBase conversation, Long firstEventId, Long lastEventId, Long updatedOn) {
 
-            if (eventId != null) {
-                if (conversation.getLastRemoteEventId() < eventId) {
-                    builder.setLastRemoteEventId(eventId);
-                }
-                if (conversation.getLastLocalEventId() < eventId) {
-                    builder.setLastLocalEventId(eventId);
-                }
-                if (conversation.getFirstLocalEventId() == -1) {
-                    builder.setFirstLocalEventId(eventId);
-                }
-                if (conversation.getUpdatedOn() < updatedOn) {
-                    builder.setUpdatedOn(updatedOn);
-                }
-            }
+        if (lastEventId == null) {
+            return true;
+        }
+
+        // Received events set the oldest known event only for an empty conversation, older events are loaded with message queries
+        Long firstLocalEventId = nullOrNegative(conversation.getFirstLocalEventId()) ? firstEventId : null;
+
+        return mergeWatermarks(store, onCommit, conversation.getConversationId(), firstLocalEventId, lastEventId, lastEventId, updatedOn);
+    }
 
-            return store.update(builder.build());
+    /**
+     * Null safe maximum of two timestamps.
+     *
+     * @param a First timestamp.
+     * @param b Second timestamp.
+     * @return Higher of the timestamps or null if both are null.
+     */
+    private static Long max(Long a, Long b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
         }
-        return false;
+        return Math.max(a, b);
     }
 
     /**
@@ -363,15 +515,18 @@ class PersistenceController {
 
         return asObservable(new Executor<Boolean>() {
             @Override
-            void execute(ChatStore store, Emitter<Boolean> emitter) {
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
 
-                store.beginTransaction();
-
-                boolean isSuccessful = store.update(status) && doUpdateConversationFromEvent(store, status.getConversationId(), status.getConversationEventId(), status.getUpdatedOn());
-                store.endTransaction();
-
-                emitter.onNext(isSuccessful);
-                emitter.onCompleted();
+                boolean isSaved = true;
+                if (statusCache.filter(status)) {
+                    List<ChatMessageStatus> rows = updateWatermarks(store, Collections.singletonList(status), null);
+                    isSaved = rows.isEmpty() || store.update(status);
+                }
+                if (isSaved) {
+                    onCommit.add(() -> statusCache.onSaved(status));
+                }
+                boolean isSuccessful = isSaved && doUpdateConversationFromEvent(store, onCommit, status.getConversationId(), status.getConversationEventId(), status.getUpdatedOn());
+                return isSuccessful;
             }
         });
     }
@@ -388,11 +543,9 @@ class PersistenceController {
 
         return asObservable(new Executor<Boolean>() {
             @Override
-            void execute(ChatStore store, Emitter<Boolean> emitter) {
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
 
-                store.beginTransaction();
-
-                boolean isSuccess = false;
+                List<ChatMessageStatus> statuses = new ArrayList<>();
                 for (MessageStatusUpdate statusUpdate : msgStatusList) {
                     for (String messageId : statusUpdate.getMessageIds()) {
                         LocalMessageStatus status = null;
@@ -403,15 +556,54 @@ class PersistenceController {
                         }
 
                         if (status != null) {
-                            isSuccess = store.update(ChatMessageStatus.builder().populate(conversationId, messageId, profileId, status, DateHelper.getUTCMilliseconds(statusUpdate.getTimestamp()), null).build());
+                            statuses.add(ChatMessageStatus.builder().populate(conversationId, messageId, profileId, status, DateHelper.getUTCMilliseconds(statusUpdate.getTimestamp()), null).build());
                         }
                     }
                 }
 
-                store.endTransaction();
+                List<ChatMessageStatus> toSave = statusCache.filter(statuses);
+                List<ChatMessageStatus> rows = updateWatermarks(store, toSave, null);
+                boolean isSuccess = !statuses.isEmpty() && (rows.isEmpty() || store.updateStatuses(rows));
+                if (isSuccess) {
+                    onCommit.add(() -> statusCache.onSaved(toSave));
+                }
 
-                emitter.onNext(isSuccess);
-                emitter.onCompleted();
+                return isSuccess;
+            }
+        });
+    }
+
+    /**
+     * Mark messages in a conversation as read by the participant. If the store keeps status watermarks the participant's read watermark moves over contiguous read messages, otherwise every message gets a new status.
+     * Participant's own messages are skipped.
+     *
+     * @param conversationId Unique conversation id.
+     * @param profileId      Profile id from current session details.
+     * @param messages       Messages read by the participant.
+     * @param updatedOn      Time when the messages were read.
+     * @return Observable emitting result.
+     */
+    public Observable<Boolean> upsertReadWatermark(String conversationId, String profileId, List<ChatMessage> messages, long updatedOn) {
+
+        return asObservable(new Executor<Boolean>() {
+            @Override
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
+
+                List<ChatMessageStatus> statuses = new ArrayList<>();
+                for (ChatMessage message : messages) {
+                    if (message.getFromWhom() == null || profileId == null || !profileId.equals(message.getFromWhom().getId())) {
+                        statuses.add(ChatMessageStatus.builder().populate(conversationId, message.getMessageId(), profileId, LocalMessageStatus.read, updatedOn, null).build());
+                    }
+                }
+
+                List<ChatMessageStatus> toSave = statusCache.filter(statuses);
+                List<ChatMessageStatus> rows = updateWatermarks(store, toSave, messages);
+                boolean isSuccess = rows.isEmpty() || store.updateStatuses(rows);
+                if (isSuccess) {
+                    onCommit.add(() -> statusCache.onSaved(toSave));
+                }
+
+                return isSuccess;
             }
         });
     }
@@ -439,16 +631,16 @@ class PersistenceController {
 
         return asObservable(new Executor<Boolean>() {
             @Override
-            void execute(ChatStore store, Emitter<Boolean> emitter) {
-
-                store.beginTransaction();
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
 
                 boolean isSuccess = true;
 
+                Map<String, ChatConversationBase> savedConversations = getConversations(store, onCommit, conversationIds(conversationsToAdd));
+
                 for (ChatConversation conversation : conversationsToAdd) {
                     ChatConversation.Builder toSave = ChatConversation.builder().populate(conversation);
 
-                    ChatConversationBase saved = store.getConversation(conversation.getConversationId());
+                    ChatConversationBase saved = savedConversations.get(conversation.getConversationId());
                     if (saved == null) {
                         toSave.setFirstLocalEventId(-1L);
                         toSave.setLastLocalEventId(-1L);
@@ -477,13 +669,10 @@ class PersistenceController {
                         }
                     }
 
-                    isSuccess = isSuccess && store.upsert(toSave.build());
+                    isSuccess = isSuccess && upsert(store, onCommit, toSave.build());
                 }
 
-                store.endTransaction();
-
-                emitter.onNext(isSuccess);
-                emitter.onCompleted();
+                return isSuccess;
             }
         });
     }
@@ -498,16 +687,16 @@ class PersistenceController {
 
         return asObservable(new Executor<Boolean>() {
             @Override
-            void execute(ChatStore store, Emitter<Boolean> emitter) {
-
-                store.beginTransaction();
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
 
                 boolean isSuccess = true;
 
+                Map<String, ChatConversationBase> savedConversations = getConversations(store, onCommit, conversationIds(conversationsToUpdate));
+
                 for (ChatConversationBase conversation : conversationsToUpdate) {
                     ChatConversationBase.Builder toSave = ChatConversationBase.baseBuilder();
 
-                    ChatConversationBase saved = store.getConversation(conversation.getConversationId());
+                    ChatConversationBase saved = savedConversations.get(conversation.getConversationId());
                     if (saved != null) {
                         toSave.setConversationId(saved.getConversationId());
                         toSave.setFirstLocalEventId(saved.getFirstLocalEventId());
@@ -524,13 +713,10 @@ class PersistenceController {
                         }
                         toSave.setETag(conversation.getETag());
                     }
-                    isSuccess = isSuccess && store.update(toSave.build());
+                    isSuccess = isSuccess && update(store, onCommit, toSave.build());
                 }
 
-                store.endTransaction();
-
-                emitter.onNext(isSuccess);
-                emitter.onCompleted();
+                return isSuccess;
             }
         });
 
@@ -546,12 +732,11 @@ class PersistenceController {
 
         return asObservable(new Executor<Boolean>() {
             @Override
-            void execute(ChatStore store, Emitter<Boolean> emitter) {
-                store.beginTransaction();
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
+                conversationCache.remove(conversationId);
                 boolean isSuccess = store.deleteConversation(conversationId);
-                store.endTransaction();
-                emitter.onNext(isSuccess);
-                emitter.onCompleted();
+                onCommit.add(() -> conversationCache.remove(conversationId));
+                return isSuccess;
             }
         });
     }
@@ -566,6 +751,55 @@ class PersistenceController {
         return db.deleteOrphanedEvents(ids);
     }
 
+    /**
+     * Load store synchronisation progress saved in internal database.
+     *
+     * @param notOlderThan Time in milliseconds before which the saved progress is outdated and should be skipped.
+     * @return Observable emitting saved synchronisation checkpoints.
+     */
+    public Observable<List<DbSyncCheckpoint>> loadSyncCheckpoints(long notOlderThan) {
+        return db.querySyncCheckpoints(notOlderThan);
+    }
+
+    /**
+     * Delete outdated store synchronisation progress from internal database.
+     *
+     * @param notOlderThan Time in milliseconds before which the saved progress is outdated.
+     * @return Observable emitting number of deleted checkpoints.
+     */
+    public Observable<Integer> purgeSyncCheckpoints(long notOlderThan) {
+        return db.purgeSyncCheckpoints(notOlderThan);
+    }
+
+    /**
+     * Replace store synchronisation progress saved in internal database.
+     *
+     * @param checkpoints Synchronisation checkpoints to save.
+     * @return Observable emitting number of saved checkpoints.
+     */
+    public Observable<Integer> saveSyncCheckpoints(List<DbSyncCheckpoint> checkpoints) {
+        return db.saveSyncCheckpoints(checkpoints);
+    }
+
+    /**
+     * Update store synchronisation progress of a single conversation in internal database.
+     *
+     * @param checkpoint Synchronisation checkpoint to save.
+     * @return Observable emitting true if successful.
+     */
+    public Observable<Boolean> updateSyncCheckpoint(DbSyncCheckpoint checkpoint) {
+        return db.updateSyncCheckpoint(checkpoint);
+    }
+
+    /**
+     * Delete all store synchronisation progress from internal database.
+     *
+     * @return Observable emitting number of deleted checkpoints.
+     */
+    public Observable<Integer> clearSyncCheckpoints() {
+        return db.clearSyncCheckpoints();
+    }
+
     /**
      * Delete conversations from the store.
      *
@@ -575,37 +809,291 @@ class PersistenceController {
     public Observable<Boolean> deleteConversations(List<ChatConversationBase> conversationsToDelete) {
         return asObservable(new Executor<Boolean>() {
             @Override
-            void execute(ChatStore store, Emitter<Boolean> emitter) {
-                store.beginTransaction();
-                boolean isSuccess = true;
-                for (int i = 0; i < conversationsToDelete.size(); i++) {
-                    isSuccess = isSuccess && store.deleteConversation(conversationsToDelete.get(i).getConversationId());
+            Boolean execute(ChatStore store, List<Action0> onCommit) {
+                List<String> ids = conversationIds(conversationsToDelete);
+                for (String id : ids) {
+                    conversationCache.remove(id);
                 }
-                store.endTransaction();
-                emitter.onNext(isSuccess);
-                emitter.onCompleted();
+                boolean isSuccess = store.deleteConversations(ids);
+                onCommit.add(() -> {
+                    for (String id : ids) {
+                        conversationCache.remove(id);
+                    }
+                });
+                return isSuccess;
             }
         });
     }
 
     /**
-     * Executes transaction callback ass an observable.
+     * Gets conversation from the cache or from the store if not cached. This should be called only inside transaction.
+     * Conversation read from the store is cached only if no other state was cached in the meantime, inside a write transaction only after the transaction is committed.
      *
-     * @param transaction Store transaction.
-     * @param <T>         Store class.
-     * @return Observable executing given store transaction.
+     * @param store          Chat Store instance.
+     * @param onCommit       Actions to run after the write transaction is committed or null if not in a write transaction.
+     * @param conversationId Unique conversation id.
+     * @return Conversation state or null if not found.
      */
-    private <T> Observable<T> asObservable(Executor<T> transaction) {
-        return Observable.create(emitter -> storeFactory.execute(new StoreTransaction<ChatStore>() {
-            @Override
-            protected void execute(ChatStore store) {
-                try {
-                    transaction.execute(store, emitter);
-                } finally {
-                    emitter.onCompleted();
+    private ChatConversationBase getConversation(ChatStore store, List<Action0> onCommit, String conversationId) {
+        ChatConversationBase conversation = conversationCache.get(conversationId);
+        if (conversation == null) {
+            conversation = store.getConversation(conversationId);
+            cacheIfAbsent(onCommit, conversation);
+        }
+        return conversation;
+    }
+
+    /**
+     * Gets conversations from the cache or from the store if not cached. This should be called only inside transaction.
+     *
+     * @param store           Chat Store instance.
+     * @param onCommit        Actions to run after the write transaction is committed.
+     * @param conversationIds Unique conversation ids.
+     * @return Map of conversations with conversation ids as keys.
+     */
+    private Map<String, ChatConversationBase> getConversations(ChatStore store, List<Action0> onCommit, List<String> conversationIds) {
+        Map<String, ChatConversationBase> conversations = conversationCache.get(conversationIds);
+        if (conversations.size() < conversationIds.size()) {
+            List<String> missing = new ArrayList<>();
+            for (String id : conversationIds) {
+                if (!conversations.containsKey(id)) {
+                    missing.add(id);
                 }
             }
-        }), Emitter.BackpressureMode.BUFFER);
+            for (ChatConversationBase conversation : store.getConversations(missing).values()) {
+                cacheIfAbsent(onCommit, conversation);
+                conversations.put(conversation.getConversationId(), conversation);
+            }
+        }
+        return conversations;
+    }
+
+    /**
+     * Caches conversation read from the store unless a newer state was cached in the meantime.
+     *
+     * @param onCommit     Actions to run after the write transaction is committed or null if not in a write transaction.
+     * @param conversation Conversation read from the store.
+     */
+    private void cacheIfAbsent(List<Action0> onCommit, ChatConversationBase conversation) {
+        if (onCommit == null) {
+            conversationCache.putIfAbsent(conversation);
+        } else {
+            // The transaction may read its own changes, cache them only if committed
+            onCommit.add(() -> conversationCache.putIfAbsent(conversation));
+        }
+    }
+
+    /**
+     * Updates conversation in the store and, once the transaction is committed, in the cache. This should be called only inside transaction.
+     *
+     * @param store        Chat Store instance.
+     * @param onCommit     Actions to run after the transaction is committed.
+     * @param conversation Conversation to update.
+     * @return True if successful.
+     */
+    private boolean update(ChatStore store, List<Action0> onCommit, ChatConversationBase conversation) {
+        boolean isSuccess = store.update(conversation);
+        if (isSuccess) {
+            onCommit.add(() -> conversationCache.put(conversation));
+        } else {
+            conversationCache.remove(conversation.getConversationId());
+        }
+        return isSuccess;
+    }
+
+    /**
+     * Moves status watermarks of participants over 'delivered' and 'read' statuses if the store keeps watermarks. This should be called only inside transaction.
+     * A watermark moves to a message only if no message of other participants sent in between is missing the status, statuses of the participant's own messages, of messages out of order and of messages with unknown sent event id are returned to be saved per message.
+     *
+     * @param store    Chat Store instance.
+     * @param statuses Message statuses to save.
+     * @param messages Messages the statuses may refer to, to avoid reading them from the store, or null.
+     * @return Statuses not covered by watermarks.
+     */
+    private List<ChatMessageStatus> updateWatermarks(ChatStore store, List<ChatMessageStatus> statuses, List<ChatMessage> messages) {
+
+        if (statuses.isEmpty() || !store.supportsWatermarks()) {
+            return statuses;
+        }
+
+        Map<String, ChatMessage> messagesById = new HashMap<>();
+        if (messages != null) {
+            for (ChatMessage message : messages) {
+                messagesById.put(message.getMessageId(), message);
+            }
+        }
+
+        List<ChatMessageStatus> rows = new ArrayList<>();
+        List<ChatMessageStatus> candidates = new ArrayList<>();
+        final Map<ChatMessageStatus, Long> sentEventIds = new HashMap<>();
+
+        for (ChatMessageStatus status : statuses) {
+            ChatMessage message = null;
+            if (status.getProfileId() != null && (status.getMessageStatus() == LocalMessageStatus.delivered || status.getMessageStatus() == LocalMessageStatus.read)) {
+                message = messagesById.get(status.getMessageId());
+                if (message == null && !messagesById.containsKey(status.getMessageId())) {
+                    message = store.getMessage(status.getConversationId(), status.getMessageId());
+                    messagesById.put(status.getMessageId(), message);
+                }
+            }
+            if (message == null || message.getSentEventId() == null || message.getSentEventId() < 0
+                    || (message.getFromWhom() != null && status.getProfileId().equals(message.getFromWhom().getId()))) {
+                rows.add(status);
+            } else {
+                candidates.add(status);
+                sentEventIds.put(status, message.getSentEventId());
+            }
+        }
+
+        Collections.sort(candidates, (a, b) -> {
+            long x = sentEventIds.get(a);
+            long y = sentEventIds.get(b);
+            return x < y ? -1 : (x == y ? 0 : 1);
+        });
+
+        Map<String, ChatStatusWatermark> watermarks = new LinkedHashMap<>();
+        Map<String, List<ChatStatusWatermark>> stored = new HashMap<>();
+        Map<String, List<ChatMessageStatus>> covered = new HashMap<>();
+
+        for (ChatMessageStatus status : candidates) {
+
+            String conversationId = status.getConversationId();
+            String key = conversationId + ":" + status.getProfileId();
+
+            ChatStatusWatermark watermark = watermarks.get(key);
+            if (watermark == null) {
+                List<ChatStatusWatermark> list = stored.get(conversationId);
+                if (list == null) {
+                    list = store.getWatermarks(conversationId);
+                    stored.put(conversationId, list);
+                }
+                for (ChatStatusWatermark w : list) {
+                    if (status.getProfileId().equals(w.getProfileId())) {
+                        watermark = w;
+                    }
+                }
+                if (watermark == null) {
+                    watermark = ChatStatusWatermark.builder().populate(conversationId, status.getProfileId(), -1L, -1L, 0L).build();
+                }
+            }
+
+            long sentEventId = sentEventIds.get(status);
+            long upTo = status.getMessageStatus() == LocalMessageStatus.read ? watermark.getReadUpTo() : watermark.getDeliveredUpTo();
+            if (sentEventId > upTo) {
+                if (store.hasMessagesBetween(conversationId, upTo, sentEventId, status.getProfileId())) {
+                    rows.add(status);
+                    continue;
+                }
+                watermark = ChatStatusWatermark.builder()
+                        .populate(conversationId, status.getProfileId(), watermark.getDeliveredUpTo(), watermark.getReadUpTo(), watermark.getUpdatedOn())
+                        .add(sentEventId, status.getMessageStatus(), status.getUpdatedOn() != null ? status.getUpdatedOn() : 0L)
+                        .build();
+                watermarks.put(key, watermark);
+            }
+
+            List<ChatMessageStatus> list = covered.get(key);
+            if (list == null) {
+                list = new ArrayList<>();
+                covered.put(key, list);
+            }
+            list.add(status);
+        }
+
+        for (Map.Entry<String, ChatStatusWatermark> entry : watermarks.entrySet()) {
+            if (!store.update(entry.getValue())) {
+                rows.addAll(covered.remove(entry.getKey()));
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Merges event ids and update time into conversation state in the store and, once the transaction is committed, in the cache. This should be called only inside transaction.
+     *
+     * @param store             Chat Store instance.
+     * @param onCommit          Actions to run after the transaction is committed.
+     * @param conversationId    Unique conversation id.
+     * @param firstLocalEventId Oldest conversation event id known by the app or null if unchanged.
+     * @param lastLocalEventId  Latest conversation event id known by the app or null if unchanged.
+     * @param lastRemoteEventId Latest conversation event id or null if unchanged.
+     * @param updatedOn         Date on which the conversation was updated or null if unchanged.
+     * @return True if the conversation was found and updated.
+     */
+    private boolean mergeWatermarks(ChatStore store, List<Action0> onCommit, String conversationId, Long firstLocalEventId, Long lastLocalEventId, Long lastRemoteEventId, Long updatedOn) {
+        boolean isSuccess = store.mergeWatermarks(conversationId, firstLocalEventId, lastLocalEventId, lastRemoteEventId, updatedOn);
+        if (isSuccess) {
+            // Same merge as in the store, so the cache doesn't need to read the conversation back
+            onCommit.add(() -> conversationCache.merge(conversationId, cached -> ChatConversationBase.baseBuilder().populate(cached).mergeWatermarks(firstLocalEventId, lastLocalEventId, lastRemoteEventId, updatedOn).build()));
+        } else {
+            conversationCache.remove(conversationId);
+        }
+        return isSuccess;
+    }
+
+    /**
+     * Inserts or updates conversation in the store and, once the transaction is committed, in the cache. This should be called only inside transaction.
+     *
+     * @param store        Chat Store instance.
+     * @param onCommit     Actions to run after the transaction is committed.
+     * @param conversation Conversation to insert or update.
+     * @return True if successful.
+     */
+    private boolean upsert(ChatStore store, List<Action0> onCommit, ChatConversation conversation) {
+        boolean isSuccess = store.upsert(conversation);
+        if (isSuccess) {
+            onCommit.add(() -> conversationCache.put(conversation));
+        } else {
+            conversationCache.remove(conversation.getConversationId());
+        }
+        return isSuccess;
+    }
+
+    /**
+     * Gets unique ids of conversations.
+     *
+     * @param conversations List of conversations.
+     * @return List of conversation ids.
+     */
+    private List<String> conversationIds(List<? extends ChatConversationBase> conversations) {
+        List<String> ids = new ArrayList<>(conversations.size());
+        for (ChatConversationBase conversation : conversations) {
+            ids.add(conversation.getConversationId());
+        }
+        return ids;
+    }
+
+    /**
+     * Removes cached statuses of messages about to be replaced in the store.
+     *
+     * @param messages Messages to be saved.
+     */
+    private void invalidateStatuses(List<ChatMessage> messages) {
+        for (ChatMessage message : messages) {
+            statusCache.invalidate(message.getMessageId());
+        }
+    }
+
+    /**
+     * Executes store write as an observable. The write is executed in a single store transaction, actions added by the write to run on commit are called and the result is emitted after the transaction ends.
+     *
+     * @param transaction Store write.
+     * @param <T>         Result class.
+     * @return Observable executing given store write.
+     */
+    private <T> Observable<T> asObservable(Executor<T> transaction) {
+        return Observable.defer(() -> {
+            final List<Action0> onCommit = new ArrayList<>();
+            return storeFactory.write(store -> {
+                // Write can be executed again if the group commit failed, see GroupCommitStoreFactory
+                onCommit.clear();
+                return transaction.execute(store, onCommit);
+            }).doOnNext(result -> {
+                for (Action0 action : onCommit) {
+                    action.call();
+                }
+            });
+        });
     }
 
     /**
@@ -615,11 +1103,12 @@ class PersistenceController {
      */
     abstract class Executor<T> {
         /**
-         * Execute transaction.
+         * Execute transaction. Transaction boundaries are set by the store factory.
          *
-         * @param store   Store implementation.
-         * @param emitter Abstraction over a RxJava Subscriber.
+         * @param store    Store implementation.
+         * @param onCommit Actions to run after the transaction is committed, e.g. updating caches.
+         * @return Result to emit.
          */
-        abstract void execute(ChatStore store, Emitter<T> emitter);
+        abstract T execute(ChatStore store, List<Action0> onCommit);
     }
 }
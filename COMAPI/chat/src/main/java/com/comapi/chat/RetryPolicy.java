@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.internal.network.ComapiResult;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+
+/**
+ * Retry policy for service calls. Failed calls are retried with exponentially growing, randomised delay up to the maximum number of retries.
+ * Network (IO) errors are always retried. Server errors (5xx, 408 and 429 responses) are retried only if enabled, client errors (4xx) are never retried.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class RetryPolicy {
+
+    private final int maxRetries;
+
+    private final long initialDelay;
+
+    private final long maxDelay;
+
+    private boolean retryServerErrors;
+
+    private boolean retryAllErrors;
+
+    private final Random random;
+
+    /**
+     * Creates policy with no retries.
+     *
+     * @return Policy with no retries.
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy(0, 0, 0);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param maxRetries   Maximum number of retries after the first call failed.
+     * @param initialDelay Delay in milliseconds before the first retry. Doubled with every next retry.
+     * @param maxDelay     Maximum delay in milliseconds between retries.
+     */
+    public RetryPolicy(int maxRetries, long initialDelay, long maxDelay) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialDelay = Math.max(0, initialDelay);
+        this.maxDelay = Math.max(this.initialDelay, maxDelay);
+        this.random = new Random();
+    }
+
+    /**
+     * Retry calls that returned server error response (5xx, 408 or 429). Enable only for calls that can be safely repeated. The default is false.
+     *
+     * @param retryServerErrors True if server errors should be retried.
+     * @return Retry policy instance.
+     */
+    public RetryPolicy retryServerErrors(boolean retryServerErrors) {
+        this.retryServerErrors = retryServerErrors;
+        return this;
+    }
+
+    /**
+     * Retry calls that failed with any checked exception, not only network errors. Runtime exceptions are never retried. The default is false.
+     *
+     * @param retryAllErrors True if all checked exceptions should be retried.
+     * @return Retry policy instance.
+     */
+    public RetryPolicy retryAllErrors(boolean retryAllErrors) {
+        this.retryAllErrors = retryAllErrors;
+        return this;
+    }
+
+    /**
+     * @return Maximum number of retries after the first call failed.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Checks if the error should be retried.
+     *
+     * @param t Error thrown by the call.
+     * @return True if the call should be retried.
+     */
+    public boolean isRetryable(Throwable t) {
+        return t instanceof IOException || t instanceof ServerErrorException || (retryAllErrors && !(t instanceof RuntimeException));
+    }
+
+    /**
+     * Checks if the service response should be retried.
+     *
+     * @param result Service response.
+     * @return True if the response is a server error and server errors should be retried.
+     */
+    public boolean isRetryable(ComapiResult<?> result) {
+        if (!retryServerErrors || result == null || result.isSuccessful()) {
+            return false;
+        }
+        final int code = result.getCode();
+        return code >= 500 || code == 408 || code == 429;
+    }
+
+    /**
+     * Calculates delay before a retry.
+     *
+     * @param retry Number of the retry starting from 1.
+     * @return Delay in milliseconds. Half of the delay is randomised so clients failing at the same time do not retry at the same time.
+     */
+    long getDelay(int retry) {
+        final long delay = Math.min(maxDelay, initialDelay << Math.min(retry - 1, 30));
+        return delay / 2 + (delay > 1 ? (long) (random.nextDouble() * (delay - delay / 2)) : 0);
+    }
+
+    /**
+     * Applies the policy to the call throwing errors.
+     *
+     * @param call Service call.
+     * @param <T>  Type of call result.
+     * @return Call retried according to the policy. The last error is emitted when the retries run out.
+     */
+    public <T> Observable<T> apply(Observable<T> call) {
+        if (maxRetries == 0) {
+            return call;
+        }
+        return call.retryWhen(errors -> errors
+                .zipWith(Observable.range(1, maxRetries + 1), Retry::new)
+                .flatMap(retry -> {
+                    if (retry.count > maxRetries || !isRetryable(retry.error)) {
+                        return Observable.error(retry.error);
+                    }
+                    return Observable.timer(getDelay(retry.count), TimeUnit.MILLISECONDS);
+                }));
+    }
+
+    /**
+     * Applies the policy to the service call returning response with a status code.
+     *
+     * @param call Service call.
+     * @param <T>  Type of response result.
+     * @return Call retried according to the policy. The last response is emitted when the retries run out.
+     */
+    public <T> Observable<ComapiResult<T>> applyToResult(Observable<ComapiResult<T>> call) {
+        if (maxRetries == 0) {
+            return call;
+        }
+        return apply(call.flatMap(result -> isRetryable(result) ? Observable.<ComapiResult<T>>error(new ServerErrorException(result)) : Observable.just(result)))
+                .onErrorResumeNext(t -> {
+                    if (t instanceof ServerErrorException) {
+                        @SuppressWarnings("unchecked")
+                        ComapiResult<T> result = (ComapiResult<T>) ((ServerErrorException) t).result;
+                        return Observable.just(result);
+                    }
+                    return Observable.error(t);
+                });
+    }
+
+    private static class Retry {
+
+        final Throwable error;
+        final int count;
+
+        Retry(Throwable error, int count) {
+            this.error = error;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Carries server error response through the retry logic.
+     */
+    private static class ServerErrorException extends Exception {
+
+        final ComapiResult<?> result;
+
+        ServerErrorException(ComapiResult<?> result) {
+            super("Server error " + result.getCode());
+            this.result = result;
+        }
+    }
+}
@@ -28,7 +28,9 @@ import com.comapi.RxComapiClient;
 import com.comapi.RxServiceAccessor;
 import com.comapi.Session;
 import com.comapi.chat.model.Attachment;
+import com.comapi.chat.model.ChatMessage;
 import com.comapi.chat.model.ChatParticipant;
+import com.comapi.chat.model.ChatStore;
 import com.comapi.chat.model.ModelAdapter;
 import com.comapi.internal.helpers.APIHelper;
 import com.comapi.internal.helpers.DateHelper;
@@ -43,6 +45,7 @@ import com.comapi.internal.network.model.messaging.MessageToSend;
 import com.comapi.internal.network.model.profile.ComapiProfile;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -67,10 +70,16 @@ public class RxChatServiceAccessor {
 
     private final ChatController controller;
 
-    RxChatServiceAccessor(ModelAdapter modelAdapter, RxComapiClient foundation, ChatController controller) {
+    private final RetryPolicy conversationQueriesRetry;
+
+    private final RetryPolicy messageStatusesRetry;
+
+    RxChatServiceAccessor(ModelAdapter modelAdapter, RxComapiClient foundation, ChatController controller, InternalConfig internal) {
         this.modelAdapter = modelAdapter;
         this.foundation = foundation;
         this.controller = controller;
+        this.conversationQueriesRetry = internal.getConversationQueriesRetryPolicy();
+        this.messageStatusesRetry = internal.getMessageStatusesRetryPolicy();
         this.messagingService = new MessagingService();
         this.profileService = new ProfileService();
         this.profileServiceWithDefaults = new ProfileServiceWithDefaults();
@@ -129,7 +138,7 @@ public class RxChatServiceAccessor {
          * @return Observable to subscribe to.
          */
         public Observable<ChatResult> createConversation(@NonNull final ConversationCreate request) {
-            return foundation.service().messaging().getConversation(request.getId())
+            return conversationQueriesRetry.applyToResult(foundation.service().messaging().getConversation(request.getId()))
                     .flatMap(result -> {
                         if (result.isSuccessful() && result.getResult() != null) {
                             return Observable.fromCallable(() -> new ChatResult(false, new ChatResult.Error(409, "Conversation already exist.", null)));
@@ -140,7 +149,7 @@ public class RxChatServiceAccessor {
         }
 
         public Observable<ComapiResult<ConversationDetails>> getConversation(@NonNull final String conversationId) {
-            return foundation.service().messaging().getConversation(conversationId);
+            return conversationQueriesRetry.applyToResult(foundation.service().messaging().getConversation(conversationId));
         }
 
         /**
@@ -171,7 +180,7 @@ public class RxChatServiceAccessor {
          * @return Observable to get a list of conversation participants.
          */
         public Observable<List<ChatParticipant>> getParticipants(@NonNull final String conversationId) {
-            return foundation.service().messaging().getParticipants(conversationId).map(result -> modelAdapter.adapt(result.getResult()));
+            return conversationQueriesRetry.applyToResult(foundation.service().messaging().getParticipants(conversationId)).map(result -> modelAdapter.adapt(result.getResult()));
         }
 
         /**
@@ -275,7 +284,28 @@ public class RxChatServiceAccessor {
             updateBuilder.setStatus(MessageStatus.read).setTimestamp(DateHelper.getCurrentUTC());
             statuses.add(updateBuilder.build());
 
-            return foundation.service().messaging().updateMessageStatus(conversationId, statuses).flatMap(result -> controller.handleMessageStatusToUpdate(conversationId, statuses, result));
+            return messageStatusesRetry.applyToResult(foundation.service().messaging().updateMessageStatus(conversationId, statuses)).flatMap(result -> controller.handleMessageStatusToUpdate(conversationId, statuses, result));
+        }
+
+        /**
+         * Sets statuses for messages to 'read' with a single status update. If the store keeps status watermarks, see {@link ChatStore#supportsWatermarks()}, a single 'read up to' watermark is saved instead of a status for every message.
+         *
+         * @param conversationId ID of a conversation to modify.
+         * @param messages       Messages for which the status should be updated, usually all messages up to the latest one displayed to the user.
+         * @return Observable to subscribe to.
+         */
+        public Observable<ChatResult> markConversationAsRead(@NonNull final String conversationId, @NonNull final List<ChatMessage> messages) {
+
+            final String timestamp = DateHelper.getCurrentUTC();
+            List<MessageStatusUpdate> statuses = new ArrayList<>();
+            MessageStatusUpdate.Builder updateBuilder = MessageStatusUpdate.builder();
+            for (ChatMessage message : messages) {
+                updateBuilder.addMessageId(message.getMessageId());
+            }
+            updateBuilder.setStatus(MessageStatus.read).setTimestamp(timestamp);
+            statuses.add(updateBuilder.build());
+
+            return messageStatusesRetry.applyToResult(foundation.service().messaging().updateMessageStatus(conversationId, statuses)).flatMap(result -> controller.handleConversationRead(conversationId, messages, DateHelper.getUTCMilliseconds(timestamp), result));
         }
 
         /**
@@ -307,6 +337,44 @@ public class RxChatServiceAccessor {
             return controller.synchroniseConversation(conversationId);
         }
 
+        /**
+         * Check for missing messages and other events and update local store. Emits progress of the synchronisation as it runs, the last emitted {@link SynchronisationProgress} contains the result.
+         * If the synchronisation is already in progress the subscriber joins it.
+         *
+         * @return Observable to subscribe to.
+         */
+        public Observable<SynchronisationProgress> synchroniseStoreWithProgress() {
+            return controller.synchroniseStoreWithProgress();
+        }
+
+        /**
+         * Check for missing messages and other events and update local store. Emits progress of the synchronisation as it runs, the last emitted {@link SynchronisationProgress} contains the result.
+         *
+         * @param conversationId Unique conversationId.
+         * @return Observable to subscribe to.
+         */
+        public Observable<SynchronisationProgress> synchroniseConversationWithProgress(@NonNull final String conversationId) {
+            return controller.synchroniseConversationWithProgress(conversationId);
+        }
+
+        /**
+         * Sets conversation currently opened by the user. Missing events in this conversation will be synchronised before the other conversations.
+         *
+         * @param conversationId Unique conversationId or null if no conversation is opened.
+         */
+        public void setActiveConversation(@Nullable final String conversationId) {
+            controller.setActiveConversation(conversationId);
+        }
+
+        /**
+         * Sets conversations pinned by the app. When there are more conversations than the synchronisation limit, pinned conversations are synchronised first.
+         *
+         * @param conversationIds Unique ids of pinned conversations or null to unpin all.
+         */
+        public void setPinnedConversations(@Nullable final Collection<String> conversationIds) {
+            controller.setPinnedConversations(conversationIds);
+        }
+
         /**
          * Sends participant is typing in conversation event.
          *
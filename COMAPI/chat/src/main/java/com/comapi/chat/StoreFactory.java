@@ -25,6 +25,10 @@ import android.support.annotation.NonNull;
 import com.comapi.chat.model.ChatStore;
 import com.comapi.internal.log.Logger;
 
+import rx.Emitter;
+import rx.Observable;
+import rx.functions.Func1;
+
 /**
  * Factory class for {@link ChatStore} implementations that preferably can support transactions.
  *
@@ -50,6 +54,30 @@ public abstract class StoreFactory<T extends ChatStore> {
         }
     }
 
+    /**
+     * Executes SDK store write in a single store transaction. Transaction boundaries are set by the factory, so the write shouldn't call {@link ChatStore#beginTransaction()} and {@link ChatStore#endTransaction()} itself.
+     * The result is emitted after the transaction ends, if the write fails the observable completes without a result.
+     *
+     * @param write Store write returning the result to emit.
+     * @param <R>   Result class.
+     * @return Observable executing the write.
+     */
+    <R> Observable<R> write(@NonNull Func1<ChatStore, R> write) {
+        return Observable.create(emitter -> execute(new StoreTransaction<T>() {
+            @Override
+            protected void execute(T store) {
+                try {
+                    store.beginTransaction();
+                    R result = write.call(store);
+                    store.endTransaction();
+                    emitter.onNext(result);
+                } finally {
+                    emitter.onCompleted();
+                }
+            }
+        }), Emitter.BackpressureMode.BUFFER);
+    }
+
     /**
      * Build {@link ChatStore} implementation, preferably one that can support transactions.
      *
@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Progress of store synchronisation. Emitted repeatedly while the synchronisation runs, the last one contains the synchronisation result.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class SynchronisationProgress {
+
+    private final int conversationsCompared;
+
+    private final int conversationsAdded;
+
+    private final int conversationsUpdated;
+
+    private final int conversationsDeleted;
+
+    private final int eventPagesFetched;
+
+    private final long eventsApplied;
+
+    private final long bytesReceived;
+
+    private final ChatResult result;
+
+    SynchronisationProgress(int conversationsCompared, int conversationsAdded, int conversationsUpdated, int conversationsDeleted, int eventPagesFetched, long eventsApplied, long bytesReceived, ChatResult result) {
+        this.conversationsCompared = conversationsCompared;
+        this.conversationsAdded = conversationsAdded;
+        this.conversationsUpdated = conversationsUpdated;
+        this.conversationsDeleted = conversationsDeleted;
+        this.eventPagesFetched = eventPagesFetched;
+        this.eventsApplied = eventsApplied;
+        this.bytesReceived = bytesReceived;
+        this.result = result;
+    }
+
+    /**
+     * Number of conversations compared between the server and the local store.
+     *
+     * @return Number of compared conversations.
+     */
+    public int getConversationsCompared() {
+        return conversationsCompared;
+    }
+
+    /**
+     * Number of conversations found on the server and added to the local store.
+     *
+     * @return Number of added conversations.
+     */
+    public int getConversationsAdded() {
+        return conversationsAdded;
+    }
+
+    /**
+     * Number of locally stored conversations updated with the server state.
+     *
+     * @return Number of updated conversations.
+     */
+    public int getConversationsUpdated() {
+        return conversationsUpdated;
+    }
+
+    /**
+     * Number of conversations no longer available on the server and deleted from the local store.
+     *
+     * @return Number of deleted conversations.
+     */
+    public int getConversationsDeleted() {
+        return conversationsDeleted;
+    }
+
+    /**
+     * Number of conversation event pages fetched from the server.
+     *
+     * @return Number of fetched event pages.
+     */
+    public int getEventPagesFetched() {
+        return eventPagesFetched;
+    }
+
+    /**
+     * Number of messages and message statuses saved in the local store.
+     *
+     * @return Number of applied events.
+     */
+    public long getEventsApplied() {
+        return eventsApplied;
+    }
+
+    /**
+     * Size of message content received in conversation events, in bytes of UTF-8 encoded text. Attachments are not downloaded during synchronisation and are not counted.
+     *
+     * @return Number of received bytes.
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Checks if the synchronisation has finished.
+     *
+     * @return True if this is the last progress update and {@link SynchronisationProgress#getResult()} is available.
+     */
+    public boolean isFinished() {
+        return result != null;
+    }
+
+    /**
+     * Result of the synchronisation.
+     *
+     * @return Synchronisation result or null if the synchronisation is still in progress.
+     */
+    @Nullable
+    public ChatResult getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "compared=" + conversationsCompared + " added=" + conversationsAdded + " updated=" + conversationsUpdated + " deleted=" + conversationsDeleted
+                + " pages=" + eventPagesFetched + " events=" + eventsApplied + " bytes=" + bytesReceived + " finished=" + isFinished();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.model.ChatMessage;
+import com.comapi.internal.network.model.messaging.Part;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Observable;
+import rx.subjects.ReplaySubject;
+import rx.subjects.Subject;
+
+/**
+ * Counts work done by a single store synchronisation and publishes {@link SynchronisationProgress} snapshots as the counters change.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+class SynchronisationTracker {
+
+    /**
+     * Tracker ignoring all updates, for synchronisation which progress is not observed.
+     */
+    static final SynchronisationTracker NONE = new SynchronisationTracker() {
+
+        @Override
+        void onConversationsCompared(int compared, int added, int updated, int deleted) {
+        }
+
+        @Override
+        void onEventPagesFetched(int pages) {
+        }
+
+        @Override
+        void onEventsApplied(List<ChatMessage> messages, int statuses) {
+        }
+
+        @Override
+        void onFinished(ChatResult result) {
+        }
+    };
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final AtomicInteger conversationsCompared = new AtomicInteger();
+
+    private final AtomicInteger conversationsAdded = new AtomicInteger();
+
+    private final AtomicInteger conversationsUpdated = new AtomicInteger();
+
+    private final AtomicInteger conversationsDeleted = new AtomicInteger();
+
+    private final AtomicInteger eventPagesFetched = new AtomicInteger();
+
+    private final AtomicLong eventsApplied = new AtomicLong();
+
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private final Subject<SynchronisationProgress, SynchronisationProgress> subject;
+
+    SynchronisationTracker() {
+        ReplaySubject<SynchronisationProgress> replay = ReplaySubject.createWithSize(1);
+        replay.onNext(snapshot(null));
+        subject = replay.toSerialized();
+    }
+
+    /**
+     * Records result of comparing remote and local conversation lists.
+     *
+     * @param compared Number of compared conversations.
+     * @param added    Number of conversations to add to the store.
+     * @param updated  Number of conversations to update in the store.
+     * @param deleted  Number of conversations to delete from the store.
+     */
+    void onConversationsCompared(int compared, int added, int updated, int deleted) {
+        conversationsCompared.addAndGet(compared);
+        conversationsAdded.addAndGet(added);
+        conversationsUpdated.addAndGet(updated);
+        conversationsDeleted.addAndGet(deleted);
+        publish(null);
+    }
+
+    /**
+     * Records event pages received from the server.
+     *
+     * @param pages Number of received pages.
+     */
+    void onEventPagesFetched(int pages) {
+        eventPagesFetched.addAndGet(pages);
+        publish(null);
+    }
+
+    /**
+     * Records events saved in the store.
+     *
+     * @param messages Saved messages.
+     * @param statuses Number of saved message statuses.
+     */
+    void onEventsApplied(List<ChatMessage> messages, int statuses) {
+        long bytes = 0;
+        for (ChatMessage message : messages) {
+            List<Part> parts = message.getParts();
+            if (parts != null) {
+                for (Part part : parts) {
+                    if (part != null && part.getData() != null) {
+                        bytes += part.getData().getBytes(UTF_8).length;
+                    }
+                }
+            }
+        }
+        eventsApplied.addAndGet(messages.size() + statuses);
+        bytesReceived.addAndGet(bytes);
+        publish(null);
+    }
+
+    /**
+     * Publishes the last progress update and completes the progress stream.
+     *
+     * @param result Synchronisation result.
+     */
+    void onFinished(ChatResult result) {
+        publish(result);
+        subject.onCompleted();
+    }
+
+    /**
+     * Observe synchronisation progress. The latest progress is emitted to new subscribers straight away, also after the synchronisation finished.
+     *
+     * @return Observable emitting progress updates, completes when the synchronisation finishes.
+     */
+    Observable<SynchronisationProgress> observe() {
+        return subject.onBackpressureLatest();
+    }
+
+    /**
+     * Gets current synchronisation progress.
+     *
+     * @return Current progress.
+     */
+    SynchronisationProgress getProgress() {
+        return snapshot(null);
+    }
+
+    private void publish(ChatResult result) {
+        subject.onNext(snapshot(result));
+    }
+
+    private SynchronisationProgress snapshot(ChatResult result) {
+        return new SynchronisationProgress(conversationsCompared.get(), conversationsAdded.get(), conversationsUpdated.get(), conversationsDeleted.get(),
+                eventPagesFetched.get(), eventsApplied.get(), bytesReceived.get(), result);
+    }
+}
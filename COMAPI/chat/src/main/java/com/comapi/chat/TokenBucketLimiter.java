@@ -0,0 +1,221 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import rx.Observable;
+import rx.subjects.BehaviorSubject;
+import rx.subjects.Subject;
+
+/**
+ * Limits the rate of calls with a token bucket. Each call takes a token, tokens are refilled at a constant rate up to the bucket capacity.
+ * After failed calls further calls are blocked for exponentially growing, randomised period of time. Thread safe without locking.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class TokenBucketLimiter {
+
+    /**
+     * Immutable state of the limiter.
+     */
+    public static final class State {
+
+        private final int tokens;
+        private final long lastRefill;
+        private final int failures;
+        private final long blockedUntil;
+
+        State(int tokens, long lastRefill, int failures, long blockedUntil) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+            this.failures = failures;
+            this.blockedUntil = blockedUntil;
+        }
+
+        /**
+         * @return Number of calls allowed before the bucket needs to be refilled.
+         */
+        public int getTokens() {
+            return tokens;
+        }
+
+        /**
+         * @return Number of failed calls in a row.
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return Time in milliseconds until which calls are blocked after failures.
+         */
+        public long getBlockedUntil() {
+            return blockedUntil;
+        }
+
+        /**
+         * Checks if calls are currently not allowed.
+         *
+         * @return True if there are no tokens left or calls are blocked after failures.
+         */
+        public boolean isSuppressed() {
+            return tokens <= 0 || System.currentTimeMillis() < blockedUntil;
+        }
+
+        @Override
+        public String toString() {
+            return "Tokens: " + tokens + "; Failures: " + failures + "; Blocked until: " + blockedUntil;
+        }
+    }
+
+    private final int capacity;
+
+    private final long refillPeriod;
+
+    private final long backoff;
+
+    private final long maxBackoff;
+
+    private final Random random;
+
+    private final AtomicReference<State> state;
+
+    private final Subject<State, State> stateSubject;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param capacity     Maximum number of calls allowed in a burst.
+     * @param refillPeriod Time in milliseconds after which a single call is allowed again.
+     * @param backoff      Time in milliseconds for which calls are blocked after the first failure. Doubled with every next failure.
+     * @param maxBackoff   Maximum time in milliseconds for which calls are blocked after failures.
+     */
+    public TokenBucketLimiter(int capacity, long refillPeriod, long backoff, long maxBackoff) {
+        this.capacity = Math.max(1, capacity);
+        this.refillPeriod = Math.max(1, refillPeriod);
+        this.backoff = Math.max(0, backoff);
+        this.maxBackoff = Math.max(this.backoff, maxBackoff);
+        this.random = new Random();
+        State initial = new State(this.capacity, System.currentTimeMillis(), 0, 0);
+        this.state = new AtomicReference<>(initial);
+        this.stateSubject = BehaviorSubject.create(initial).toSerialized();
+    }
+
+    /**
+     * Check if next call is allowed and take a token if it is.
+     *
+     * @return True if a next call is allowed.
+     */
+    public boolean tryAcquire() {
+
+        State current;
+        State next;
+        do {
+            current = state.get();
+            final long now = System.currentTimeMillis();
+            if (now < current.blockedUntil) {
+                return false;
+            }
+            State refilled = refill(current, now);
+            if (refilled.tokens <= 0) {
+                if (refilled != current && state.compareAndSet(current, refilled)) {
+                    stateSubject.onNext(refilled);
+                }
+                return false;
+            }
+            next = new State(refilled.tokens - 1, refilled.lastRefill, refilled.failures, refilled.blockedUntil);
+        } while (!state.compareAndSet(current, next));
+
+        stateSubject.onNext(next);
+        return true;
+    }
+
+    /**
+     * Reports successful call. Resets the backoff.
+     */
+    public void onSuccess() {
+
+        State current;
+        State next;
+        do {
+            current = state.get();
+            if (current.failures == 0 && current.blockedUntil == 0) {
+                return;
+            }
+            next = new State(current.tokens, current.lastRefill, 0, 0);
+        } while (!state.compareAndSet(current, next));
+
+        stateSubject.onNext(next);
+    }
+
+    /**
+     * Reports failed call. Blocks next calls for a backoff period growing exponentially with the number of failures in a row.
+     * Half of the period is randomised so clients failing at the same time do not retry at the same time.
+     */
+    public void onFailure() {
+
+        State current;
+        State next;
+        do {
+            current = state.get();
+            final int failures = current.failures + 1;
+            final long period = Math.min(maxBackoff, backoff << Math.min(failures - 1, 30));
+            final long jitter = period > 1 ? (long) (random.nextDouble() * (period / 2)) : 0;
+            next = new State(current.tokens, current.lastRefill, failures, System.currentTimeMillis() + period - jitter);
+        } while (!state.compareAndSet(current, next));
+
+        stateSubject.onNext(next);
+    }
+
+    /**
+     * Gets current state of the limiter.
+     *
+     * @return Limiter state.
+     */
+    public State getState() {
+        return refill(state.get(), System.currentTimeMillis());
+    }
+
+    /**
+     * Observe changes of the limiter state.
+     *
+     * @return Observable emitting current state and its changes.
+     */
+    public Observable<State> observeState() {
+        return stateSubject.asObservable();
+    }
+
+    /**
+     * Adds tokens for the time passed since the last refill.
+     */
+    private State refill(State current, long now) {
+        final long periods = (now - current.lastRefill) / refillPeriod;
+        if (periods <= 0) {
+            return current;
+        }
+        if (current.tokens + periods >= capacity) {
+            return new State(capacity, now, current.failures, current.blockedUntil);
+        }
+        return new State(current.tokens + (int) periods, current.lastRefill + periods * refillPeriod, current.failures, current.blockedUntil);
+    }
+}
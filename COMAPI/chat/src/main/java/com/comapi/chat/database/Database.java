@@ -21,11 +21,13 @@
 package com.comapi.chat.database;
 
 import android.app.Application;
+import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.support.annotation.NonNull;
 
 import com.comapi.chat.database.model.DbOrphanedEvent;
+import com.comapi.chat.database.model.DbSyncCheckpoint;
 import com.comapi.internal.Parser;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.model.messaging.OrphanedEvent;
@@ -190,12 +192,163 @@ public class Database {
         });
     }
 
+    /**
+     * Replaces saved store synchronisation progress with a new set of checkpoints.
+     *
+     * @param checkpoints Checkpoints to save, one per conversation.
+     * @return Observable returning number of saved checkpoints.
+     */
+    public Observable<Integer> saveSyncCheckpoints(List<DbSyncCheckpoint> checkpoints) {
+
+        return Observable.fromCallable(() -> {
+
+            int numberOfRowsInserted = 0;
+            SQLiteDatabase writable = dbHelper.getWritableDatabase();
+
+            writable.beginTransaction();
+
+            try {
+
+                writable.delete(DbSyncCheckpoint.TABLE_NAME, null, null);
+
+                if (checkpoints != null) {
+                    for (DbSyncCheckpoint checkpoint : checkpoints) {
+                        if (writable.insertWithOnConflict(DbSyncCheckpoint.TABLE_NAME, null, toContentValues(checkpoint), SQLiteDatabase.CONFLICT_REPLACE) > 0) {
+                            numberOfRowsInserted += 1;
+                        }
+                    }
+                }
+
+                writable.setTransactionSuccessful();
+
+            } finally {
+                writable.endTransaction();
+                log.d(numberOfRowsInserted + " synchronisation checkpoints saved.");
+            }
+
+            return numberOfRowsInserted;
+        });
+    }
+
+    /**
+     * Updates store synchronisation progress in a single conversation.
+     *
+     * @param checkpoint Checkpoint to save.
+     * @return Observable returning true if the checkpoint was saved.
+     */
+    public Observable<Boolean> updateSyncCheckpoint(DbSyncCheckpoint checkpoint) {
+
+        return Observable.fromCallable(() -> {
+            SQLiteDatabase writable = dbHelper.getWritableDatabase();
+            return writable.insertWithOnConflict(DbSyncCheckpoint.TABLE_NAME, null, toContentValues(checkpoint), SQLiteDatabase.CONFLICT_REPLACE) > 0;
+        });
+    }
+
+    /**
+     * Query saved store synchronisation progress. Checkpoints saved before given time are considered outdated and are skipped, see {@link #purgeSyncCheckpoints(long)} to delete them.
+     *
+     * @param notOlderThan Time in milliseconds before which the checkpoints are outdated.
+     * @return Observable returning saved checkpoints.
+     */
+    public Observable<List<DbSyncCheckpoint>> querySyncCheckpoints(final long notOlderThan) {
+
+        return Observable.fromCallable(() -> {
+
+            List<DbSyncCheckpoint> items = new ArrayList<>();
+
+            try {
+
+                SQLiteDatabase readable = dbHelper.getReadableDatabase();
+                Cursor cursor = readable.query(DbSyncCheckpoint.TABLE_NAME, null, DbSyncCheckpoint.UPDATED_ON + " >= ?", new String[]{String.valueOf(notOlderThan)}, null, null, DbSyncCheckpoint.UPDATED_ON);
+                if (cursor != null) {
+                    try {
+                        while (cursor.moveToNext()) {
+                            items.add(DbSyncCheckpoint.MAP.call(cursor));
+                        }
+                    } finally {
+                        cursor.close();
+                    }
+                }
+
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                log.f("Error querying synchronisation checkpoints.", e);
+            }
+
+            return items;
+        });
+    }
+
+    /**
+     * Deletes outdated store synchronisation progress.
+     *
+     * @param notOlderThan Time in milliseconds before which the checkpoints are outdated.
+     * @return Observable returning number of deleted rows in database.
+     */
+    public Observable<Integer> purgeSyncCheckpoints(final long notOlderThan) {
+
+        return Observable.fromCallable(() -> {
+            SQLiteDatabase writable = dbHelper.getWritableDatabase();
+            return writable.delete(DbSyncCheckpoint.TABLE_NAME, DbSyncCheckpoint.UPDATED_ON + " < ?", new String[]{String.valueOf(notOlderThan)});
+        });
+    }
+
+    /**
+     * Deletes store synchronisation progress in given conversations.
+     *
+     * @param conversationIds Conversation unique identifiers.
+     * @return Observable returning number of deleted rows in database.
+     */
+    public Observable<Integer> deleteSyncCheckpoints(String[] conversationIds) {
+
+        return Observable.fromCallable(() -> {
+            if (conversationIds.length > 0) {
+                SQLiteDatabase writable = dbHelper.getWritableDatabase();
+                return writable.delete(DbSyncCheckpoint.TABLE_NAME, DbSyncCheckpoint.CONVERSATION_ID + " IN " + queryPlaceholder(conversationIds.length), conversationIds);
+            } else {
+                return 0;
+            }
+        });
+    }
+
+    /**
+     * Deletes all saved store synchronisation progress.
+     *
+     * @return Observable returning number of deleted rows in database.
+     */
+    public Observable<Integer> clearSyncCheckpoints() {
+
+        return Observable.fromCallable(() -> {
+            SQLiteDatabase writable = dbHelper.getWritableDatabase();
+            int numberOfRows = writable.delete(DbSyncCheckpoint.TABLE_NAME, "1", null);
+            log.d("Deleted " + numberOfRows + " synchronisation checkpoints.");
+            return numberOfRows;
+        });
+    }
+
+    /**
+     * Creates database row values for a synchronisation checkpoint.
+     *
+     * @param checkpoint Synchronisation checkpoint.
+     * @return Database row values.
+     */
+    private ContentValues toContentValues(DbSyncCheckpoint checkpoint) {
+        return new DbSyncCheckpoint.Builder()
+                .conversationId(checkpoint.conversationId())
+                .from(checkpoint.from())
+                .events(checkpoint.events())
+                .finished(checkpoint.isFinished())
+                .updatedOn(checkpoint.updatedOn())
+                .build();
+    }
+
     /**
      * Recreates empty database.
      */
     public void resetDatabase() {
 
         String dropOrphanedEvents = "DROP TABLE IF EXISTS " + DbOrphanedEvent.TABLE_NAME;
+        String dropSyncCheckpoints = "DROP TABLE IF EXISTS " + DbSyncCheckpoint.TABLE_NAME;
 
         SQLiteDatabase writable = dbHelper.getWritableDatabase();
 
@@ -205,6 +358,8 @@ public class Database {
 
             writable.execSQL(dropOrphanedEvents);
             writable.execSQL(DatabaseHelper.SQL_CREATE_ORPHANED_EVENTS_TABLE);
+            writable.execSQL(dropSyncCheckpoints);
+            writable.execSQL(DatabaseHelper.SQL_CREATE_SYNC_CHECKPOINTS_TABLE);
             writable.setTransactionSuccessful();
 
         } finally {
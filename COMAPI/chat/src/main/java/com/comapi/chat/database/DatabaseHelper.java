@@ -26,6 +26,7 @@ import android.database.sqlite.SQLiteOpenHelper;
 import android.support.annotation.NonNull;
 
 import com.comapi.chat.database.model.DbOrphanedEvent;
+import com.comapi.chat.database.model.DbSyncCheckpoint;
 
 /**
  * Implementation of SQLite helper interface.
@@ -38,7 +39,7 @@ class DatabaseHelper extends SQLiteOpenHelper {
     /**
      * If the database schema change, the database version will be incremented.
      */
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 2;
 
     /**
      * File body for SQLite database.
@@ -48,6 +49,7 @@ class DatabaseHelper extends SQLiteOpenHelper {
     private static DatabaseHelper instance;
 
     private static final String TEXT_TYPE = " TEXT";
+    private static final String INTEGER_TYPE = " INTEGER";
     private static final String COMMA_SEP = ",";
 
     static final String SQL_CREATE_ORPHANED_EVENTS_TABLE =
@@ -56,6 +58,14 @@ class DatabaseHelper extends SQLiteOpenHelper {
                     DbOrphanedEvent.MESSAGE_ID + TEXT_TYPE + COMMA_SEP +
                     DbOrphanedEvent.EVENT + TEXT_TYPE + ")";
 
+    static final String SQL_CREATE_SYNC_CHECKPOINTS_TABLE =
+            "CREATE TABLE " + DbSyncCheckpoint.TABLE_NAME + "(" +
+                    DbSyncCheckpoint.CONVERSATION_ID + " TEXT PRIMARY KEY" + COMMA_SEP +
+                    DbSyncCheckpoint.FROM + INTEGER_TYPE + COMMA_SEP +
+                    DbSyncCheckpoint.EVENTS + INTEGER_TYPE + COMMA_SEP +
+                    DbSyncCheckpoint.FINISHED + INTEGER_TYPE + COMMA_SEP +
+                    DbSyncCheckpoint.UPDATED_ON + INTEGER_TYPE + ")";
+
     DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
@@ -70,11 +80,14 @@ class DatabaseHelper extends SQLiteOpenHelper {
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(SQL_CREATE_ORPHANED_EVENTS_TABLE);
+        db.execSQL(SQL_CREATE_SYNC_CHECKPOINTS_TABLE);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-
+        if (oldVersion < 2) {
+            db.execSQL(SQL_CREATE_SYNC_CHECKPOINTS_TABLE);
+        }
     }
 
     @Override
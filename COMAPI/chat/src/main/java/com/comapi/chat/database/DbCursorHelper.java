@@ -41,6 +41,28 @@ public final class DbCursorHelper {
         return cursor.getString(cursor.getColumnIndexOrThrow(columnName));
     }
 
+    /**
+     * Gets long from db cursor.
+     *
+     * @param cursor     SQL databse cursor.
+     * @param columnName Database column name.
+     * @return Value stored in database.
+     */
+    public static long getLong(Cursor cursor, String columnName) {
+        return cursor.getLong(cursor.getColumnIndexOrThrow(columnName));
+    }
+
+    /**
+     * Gets int from db cursor.
+     *
+     * @param cursor     SQL databse cursor.
+     * @param columnName Database column name.
+     * @return Value stored in database.
+     */
+    public static int getInt(Cursor cursor, String columnName) {
+        return cursor.getInt(cursor.getColumnIndexOrThrow(columnName));
+    }
+
     /**
      * Private constructor.
      */
@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.chat.database.model;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.os.Parcelable;
+
+import com.comapi.chat.database.DbCursorHelper;
+import com.google.auto.value.AutoValue;
+
+import rx.functions.Func1;
+
+/**
+ * Progress of store synchronisation in a single conversation. Saved so the interrupted synchronisation can be resumed.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+@AutoValue
+public abstract class DbSyncCheckpoint implements Parcelable {
+
+    public static final String TABLE_NAME = "SyncCheckpoints";
+    public static final String CONVERSATION_ID = "_id";
+    public static final String FROM = "f";
+    public static final String EVENTS = "e";
+    public static final String FINISHED = "d";
+    public static final String UPDATED_ON = "u";
+
+    /**
+     * Conversation id.
+     *
+     * @return Conversation id.
+     */
+    public abstract String conversationId();
+
+    /**
+     * Conversation event id the next query should start from.
+     *
+     * @return Conversation event id.
+     */
+    public abstract long from();
+
+    /**
+     * Number of events already queried in the conversation.
+     *
+     * @return Number of events.
+     */
+    public abstract int events();
+
+    /**
+     * Checks if there are no more events to query in the conversation.
+     *
+     * @return True if conversation synchronisation has finished.
+     */
+    public abstract boolean isFinished();
+
+    /**
+     * Time when the checkpoint was saved.
+     *
+     * @return Time in milliseconds.
+     */
+    public abstract long updatedOn();
+
+    /**
+     * Creates synchronisation checkpoint.
+     *
+     * @param conversationId Conversation id.
+     * @param from           Conversation event id the next query should start from.
+     * @param events         Number of events already queried in the conversation.
+     * @param isFinished     True if there are no more events to query in the conversation.
+     * @param updatedOn      Time when the checkpoint was saved.
+     * @return Synchronisation checkpoint.
+     */
+    public static DbSyncCheckpoint create(String conversationId, long from, int events, boolean isFinished, long updatedOn) {
+        return new AutoValue_DbSyncCheckpoint(conversationId, from, events, isFinished, updatedOn);
+    }
+
+    /**
+     * Maps cursor row to an DbSyncCheckpoint object.
+     */
+    public static Func1<Cursor, DbSyncCheckpoint> MAP = cursor -> {
+        String conversationId = DbCursorHelper.getString(cursor, CONVERSATION_ID);
+        long from = DbCursorHelper.getLong(cursor, FROM);
+        int events = DbCursorHelper.getInt(cursor, EVENTS);
+        boolean isFinished = DbCursorHelper.getInt(cursor, FINISHED) != 0;
+        long updatedOn = DbCursorHelper.getLong(cursor, UPDATED_ON);
+        return new AutoValue_DbSyncCheckpoint(conversationId, from, events, isFinished, updatedOn);
+    };
+
+    /**
+     * Builder to construct ContentValues for database.
+     */
+    public static final class Builder {
+
+        private final ContentValues values = new ContentValues();
+
+        /**
+         * Conversation unique identifier.
+         *
+         * @param conversationId Conversation unique identifier.
+         * @return Builder instance.
+         */
+        public Builder conversationId(String conversationId) {
+            values.put(CONVERSATION_ID, conversationId);
+            return this;
+        }
+
+        /**
+         * Conversation event id the next query should start from.
+         *
+         * @param from Conversation event id.
+         * @return Builder instance.
+         */
+        public Builder from(long from) {
+            values.put(FROM, from);
+            return this;
+        }
+
+        /**
+         * Number of events already queried in the conversation.
+         *
+         * @param events Number of events.
+         * @return Builder instance.
+         */
+        public Builder events(int events) {
+            values.put(EVENTS, events);
+            return this;
+        }
+
+        /**
+         * Set if there are no more events to query in the conversation.
+         *
+         * @param isFinished True if conversation synchronisation has finished.
+         * @return Builder instance.
+         */
+        public Builder finished(boolean isFinished) {
+            values.put(FINISHED, isFinished ? 1 : 0);
+            return this;
+        }
+
+        /**
+         * Time when the checkpoint was saved.
+         *
+         * @param updatedOn Time in milliseconds.
+         * @return Builder instance.
+         */
+        public Builder updatedOn(long updatedOn) {
+            values.put(UPDATED_ON, updatedOn);
+            return this;
+        }
+
+        /**
+         * Build ContentValues for the db.
+         *
+         * @return ContentValues for the db.
+         */
+        public ContentValues build() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adjusts number of events requested in a single conversation events query, so that a query takes about the target time to complete.
+ * Page size grows on fast connections to save round trips and shrinks on slow ones so the pages don't time out. Thread safe without locking.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class AdaptivePageSize {
+
+    /**
+     * Maximum change of the page size after a single query.
+     */
+    private static final double MAX_FACTOR = 2;
+
+    private final int minPageSize;
+
+    private final int maxPageSize;
+
+    private final long targetLatency;
+
+    private final AtomicInteger pageSize;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param minPageSize   Minimum number of events in a query.
+     * @param maxPageSize   Maximum number of events in a query, also the initial page size.
+     * @param targetLatency Time in milliseconds a single query should take. Page size is fixed to the maximum if not positive.
+     */
+    public AdaptivePageSize(int minPageSize, int maxPageSize, long targetLatency) {
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.minPageSize = Math.max(1, Math.min(minPageSize, this.maxPageSize));
+        this.targetLatency = targetLatency;
+        this.pageSize = new AtomicInteger(this.maxPageSize);
+    }
+
+    /**
+     * Checks if the page size is adjusted to the measured query times.
+     *
+     * @return True if page size can change.
+     */
+    public boolean isEnabled() {
+        return targetLatency > 0 && minPageSize < maxPageSize;
+    }
+
+    /**
+     * Gets number of events to request in the next query.
+     *
+     * @return Page size.
+     */
+    public int getPageSize() {
+        return pageSize.get();
+    }
+
+    /**
+     * Adjusts page size after a successful query. Short pages completed within the target time say nothing about the connection capacity and are ignored.
+     *
+     * @param limit    Number of events requested.
+     * @param received Number of events received.
+     * @param elapsed  Time in milliseconds the query took.
+     */
+    public void onResponse(int limit, int received, long elapsed) {
+        if (!isEnabled() || limit <= 0 || (received < limit && elapsed <= targetLatency)) {
+            return;
+        }
+        double factor = elapsed > 0 ? (double) targetLatency / elapsed : MAX_FACTOR;
+        factor = Math.max(1 / MAX_FACTOR, Math.min(MAX_FACTOR, factor));
+        pageSize.set(clamp((int) Math.round(limit * factor)));
+    }
+
+    /**
+     * Halves the page size after a failed query.
+     *
+     * @param limit Number of events requested.
+     */
+    public void onError(int limit) {
+        if (isEnabled()) {
+            pageSize.set(clamp((int) Math.round(limit / MAX_FACTOR)));
+        }
+    }
+
+    private int clamp(int size) {
+        return Math.max(minPageSize, Math.min(maxPageSize, size));
+    }
+}
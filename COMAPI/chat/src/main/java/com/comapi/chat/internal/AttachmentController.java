@@ -24,6 +24,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.comapi.RxComapiClient;
+import com.comapi.chat.RetryPolicy;
 import com.comapi.chat.model.Attachment;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.model.messaging.MessageToSend;
@@ -46,15 +47,29 @@ public class AttachmentController {
 
     private final Logger log;
 
+    private final RetryPolicy retryPolicy;
+
     /**
-     * Recommended constructor.
+     * Constructor for controller not retrying failed uploads.
      *
      * @param log         Logger instance.
      * @param maxPartSize Maximum size (number of characters) of a single Part data.
      */
     public AttachmentController(Logger log, int maxPartSize) {
+        this(log, maxPartSize, RetryPolicy.none());
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param log         Logger instance.
+     * @param maxPartSize Maximum size (number of characters) of a single Part data.
+     * @param retryPolicy Retry policy for attachment uploads.
+     */
+    public AttachmentController(Logger log, int maxPartSize, RetryPolicy retryPolicy) {
         this.maxPartSize = maxPartSize;
         this.log = log;
+        this.retryPolicy = retryPolicy;
     }
 
     /**
@@ -100,7 +115,7 @@ public class AttachmentController {
      * Upload single attachment and update the details in it from the response.
      */
     private Observable<Attachment> upload(RxComapiClient client, Attachment a) {
-        return client.service().messaging().uploadContent(a.getFolder(), a.getData())
+        return retryPolicy.applyToResult(client.service().messaging().uploadContent(a.getFolder(), a.getData()))
                 .map(response -> a.updateWithUploadDetails(response.getResult()))
                 .doOnError(t -> log.e("Error uploading attachment. " + t.getLocalizedMessage()))
                 .onErrorReturn(a::setError);
@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.internal;
+
+import com.comapi.chat.model.ChatConversationBase;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import rx.functions.Func1;
+
+/**
+ * Bounded in-memory cache of conversation states stored in {@link com.comapi.chat.model.ChatStore}. Least recently used conversations are evicted first.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class ConversationCache {
+
+    private final int maxSize;
+
+    private final LinkedHashMap<String, ChatConversationBase> conversations;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param maxSize Maximum number of cached conversations. Cache is disabled if not positive.
+     */
+    public ConversationCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.conversations = new LinkedHashMap<String, ChatConversationBase>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ChatConversationBase> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets cached conversation.
+     *
+     * @param conversationId Unique conversation id.
+     * @return Cached conversation or null if not in cache.
+     */
+    public synchronized ChatConversationBase get(String conversationId) {
+        return maxSize > 0 ? conversations.get(conversationId) : null;
+    }
+
+    /**
+     * Gets cached conversations.
+     *
+     * @param conversationIds Unique conversation ids.
+     * @return Map of cached conversations with conversation ids as keys.
+     */
+    public synchronized Map<String, ChatConversationBase> get(Collection<String> conversationIds) {
+        Map<String, ChatConversationBase> result = new HashMap<>();
+        if (maxSize > 0) {
+            for (String conversationId : conversationIds) {
+                ChatConversationBase conversation = conversations.get(conversationId);
+                if (conversation != null) {
+                    result.put(conversationId, conversation);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Puts conversation state into the cache.
+     *
+     * @param conversation Conversation state saved in the store.
+     */
+    public synchronized void put(ChatConversationBase conversation) {
+        if (maxSize > 0 && conversation != null && conversation.getConversationId() != null) {
+            conversations.put(conversation.getConversationId(), conversation);
+        }
+    }
+
+    /**
+     * Puts conversation state read from the store into the cache, unless the conversation is already cached. A state read from the store before a concurrent write finished won't replace the state cached by the write.
+     *
+     * @param conversation Conversation state read from the store.
+     */
+    public synchronized void putIfAbsent(ChatConversationBase conversation) {
+        if (maxSize > 0 && conversation != null && conversation.getConversationId() != null && !conversations.containsKey(conversation.getConversationId())) {
+            conversations.put(conversation.getConversationId(), conversation);
+        }
+    }
+
+    /**
+     * Replaces cached conversation with the result of a function applied to it. Nothing is changed if the conversation is not in the cache.
+     * The function is applied while holding the cache lock, so concurrent updates of the same conversation are not lost.
+     *
+     * @param conversationId Unique conversation id.
+     * @param function       Creates new conversation state from the cached one.
+     */
+    public synchronized void merge(String conversationId, Func1<ChatConversationBase, ChatConversationBase> function) {
+        if (maxSize > 0) {
+            ChatConversationBase cached = conversations.get(conversationId);
+            if (cached != null) {
+                ChatConversationBase merged = function.call(cached);
+                if (merged != null) {
+                    conversations.put(conversationId, merged);
+                } else {
+                    conversations.remove(conversationId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes conversation from the cache.
+     *
+     * @param conversationId Unique conversation id.
+     */
+    public synchronized void remove(String conversationId) {
+        conversations.remove(conversationId);
+    }
+
+    /**
+     * Removes all conversations from the cache.
+     */
+    public synchronized void clear() {
+        conversations.clear();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.internal;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Subscription;
+
+/**
+ * Collects ids of messages to be marked as delivered and sends them in batches, one per conversation. Batch is sent when the time window from the first collected id passes or when the conversation batch reaches the size limit.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class DeliveryReceiptsAggregator {
+
+    /**
+     * Sends delivery receipts for a batch of messages.
+     */
+    public interface ReceiptsSender {
+
+        /**
+         * Send delivery receipts.
+         *
+         * @param conversationId Unique conversation id.
+         * @param messageIds     Ids of messages in the conversation to be marked as delivered.
+         */
+        void send(String conversationId, Set<String> messageIds);
+    }
+
+    private final ReceiptsSender sender;
+
+    private final long window;
+
+    private final int maxBatchSize;
+
+    private Map<String, Set<String>> pending;
+
+    private Subscription timer;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param sender       Sends delivery receipts batches.
+     * @param window       Time window in milliseconds to collect message ids in.
+     * @param maxBatchSize Maximum number of message ids in a single conversation batch.
+     */
+    public DeliveryReceiptsAggregator(ReceiptsSender sender, long window, int maxBatchSize) {
+        this.sender = sender;
+        this.window = window;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.pending = new HashMap<>();
+    }
+
+    /**
+     * Checks if receipts should be batched.
+     *
+     * @return True if receipts are collected over time window before sending.
+     */
+    public boolean isEnabled() {
+        return window > 0;
+    }
+
+    /**
+     * Adds message to be marked as delivered with the next batch.
+     *
+     * @param conversationId Unique conversation id.
+     * @param messageId      Unique message id.
+     */
+    public void add(String conversationId, String messageId) {
+
+        Set<String> batch = null;
+
+        synchronized (this) {
+            Set<String> ids = pending.get(conversationId);
+            if (ids == null) {
+                ids = new HashSet<>();
+                pending.put(conversationId, ids);
+            }
+            ids.add(messageId);
+            if (ids.size() >= maxBatchSize) {
+                batch = pending.remove(conversationId);
+            } else if (timer == null) {
+                timer = Observable.timer(window, TimeUnit.MILLISECONDS).subscribe(tick -> flush(), error -> flush());
+            }
+        }
+
+        if (batch != null) {
+            sender.send(conversationId, batch);
+        }
+    }
+
+    /**
+     * Sends all collected receipts immediately.
+     */
+    public void flush() {
+        for (Map.Entry<String, Set<String>> entry : drain().entrySet()) {
+            sender.send(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Removes all collected receipts without sending them, so the caller can send them and wait for the result.
+     *
+     * @return Collected message ids with conversation ids as keys.
+     */
+    public Map<String, Set<String>> drain() {
+
+        Map<String, Set<String>> batches;
+
+        synchronized (this) {
+            batches = pending;
+            pending = new HashMap<>();
+            if (timer != null) {
+                timer.unsubscribe();
+                timer = null;
+            }
+        }
+
+        return batches;
+    }
+}
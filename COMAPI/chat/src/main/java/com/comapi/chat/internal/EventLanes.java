@@ -0,0 +1,255 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subjects.AsyncSubject;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+/**
+ * Executes tasks on a fixed number of serial lanes. Tasks with the same key are always executed on the same lane, one after another in the order they were queued. Tasks with keys assigned to different lanes run in parallel.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class EventLanes {
+
+    private final Lane[] lanes;
+
+    /**
+     * Results of queued tasks that haven't finished yet with the lanes they have been queued in.
+     */
+    private final Map<Subject<?, ?>, Set<Lane>> pending;
+
+    private boolean isShutdown;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param count Number of serial lanes.
+     */
+    public EventLanes(int count) {
+        lanes = new Lane[Math.max(1, count)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i);
+        }
+        pending = new HashMap<>();
+    }
+
+    /**
+     * Queues a task for execution on a serial lane assigned to the key. The task is queued when the returned observable is subscribed, tasks are executed in order of subscriptions, the next task in the lane is subscribed when the previous one terminates.
+     * Tasks queued after {@link EventLanes#shutdown()} are not serialised.
+     *
+     * @param key  Key to assign the lane e.g. conversation id.
+     * @param task Task to execute.
+     * @param <T>  Type of emitted results.
+     * @return Observable emitting results of the task after it has been executed on the lane.
+     */
+    public <T> Observable<T> serialise(String key, Observable<T> task) {
+        return serialise(Collections.singletonList(key), task);
+    }
+
+    /**
+     * Queues a task for execution on all serial lanes assigned to the keys. The task is queued when the returned observable is subscribed. It is executed when it reaches the front of every one of these lanes and the lanes wait for it to finish, so it is serialised with the tasks of all the keys.
+     * Tasks queued after {@link EventLanes#shutdown()} are not serialised.
+     *
+     * @param keys Keys to assign the lanes e.g. conversation ids.
+     * @param task Task to execute.
+     * @param <T>  Type of emitted results.
+     * @return Observable emitting results of the task after it has been executed on the lanes.
+     */
+    public <T> Observable<T> serialise(Collection<String> keys, Observable<T> task) {
+        return Observable.defer(() -> {
+
+            final Set<Lane> involved = new LinkedHashSet<>();
+            for (String key : keys) {
+                involved.add(lane(key));
+            }
+            if (involved.isEmpty()) {
+                involved.add(lane(null));
+            }
+
+            final Subject<List<T>, List<T>> result = AsyncSubject.<List<T>>create().toSerialized();
+
+            if (!queue(involved, task, result)) {
+                return task;
+            }
+
+            return result.flatMapIterable(results -> results);
+        });
+    }
+
+    /**
+     * Queues a task in the lanes.
+     *
+     * @param involved Lanes to queue the task in.
+     * @param task     Task to execute.
+     * @param result   Subject receiving results of the task.
+     * @param <T>      Type of emitted results.
+     * @return False if the lanes have been shut down and the task has not been queued.
+     */
+    private synchronized <T> boolean queue(final Set<Lane> involved, final Observable<T> task, final Subject<List<T>, List<T>> result) {
+
+        if (isShutdown) {
+            return false;
+        }
+
+        pending.put(result, involved);
+
+        final AtomicInteger waiting = new AtomicInteger(involved.size());
+
+        // Tasks spanning multiple lanes are queued in the same order in every lane, otherwise two of them could wait for each other
+        for (Lane lane : involved) {
+            lane.depth.incrementAndGet();
+            lane.tasks.onNext(Observable.defer(() -> {
+                if (waiting.decrementAndGet() == 0) {
+                    // The last lane to reach the task executes it, the other lanes wait for the result
+                    task.toList()
+                            .subscribeOn(lane.scheduler)
+                            .doOnTerminate(() -> release(result))
+                            .subscribe(result);
+                }
+                return result.ignoreElements()
+                        .cast(Object.class)
+                        .onErrorResumeNext(Observable.empty());
+            }));
+        }
+
+        return true;
+    }
+
+    /**
+     * Marks task as executed.
+     *
+     * @param result Subject receiving results of the task.
+     */
+    private synchronized void release(Subject<?, ?> result) {
+        Set<Lane> involved = pending.remove(result);
+        if (involved != null) {
+            for (Lane lane : involved) {
+                lane.depth.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Stops all lanes. Tasks waiting in the lanes are dropped and observables returned for the tasks that haven't finished yet emit {@link IllegalStateException}.
+     */
+    public void shutdown() {
+
+        final List<Subject<?, ?>> dropped;
+
+        synchronized (this) {
+            isShutdown = true;
+            for (Lane lane : lanes) {
+                lane.shutdown();
+            }
+            dropped = new ArrayList<>(pending.keySet());
+            pending.clear();
+        }
+
+        for (Subject<?, ?> result : dropped) {
+            result.onError(new IllegalStateException("Event lanes have been shut down."));
+        }
+    }
+
+    /**
+     * Gets number of tasks waiting for execution or being executed in all lanes.
+     *
+     * @return Number of queued tasks.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += lane.depth.get();
+        }
+        return depth;
+    }
+
+    /**
+     * Gets number of tasks waiting for execution or being executed in the lane assigned to the key.
+     *
+     * @param key Key to assign the lane e.g. conversation id.
+     * @return Number of queued tasks.
+     */
+    public int getQueueDepth(String key) {
+        return lane(key).depth.get();
+    }
+
+    /**
+     * Gets lane assigned to the key.
+     *
+     * @param key Key to assign the lane e.g. conversation id.
+     * @return Serial lane.
+     */
+    private Lane lane(String key) {
+        return lanes[key != null ? (key.hashCode() & Integer.MAX_VALUE) % lanes.length : 0];
+    }
+
+    /**
+     * Serial lane.
+     */
+    private static class Lane {
+
+        private final ExecutorService executor;
+
+        private final Scheduler scheduler;
+
+        private final Subject<Observable<Object>, Observable<Object>> tasks;
+
+        private final Subscription subscription;
+
+        private final AtomicInteger depth;
+
+        Lane(final int index) {
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "comapi-chat-events-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler = Schedulers.from(executor);
+            this.tasks = PublishSubject.<Observable<Object>>create().toSerialized();
+            this.subscription = tasks.onBackpressureBuffer().concatMap(task -> task).subscribe();
+            this.depth = new AtomicInteger(0);
+        }
+
+        void shutdown() {
+            subscription.unsubscribe();
+            executor.shutdown();
+            depth.set(0);
+        }
+    }
+}
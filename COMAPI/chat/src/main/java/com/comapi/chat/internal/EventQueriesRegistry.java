@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rx.Observable;
+
+/**
+ * Registry of conversation event queries in progress. Query for events already being fetched joins the query in progress instead of making a new one. Query partially overlapping with queries in progress fetches only the events not covered by them.
+ *
+ * @param <T> Type of query result.
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class EventQueriesRegistry<T> {
+
+    /**
+     * Queries conversation events.
+     *
+     * @param <T> Type of query result.
+     */
+    public interface Fetcher<T> {
+
+        /**
+         * Query conversation events.
+         *
+         * @param from  Conversation event id to start from.
+         * @param limit Number of events to query.
+         * @return Observable with query result.
+         */
+        Observable<T> fetch(long from, int limit);
+    }
+
+    /**
+     * Result of a query covering part of the requested range of events.
+     *
+     * @param <T> Type of query result.
+     */
+    public static class Part<T> {
+
+        /**
+         * Conversation event id the query started from.
+         */
+        public final long from;
+
+        /**
+         * Number of events queried.
+         */
+        public final int limit;
+
+        /**
+         * True if the query was made for a different caller. The other caller may be processing the same result at the same time, so processing must be idempotent.
+         * Don't rely on the other caller having processed it, it may unsubscribe or fail to save the result.
+         */
+        public final boolean isShared;
+
+        /**
+         * Query result.
+         */
+        public final T result;
+
+        Part(long from, int limit, boolean isShared, T result) {
+            this.from = from;
+            this.limit = limit;
+            this.isShared = isShared;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Query in progress for a range of events.
+     */
+    private class Entry {
+
+        final long from;
+        final long to;
+        Observable<T> result;
+
+        Entry(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Queries in progress per conversation, sorted by the first event id. Ranges of the queries do not overlap.
+     */
+    private final Map<String, List<Entry>> inFlight;
+
+    public EventQueriesRegistry() {
+        inFlight = new HashMap<>();
+    }
+
+    /**
+     * Query conversation events joining queries in progress for the same events.
+     *
+     * @param conversationId Unique conversation id.
+     * @param from           Conversation event id to start from.
+     * @param limit          Number of events to query.
+     * @param fetcher        Makes the query for events not covered by queries in progress.
+     * @return Observable emitting query results covering the requested range, in the order of event ids.
+     */
+    public Observable<Part<T>> query(final String conversationId, final long from, final int limit, final Fetcher<T> fetcher) {
+
+        if (limit <= 0) {
+            return fetcher.fetch(from, limit).map(result -> new Part<>(from, limit, false, result));
+        }
+
+        // Queries are registered on subscription, so queries never subscribed to are not joined by other callers
+        return Observable.defer(() -> {
+
+            final long end = from + limit;
+            final List<Observable<Part<T>>> parts = new ArrayList<>();
+
+            synchronized (inFlight) {
+
+                List<Entry> entries = inFlight.get(conversationId);
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                    inFlight.put(conversationId, entries);
+                }
+
+                long cursor = from;
+                int i = 0;
+                while (i < entries.size() && cursor < end) {
+                    final Entry entry = entries.get(i);
+                    if (entry.to <= cursor) {
+                        i++;
+                        continue;
+                    }
+                    if (entry.from >= end) {
+                        break;
+                    }
+                    if (entry.from > cursor) {
+                        parts.add(register(conversationId, entries, i, cursor, entry.from, fetcher));
+                        i++;
+                    }
+                    // Shared part is reported only for the requested range, the query in progress may start before or end after it
+                    final long partFrom = Math.max(cursor, entry.from);
+                    final int partLimit = (int) (Math.min(end, entry.to) - partFrom);
+                    parts.add(entry.result.map(result -> new Part<>(partFrom, partLimit, true, result)));
+                    cursor = entry.to;
+                    i++;
+                }
+                if (cursor < end) {
+                    parts.add(register(conversationId, entries, i, cursor, end, fetcher));
+                }
+            }
+
+            return parts.size() == 1 ? parts.get(0) : Observable.concatEager(parts);
+        });
+    }
+
+    /**
+     * Registers new query in progress. Should be called while holding the lock. Query is removed from the registry when it finishes or when all callers unsubscribe from it.
+     */
+    private Observable<Part<T>> register(final String conversationId, final List<Entry> entries, final int index, final long from, final long to, final Fetcher<T> fetcher) {
+
+        final Entry entry = new Entry(from, to);
+        final int limit = (int) (to - from);
+        entry.result = fetcher.fetch(from, limit)
+                .doOnTerminate(() -> unregister(conversationId, entry))
+                .doOnUnsubscribe(() -> unregister(conversationId, entry))
+                .replay()
+                .refCount();
+        entries.add(index, entry);
+        return entry.result.map(result -> new Part<>(from, limit, false, result));
+    }
+
+    private void unregister(String conversationId, Entry entry) {
+        synchronized (inFlight) {
+            List<Entry> entries = inFlight.get(conversationId);
+            if (entries != null) {
+                entries.remove(entry);
+                if (entries.isEmpty()) {
+                    inFlight.remove(conversationId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets number of queries in progress.
+     *
+     * @return Number of queries in progress across all conversations.
+     */
+    public int getQueriesInProgress() {
+        int count = 0;
+        synchronized (inFlight) {
+            for (List<Entry> entries : inFlight.values()) {
+                count += entries.size();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.internal;
+
+import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.LocalMessageStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-memory cache of the highest 'delivered' or 'read' status per message and participant committed to {@link com.comapi.chat.model.ChatStore}.
+ * Used to drop status updates that don't advance the message state, e.g. the same status received from the socket, message query and events query. Least recently used messages are evicted first.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class MessageStatusCache {
+
+    private final int maxSize;
+
+    private final LinkedHashMap<String, Map<String, LocalMessageStatus>> messages;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param maxSize Maximum number of messages with cached statuses. Cache is disabled if not positive.
+     */
+    public MessageStatusCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.messages = new LinkedHashMap<String, Map<String, LocalMessageStatus>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, LocalMessageStatus>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Filters out statuses that don't advance the message state for the participant, including statuses superseded by earlier statuses in the list.
+     * Statuses are not recorded, call {@link MessageStatusCache#onSaved(List)} once the returned statuses are committed to the store.
+     *
+     * @param statuses Status updates to be saved.
+     * @return Status updates that should be saved in the store.
+     */
+    public synchronized List<ChatMessageStatus> filter(List<ChatMessageStatus> statuses) {
+
+        if (maxSize <= 0) {
+            return statuses;
+        }
+
+        Map<String, Map<String, LocalMessageStatus>> filtered = new HashMap<>();
+        List<ChatMessageStatus> result = new ArrayList<>(statuses.size());
+        for (ChatMessageStatus status : statuses) {
+            if (advances(status, filtered)) {
+                result.add(status);
+                put(filtered, status);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks if the status advances the message state for the participant. Status is not recorded, call {@link MessageStatusCache#onSaved(ChatMessageStatus)} once it is committed to the store.
+     *
+     * @param status Status update to be saved.
+     * @return True if the status should be saved in the store.
+     */
+    public synchronized boolean filter(ChatMessageStatus status) {
+        return maxSize <= 0 || advances(status, null);
+    }
+
+    /**
+     * Records statuses committed to the store.
+     *
+     * @param statuses Saved status updates.
+     */
+    public synchronized void onSaved(List<ChatMessageStatus> statuses) {
+        if (maxSize > 0) {
+            for (ChatMessageStatus status : statuses) {
+                if (advances(status, null)) {
+                    put(messages, status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records status committed to the store.
+     *
+     * @param status Saved status update.
+     */
+    public synchronized void onSaved(ChatMessageStatus status) {
+        if (maxSize > 0 && advances(status, null)) {
+            put(messages, status);
+        }
+    }
+
+    /**
+     * Removes cached statuses of a message, e.g. when the message has been replaced in the store.
+     *
+     * @param messageId Unique message id.
+     */
+    public synchronized void invalidate(String messageId) {
+        messages.remove(messageId);
+    }
+
+    /**
+     * Removes cached statuses of messages.
+     *
+     * @param messageIds Unique message ids.
+     */
+    public synchronized void invalidate(Collection<String> messageIds) {
+        for (String messageId : messageIds) {
+            messages.remove(messageId);
+        }
+    }
+
+    /**
+     * Clears cached statuses.
+     */
+    public synchronized void clear() {
+        messages.clear();
+    }
+
+    /**
+     * Checks if the status advances the message state for the participant recorded in the cache and in statuses filtered so far.
+     *
+     * @param status   Status update.
+     * @param filtered Statuses filtered so far or null.
+     * @return True if the status advances the message state.
+     */
+    private boolean advances(ChatMessageStatus status, Map<String, Map<String, LocalMessageStatus>> filtered) {
+
+        LocalMessageStatus value = status.getMessageStatus();
+        if (status.getMessageId() == null || status.getProfileId() == null || (value != LocalMessageStatus.delivered && value != LocalMessageStatus.read)) {
+            return true;
+        }
+
+        return isHigher(status, messages.get(status.getMessageId())) && (filtered == null || isHigher(status, filtered.get(status.getMessageId())));
+    }
+
+    private static boolean isHigher(ChatMessageStatus status, Map<String, LocalMessageStatus> profiles) {
+        LocalMessageStatus saved = profiles != null ? profiles.get(status.getProfileId()) : null;
+        return saved == null || saved.getValue() < status.getMessageStatus().getValue();
+    }
+
+    private static void put(Map<String, Map<String, LocalMessageStatus>> messages, ChatMessageStatus status) {
+
+        LocalMessageStatus value = status.getMessageStatus();
+        if (status.getMessageId() == null || status.getProfileId() == null || (value != LocalMessageStatus.delivered && value != LocalMessageStatus.read)) {
+            return;
+        }
+
+        Map<String, LocalMessageStatus> profiles = messages.get(status.getMessageId());
+        if (profiles == null) {
+            profiles = new HashMap<>(4);
+            messages.put(status.getMessageId(), profiles);
+        }
+        profiles.put(status.getProfileId(), value);
+    }
+}
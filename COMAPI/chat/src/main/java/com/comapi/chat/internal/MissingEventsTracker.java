@@ -21,11 +21,16 @@
 package com.comapi.chat.internal;
 
 import java.util.Map;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Observable;
 
 /**
  * Tracks last conversation events and looks for gaps in monotonically increasing conversation event ids.
+ * Gaps are kept per conversation as ranges of missing ids. Missing events are reported after a grace period, so events arriving slightly out of order do not trigger a query.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
@@ -36,42 +41,291 @@ public class MissingEventsTracker {
         void missingEvents(String conversationId, long from, int limit);
     }
 
-    private Map<String, TreeSet<Long>> idsPerConversation;
+    /**
+     * Default time in milliseconds after which conversation with no open gaps and no new events is no longer tracked.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 15 * 60 * 1000;
+
+    /**
+     * Max number of open gaps per conversation. Above this limit the lowest gaps are merged into one.
+     */
+    private static final int MAX_GAPS = 32;
 
+    private final ConcurrentMap<String, Gaps> idsPerConversation;
+
+    private final long gracePeriod;
+
+    private final long idleTimeout;
+
+    private final AtomicLong lastEviction;
+
+    /**
+     * Constructor of a tracker reporting missing events immediately.
+     */
     public MissingEventsTracker() {
-        idsPerConversation = new ConcurrentHashMap<>();
+        this(0, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param gracePeriod Time in milliseconds to wait for missing events before they are reported.
+     * @param idleTimeout Time in milliseconds after which conversation with no open gaps and no new events is no longer tracked.
+     */
+    public MissingEventsTracker(long gracePeriod, long idleTimeout) {
+        this.idsPerConversation = new ConcurrentHashMap<>();
+        this.gracePeriod = gracePeriod;
+        this.idleTimeout = idleTimeout;
+        this.lastEviction = new AtomicLong(System.currentTimeMillis());
     }
 
     /**
      * Check conversation event id for duplicates or missing events.
      *
-     * @param conversationId      Unique identifier of an conversation.
-     * @param conversationEventId Unique per conversation, monotonically increasing conversation event id.
+     * @param conversationId        Unique identifier of an conversation.
+     * @param conversationEventId   Unique per conversation, monotonically increasing conversation event id.
+     * @param missingEventsListener Listener to notify about missing events.
      * @return True if event with a given id already processed.
      */
     public boolean checkEventId(String conversationId, long conversationEventId, MissingEventsListener missingEventsListener) {
 
-        if (!idsPerConversation.containsKey(conversationId)) {
-            TreeSet<Long> ids = new TreeSet<>();
-            boolean added = ids.add(conversationEventId);
-            idsPerConversation.put(conversationId, ids);
-            return !added;
-        } else {
+        final long now = System.currentTimeMillis();
+        evictIdle(now);
+
+        Gaps gaps = idsPerConversation.get(conversationId);
+        if (gaps == null) {
+            Gaps created = new Gaps();
+            gaps = idsPerConversation.putIfAbsent(conversationId, created);
+            if (gaps == null) {
+                gaps = created;
+            }
+        }
+
+        boolean added;
+        long[] range = null;
+        boolean schedule = false;
+
+        synchronized (gaps) {
+            gaps.lastActive = now;
+            added = gaps.add(conversationEventId, now);
+            if (gracePeriod <= 0) {
+                range = gaps.poll(now);
+            } else if (gaps.count > 0 && !gaps.isScheduled) {
+                gaps.isScheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (range != null) {
+            missingEventsListener.missingEvents(conversationId, range[0], (int) (range[1] - range[0]));
+        }
+        if (schedule) {
+            schedule(conversationId, gaps, now, missingEventsListener);
+        }
+
+        return !added;
+    }
+
+    /**
+     * Schedules a check for gaps for which the grace period has passed.
+     */
+    private void schedule(final String conversationId, final Gaps gaps, final long now, final MissingEventsListener missingEventsListener) {
+
+        long delay;
+        synchronized (gaps) {
+            delay = Math.max(0, gaps.openedAt[0] + gracePeriod - now);
+        }
+        Observable.timer(delay, TimeUnit.MILLISECONDS).subscribe(tick -> onGracePeriodElapsed(conversationId, gaps, missingEventsListener), error -> onGracePeriodElapsed(conversationId, gaps, missingEventsListener));
+    }
+
+    /**
+     * Reports gaps for which the grace period has passed and schedules next check if there are still some gaps left open.
+     */
+    private void onGracePeriodElapsed(final String conversationId, final Gaps gaps, final MissingEventsListener missingEventsListener) {
+
+        final long now = System.currentTimeMillis();
+        long[] range;
+        boolean schedule;
+
+        synchronized (gaps) {
+            range = gaps.poll(now - gracePeriod);
+            schedule = gaps.count > 0;
+            gaps.isScheduled = schedule;
+        }
+
+        if (range != null) {
+            missingEventsListener.missingEvents(conversationId, range[0], (int) (range[1] - range[0]));
+        }
+        if (schedule) {
+            schedule(conversationId, gaps, now, missingEventsListener);
+        }
+    }
+
+    /**
+     * Stops tracking conversations with no open gaps and no new events for longer than idle timeout. Checks at most once per idle timeout.
+     */
+    private void evictIdle(long now) {
+
+        long last = lastEviction.get();
+        if (now - last < idleTimeout || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+
+        for (Map.Entry<String, Gaps> entry : idsPerConversation.entrySet()) {
+            Gaps gaps = entry.getValue();
+            synchronized (gaps) {
+                if (gaps.count == 0 && now - gaps.lastActive > idleTimeout) {
+                    idsPerConversation.remove(entry.getKey(), gaps);
+                }
+            }
+        }
+    }
+
+    /**
+     * Open gaps in a single conversation. Gaps are sorted, disjoint ranges of missing event ids. Ranges are opened in increasing id order so the time at which they were opened is never decreasing.
+     * Access should be synchronised on the instance.
+     */
+    private static final class Gaps {
+
+        long[] starts = new long[4];
+
+        long[] ends = new long[4];
+
+        long[] openedAt = new long[4];
+
+        int count;
+
+        boolean hasEvents;
+
+        long lowest;
+
+        long highest;
+
+        long lastActive;
 
-            TreeSet<Long> ids = idsPerConversation.get(conversationId);
+        boolean isScheduled;
 
-            long last = ids.last();
-            boolean added = ids.add(conversationEventId);
+        /**
+         * Registers received event id.
+         *
+         * @param id  Conversation event id.
+         * @param now Current time.
+         * @return True if event id was not received before.
+         */
+        boolean add(long id, long now) {
 
-            if (last < conversationEventId - 1) {
-                missingEventsListener.missingEvents(conversationId, last + 1, (int) (conversationEventId - last));
+            if (!hasEvents) {
+                hasEvents = true;
+                lowest = id;
+                highest = id;
+                return true;
+            } else if (id > highest) {
+                if (id > highest + 1) {
+                    append(highest + 1, id - 1, now);
+                }
+                highest = id;
+                return true;
+            } else if (id < lowest) {
+                lowest = id;
+                return true;
             }
 
-            while (ids.size() > 10) {
-                ids.pollFirst();
+            int i = find(id);
+            if (i < 0) {
+                return false;
             }
 
-            return !added;
+            if (starts[i] == ends[i]) {
+                remove(i, 1);
+            } else if (id == starts[i]) {
+                starts[i]++;
+            } else if (id == ends[i]) {
+                ends[i]--;
+            } else {
+                insert(i + 1, id + 1, ends[i], openedAt[i]);
+                ends[i] = id - 1;
+            }
+            return true;
+        }
+
+        /**
+         * Removes gaps opened before deadline and merges them into a single range.
+         *
+         * @param deadline Gaps opened at or before this time are removed.
+         * @return Range of event ids to query, from inclusive to exclusive, or null if there are no such gaps. Range includes the received event that closed the last gap.
+         */
+        long[] poll(long deadline) {
+
+            int k = 0;
+            while (k < count && openedAt[k] <= deadline) {
+                k++;
+            }
+            if (k == 0) {
+                return null;
+            }
+
+            long[] range = new long[]{starts[0], ends[k - 1] + 2};
+            remove(0, k);
+            return range;
+        }
+
+        /**
+         * Binary search for the gap containing event id.
+         *
+         * @return Index of the gap or -1.
+         */
+        private int find(long id) {
+
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (ends[mid] < id) {
+                    low = mid + 1;
+                } else if (starts[mid] > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        private void append(long start, long end, long now) {
+            if (count == MAX_GAPS) {
+                ends[0] = ends[1];
+                remove(1, 1);
+            }
+            insert(count, start, end, now);
+        }
+
+        private void insert(int i, long start, long end, long time) {
+            if (count == starts.length) {
+                int capacity = count * 2;
+                starts = copyOf(starts, capacity);
+                ends = copyOf(ends, capacity);
+                openedAt = copyOf(openedAt, capacity);
+            }
+            System.arraycopy(starts, i, starts, i + 1, count - i);
+            System.arraycopy(ends, i, ends, i + 1, count - i);
+            System.arraycopy(openedAt, i, openedAt, i + 1, count - i);
+            starts[i] = start;
+            ends[i] = end;
+            openedAt[i] = time;
+            count++;
+        }
+
+        private void remove(int i, int n) {
+            System.arraycopy(starts, i + n, starts, i, count - i - n);
+            System.arraycopy(ends, i + n, ends, i, count - i - n);
+            System.arraycopy(openedAt, i + n, openedAt, i, count - i - n);
+            count -= n;
+        }
+
+        private static long[] copyOf(long[] array, int length) {
+            long[] copy = new long[length];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            return copy;
         }
     }
-}
\ No newline at end of file
+}
@@ -152,6 +152,26 @@ public class ChatConversation extends ChatConversationBase {
             return this;
         }
 
+        public Builder setDescription(String description) {
+            conversation.description = description;
+            return this;
+        }
+
+        public Builder setOwnerPrivileges(Role ownerRoles) {
+            conversation.ownerRoles = ownerRoles;
+            return this;
+        }
+
+        public Builder setParticipantPrivileges(Role participantRoles) {
+            conversation.participantRoles = participantRoles;
+            return this;
+        }
+
+        public Builder setPublic(boolean isPublic) {
+            conversation.isPublic = isPublic;
+            return this;
+        }
+
         public ChatConversation build() {
             return conversation;
         }
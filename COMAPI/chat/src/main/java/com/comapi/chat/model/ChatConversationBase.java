@@ -188,6 +188,30 @@ public class ChatConversationBase {
             return this;
         }
 
+        /**
+         * Merges event ids and update time into the conversation state. Watermarks only move outwards, oldest local event id can only decrease, latest event ids and update time can only increase.
+         *
+         * @param firstLocalEventId Oldest conversation event id known by the app or null if unchanged.
+         * @param lastLocalEventId  Latest conversation event id known by the app or null if unchanged.
+         * @param lastRemoteEventId Latest conversation event id or null if unchanged.
+         * @param updatedOn         Date on which the conversation was updated or null if unchanged.
+         * @return Builder instance.
+         */
+        public Builder mergeWatermarks(Long firstLocalEventId, Long lastLocalEventId, Long lastRemoteEventId, Long updatedOn) {
+            if (firstLocalEventId != null && firstLocalEventId >= 0) {
+                Long saved = this.conversation.firstLocalEventId;
+                this.conversation.firstLocalEventId = saved == null || saved < 0 ? firstLocalEventId : Math.min(saved, firstLocalEventId);
+            }
+            this.conversation.lastLocalEventId = max(this.conversation.lastLocalEventId, lastLocalEventId);
+            this.conversation.latestRemoteEventId = max(this.conversation.latestRemoteEventId, lastRemoteEventId);
+            this.conversation.updatedOn = max(this.conversation.updatedOn, updatedOn);
+            return this;
+        }
+
+        private static Long max(Long saved, Long value) {
+            return saved == null || (value != null && value > saved) ? value : saved;
+        }
+
         public Builder populate(ChatConversationBase conversation) {
             this.conversation.conversationId = conversation.conversationId;
             this.conversation.latestRemoteEventId = conversation.latestRemoteEventId;
@@ -20,7 +20,6 @@
 
 package com.comapi.chat.model;
 
-import android.annotation.SuppressLint;
 import android.support.annotation.NonNull;
 
 import com.comapi.internal.helpers.DateHelper;
@@ -28,9 +27,10 @@ import com.comapi.internal.network.model.events.conversation.message.MessageSent
 import com.comapi.internal.network.model.messaging.MessageReceived;
 import com.comapi.internal.network.model.messaging.Part;
 import com.comapi.internal.network.model.messaging.Sender;
+import com.google.gson.annotations.JsonAdapter;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -80,7 +80,8 @@ public class ChatMessage implements Comparable<ChatMessage> {
     /**
      * Message statuses 'delivered' or 'read' for particular participants.
      */
-    private Map<Integer, ChatMessageStatus> statusUpdates;
+    @JsonAdapter(MessageStatuses.GsonAdapterFactory.class)
+    private MessageStatuses statusUpdates;
 
     /**
      * Message custom metadata.
@@ -151,12 +152,12 @@ public class ChatMessage implements Comparable<ChatMessage> {
     }
 
     /**
-     * Message statuses 'delivered' or 'read' for particular participants.
+     * Message statuses 'delivered' or 'read' for particular participants. Use {@link ChatMessage#addStatusUpdate(ChatMessageStatus)} to update statuses.
      *
-     * @return Message statuses 'delivered' or 'read' for particular participants.
+     * @return Unmodifiable view of message statuses 'delivered' or 'read' for particular participants.
      */
     public Collection<ChatMessageStatus> getStatusUpdates() {
-        return statusUpdates.values();
+        return statusUpdates != null ? Collections.unmodifiableCollection(statusUpdates) : null;
     }
 
     /**
@@ -169,17 +170,15 @@ public class ChatMessage implements Comparable<ChatMessage> {
     }
 
     /**
-     * Update status list with a new status.
+     * Update status list with a new status. Replaces previous status of the same type for the same participant.
      *
      * @param status New message status details.
      */
-    @SuppressLint("UseSparseArrays")
     public void addStatusUpdate(ChatMessageStatus status) {
-        int unique = (status.getMessageId() + status.getProfileId() + status.getMessageStatus().name()).hashCode();
         if (statusUpdates == null) {
-            statusUpdates = new HashMap<>();
+            statusUpdates = new MessageStatuses();
         }
-        statusUpdates.put(unique, status);
+        statusUpdates.add(status);
     }
 
     /**
@@ -200,7 +199,7 @@ public class ChatMessage implements Comparable<ChatMessage> {
 
         Builder() {
             message = new ChatMessage();
-            message.statusUpdates = new HashMap<>();
+            message.statusUpdates = new MessageStatuses();
         }
 
         public ChatMessage build() {
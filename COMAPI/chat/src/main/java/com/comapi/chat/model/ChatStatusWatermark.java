@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.model;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Message statuses of a single participant in a conversation, stored as the highest conversation event ids of messages the participant has received and read.
+ * Every message of other participants sent up to the watermark has the status, so a single watermark replaces status entries of all those messages. Watermark moves only over contiguous messages, statuses of messages after a gap are kept per message. See {@link ChatStatusWatermark#getStatus(ChatMessage)} to derive the status of a particular message.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class ChatStatusWatermark {
+
+    private String conversationId;
+
+    private String profileId;
+
+    /**
+     * Highest conversation event id of a message delivered to the participant or -1.
+     */
+    private long deliveredUpTo = -1L;
+
+    /**
+     * Highest conversation event id of a message read by the participant or -1.
+     */
+    private long readUpTo = -1L;
+
+    /**
+     * Time when the watermark was last moved.
+     */
+    private long updatedOn;
+
+    private ChatStatusWatermark() {
+
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public String getProfileId() {
+        return profileId;
+    }
+
+    /**
+     * Highest conversation event id of a message delivered to the participant. Read messages are also delivered.
+     *
+     * @return Conversation event id or -1 if no message has been delivered.
+     */
+    public long getDeliveredUpTo() {
+        return Math.max(deliveredUpTo, readUpTo);
+    }
+
+    /**
+     * Highest conversation event id of a message read by the participant.
+     *
+     * @return Conversation event id or -1 if no message has been read.
+     */
+    public long getReadUpTo() {
+        return readUpTo;
+    }
+
+    /**
+     * Time when the watermark was last moved.
+     *
+     * @return Time in milliseconds.
+     */
+    public long getUpdatedOn() {
+        return updatedOn;
+    }
+
+    /**
+     * Derives the participant's status of a message.
+     *
+     * @param message Message in the same conversation.
+     * @return Message status or null if the message hasn't been delivered to the participant, was sent by the participant or its sent event id is unknown.
+     */
+    @Nullable
+    public ChatMessageStatus getStatus(@NonNull ChatMessage message) {
+        Long sentEventId = message.getSentEventId();
+        if (sentEventId == null || sentEventId < 0) {
+            return null;
+        }
+        if (message.getFromWhom() != null && profileId != null && profileId.equals(message.getFromWhom().getId())) {
+            return null;
+        }
+        LocalMessageStatus status;
+        if (sentEventId <= readUpTo) {
+            status = LocalMessageStatus.read;
+        } else if (sentEventId <= getDeliveredUpTo()) {
+            status = LocalMessageStatus.delivered;
+        } else {
+            return null;
+        }
+        return ChatMessageStatus.builder().populate(conversationId, message.getMessageId(), profileId, status, updatedOn, null).build();
+    }
+
+    /**
+     * Combines two watermarks of the same participant. Watermarks never move back, the result has the higher event ids of the two.
+     *
+     * @param watermark Watermark to combine with or null.
+     * @return Combined watermark.
+     */
+    public ChatStatusWatermark merge(@Nullable ChatStatusWatermark watermark) {
+        if (watermark == null) {
+            return this;
+        }
+        return builder()
+                .populate(conversationId, profileId, Math.max(deliveredUpTo, watermark.deliveredUpTo), Math.max(readUpTo, watermark.readUpTo), Math.max(updatedOn, watermark.updatedOn))
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        ChatStatusWatermark watermark;
+
+        Builder() {
+            watermark = new ChatStatusWatermark();
+        }
+
+        public ChatStatusWatermark build() {
+            return watermark;
+        }
+
+        public Builder populate(String conversationId, String profileId, long deliveredUpTo, long readUpTo, long updatedOn) {
+            watermark.conversationId = conversationId;
+            watermark.profileId = profileId;
+            watermark.deliveredUpTo = deliveredUpTo;
+            watermark.readUpTo = readUpTo;
+            watermark.updatedOn = updatedOn;
+            return this;
+        }
+
+        /**
+         * Moves the watermark up to the message with given status.
+         *
+         * @param sentEventId Conversation event id of the message.
+         * @param status      Message status.
+         * @param updatedOn   Time when the status was set.
+         * @return Builder instance.
+         */
+        public Builder add(long sentEventId, LocalMessageStatus status, long updatedOn) {
+            if (status == LocalMessageStatus.read) {
+                watermark.readUpTo = Math.max(watermark.readUpTo, sentEventId);
+            } else if (status == LocalMessageStatus.delivered) {
+                watermark.deliveredUpTo = Math.max(watermark.deliveredUpTo, sentEventId);
+            }
+            watermark.updatedOn = Math.max(watermark.updatedOn, updatedOn);
+            return this;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "conversationId=" + conversationId + " profileId=" + profileId + " deliveredUpTo=" + getDeliveredUpTo() + " readUpTo=" + readUpTo;
+    }
+}
@@ -20,7 +20,11 @@
 
 package com.comapi.chat.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Top level interface for db storage.
@@ -38,6 +42,23 @@ public abstract class ChatStore {
      */
     public abstract ChatConversationBase getConversation(String conversationId);
 
+    /**
+     * Get conversations from persistence store. Default implementation calls {@link ChatStore#getConversation(String)} for each id, override to query all conversations at once.
+     *
+     * @param conversationIds Unique global conversation identifiers.
+     * @return Map of conversations from persistence store with conversation ids as keys. Conversations not found in the store are not included.
+     */
+    public Map<String, ChatConversationBase> getConversations(Collection<String> conversationIds) {
+        Map<String, ChatConversationBase> conversations = new HashMap<>();
+        for (String conversationId : conversationIds) {
+            ChatConversationBase conversation = getConversation(conversationId);
+            if (conversation != null) {
+                conversations.put(conversationId, conversation);
+            }
+        }
+        return conversations;
+    }
+
     /**
      * Get all conversations from persistence store.
      *
@@ -61,6 +82,36 @@ public abstract class ChatStore {
      */
     public abstract boolean update(ChatConversationBase conversation);
 
+    /**
+     * Merges event ids and update time into the stored conversation state. Oldest local event id is lowered and the other values are raised, values that would move the state back and null values are ignored, see {@link ChatConversationBase.Builder#mergeWatermarks(Long, Long, Long, Long)}.
+     * Default implementation reads the conversation with {@link ChatStore#getConversation(String)} and saves it with {@link ChatStore#update(ChatConversationBase)} if anything changed. Override to merge the values in a single store operation, e.g. SQL 'UPDATE ... SET lastLocalEventId = MAX(lastLocalEventId, ?)'.
+     *
+     * @param conversationId    Unique global conversation identifier.
+     * @param firstLocalEventId Oldest conversation event id known by the app or null if unchanged.
+     * @param lastLocalEventId  Latest conversation event id known by the app or null if unchanged.
+     * @param lastRemoteEventId Latest conversation event id or null if unchanged.
+     * @param updatedOn         Date on which the conversation was updated or null if unchanged.
+     * @return True if the conversation was found and operation was successful.
+     */
+    public boolean mergeWatermarks(String conversationId, Long firstLocalEventId, Long lastLocalEventId, Long lastRemoteEventId, Long updatedOn) {
+        ChatConversationBase saved = getConversation(conversationId);
+        if (saved == null) {
+            return false;
+        }
+        ChatConversationBase merged = ChatConversationBase.baseBuilder().populate(saved).mergeWatermarks(firstLocalEventId, lastLocalEventId, lastRemoteEventId, updatedOn).build();
+        if (equal(saved.getFirstLocalEventId(), merged.getFirstLocalEventId())
+                && equal(saved.getLastLocalEventId(), merged.getLastLocalEventId())
+                && equal(saved.getLastRemoteEventId(), merged.getLastRemoteEventId())
+                && equal(saved.getUpdatedOn(), merged.getUpdatedOn())) {
+            return true;
+        }
+        return update(merged);
+    }
+
+    private static boolean equal(Long a, Long b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
     /**
      * Delete conversation from persistence store.
      *
@@ -69,6 +120,20 @@ public abstract class ChatStore {
      */
     public abstract boolean deleteConversation(String conversationId);
 
+    /**
+     * Delete conversations from persistence store. Default implementation calls {@link ChatStore#deleteConversation(String)} for each id, override to delete all conversations at once.
+     *
+     * @param conversationIds Unique global conversation identifiers of conversations to delete.
+     * @return True if operation was successful.
+     */
+    public boolean deleteConversations(Collection<String> conversationIds) {
+        boolean isSuccess = true;
+        for (String conversationId : conversationIds) {
+            isSuccess = deleteConversation(conversationId) && isSuccess;
+        }
+        return isSuccess;
+    }
+
     /**
      * Insert or update message in persistence store.
      *
@@ -77,6 +142,20 @@ public abstract class ChatStore {
      */
     public abstract boolean upsert(ChatMessage message);
 
+    /**
+     * Insert or update messages in persistence store. Default implementation calls {@link ChatStore#upsert(ChatMessage)} for each message, override to save all messages at once.
+     *
+     * @param messages Messages to insert or update.
+     * @return True if operation was successful.
+     */
+    public boolean upsertMessages(List<ChatMessage> messages) {
+        boolean isSuccess = true;
+        for (ChatMessage message : messages) {
+            isSuccess = upsert(message) && isSuccess;
+        }
+        return isSuccess;
+    }
+
     /**
      * Update stored {@link ChatMessage} with a new {@link ChatMessageStatus}. The chat message is unique for a combination of messageId, profileId and {@link LocalMessageStatus} value.
      *
@@ -85,6 +164,76 @@ public abstract class ChatStore {
      */
     public abstract boolean update(ChatMessageStatus status);
 
+    /**
+     * Update stored messages with new {@link ChatMessageStatus}es. Default implementation calls {@link ChatStore#update(ChatMessageStatus)} for each status, override to save all statuses at once.
+     *
+     * @param statuses Chat message statuses to save.
+     * @return True if operation was successful.
+     */
+    public boolean updateStatuses(List<ChatMessageStatus> statuses) {
+        boolean isSuccess = true;
+        for (ChatMessageStatus status : statuses) {
+            isSuccess = update(status) && isSuccess;
+        }
+        return isSuccess;
+    }
+
+    /**
+     * Checks if the store keeps message statuses as {@link ChatStatusWatermark}s. If it does, statuses obtained from message queries and statuses set with {@link com.comapi.chat.RxChatServiceAccessor.MessagingService#markConversationAsRead(String, List)} are saved as watermarks instead of being added to every message.
+     * Default implementation returns false, override together with {@link ChatStore#update(ChatStatusWatermark)} and {@link ChatStore#getWatermarks(String)} to store watermarks.
+     *
+     * @return True if the store keeps status watermarks.
+     */
+    public boolean supportsWatermarks() {
+        return false;
+    }
+
+    /**
+     * Update message status watermark of a participant in a conversation. Watermarks never move back, implementation should keep the higher event ids of the stored and the new watermark, see {@link ChatStatusWatermark#merge(ChatStatusWatermark)}.
+     *
+     * @param watermark Message status watermark.
+     * @return True if operation was successful.
+     */
+    public boolean update(ChatStatusWatermark watermark) {
+        return false;
+    }
+
+    /**
+     * Gets message status watermarks of all participants in a conversation. Use {@link ChatStatusWatermark#getStatus(ChatMessage)} to derive statuses of the conversation messages.
+     *
+     * @param conversationId Unique conversation id.
+     * @return Status watermarks in the conversation.
+     */
+    public List<ChatStatusWatermark> getWatermarks(String conversationId) {
+        return new ArrayList<>();
+    }
+
+    /**
+     * Gets a stored message, used to find sent event id and sender of a message before moving a status watermark. Statuses don't need to be added to the message.
+     * Default implementation returns null, override if {@link ChatStore#supportsWatermarks()} returns true.
+     *
+     * @param conversationId Unique conversation id.
+     * @param messageId      Unique message id.
+     * @return Message or null if not found.
+     */
+    public ChatMessage getMessage(String conversationId, String messageId) {
+        return null;
+    }
+
+    /**
+     * Checks if any message of other participants was sent between two conversation events. A status watermark moves only over contiguous messages, so it can't skip such a message.
+     * Default implementation returns true, override if {@link ChatStore#supportsWatermarks()} returns true.
+     *
+     * @param conversationId Unique conversation id.
+     * @param afterEventId   Conversation event id after which to look for messages.
+     * @param beforeEventId  Conversation event id before which to look for messages.
+     * @param profileId      Profile id of the participant whose messages are skipped.
+     * @return True if there is at least one message between the events.
+     */
+    public boolean hasMessagesBetween(String conversationId, long afterEventId, long beforeEventId, String profileId) {
+        return true;
+    }
+
     /**
      * Delete all messages from persistence store that are related to given conversation.
      *
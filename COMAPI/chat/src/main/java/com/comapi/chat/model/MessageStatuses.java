@@ -0,0 +1,304 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.chat.model;
+
+import android.support.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Compact collection of message statuses. Keeps a single status for every participant and status type pair.
+ * Statuses are stored per participant as a bit mask of {@link LocalMessageStatus} ordinals with primitive timestamps and event ids, participants are kept sorted by interned profile id.
+ * Status objects are created only when the collection is iterated and are reused until the next change.
+ * Serialised by Gson in the same shape as the map of statuses used before 1.2.0.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+class MessageStatuses extends AbstractCollection<ChatMessageStatus> {
+
+    private static final LocalMessageStatus[] TYPES = LocalMessageStatus.values();
+
+    /**
+     * Stored in place of null timestamps and event ids.
+     */
+    private static final long NONE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 2;
+
+    private String conversationId;
+
+    private String messageId;
+
+    /**
+     * Interned profile ids in ascending order.
+     */
+    private String[] profiles;
+
+    /**
+     * Bit mask of status ordinals set for the participant with the same index.
+     */
+    private byte[] masks;
+
+    private long[] updatedOn;
+
+    private long[] eventIds;
+
+    private int participants;
+
+    private int size;
+
+    /**
+     * Statuses created by the last iteration, null after a change.
+     */
+    private ChatMessageStatus[] snapshot;
+
+    MessageStatuses() {
+        profiles = new String[INITIAL_CAPACITY];
+        masks = new byte[INITIAL_CAPACITY];
+        updatedOn = new long[INITIAL_CAPACITY * TYPES.length];
+        eventIds = new long[INITIAL_CAPACITY * TYPES.length];
+    }
+
+    /**
+     * Adds a status or replaces the one with the same participant and status type. Statuses without a status type are ignored.
+     *
+     * @param status Message status of the message owning the collection.
+     * @return True if the collection changed.
+     */
+    @Override
+    public synchronized boolean add(ChatMessageStatus status) {
+
+        final LocalMessageStatus type = status.getMessageStatus();
+        if (type == null) {
+            return false;
+        }
+
+        if (size == 0) {
+            conversationId = status.getConversationId();
+            messageId = status.getMessageId();
+        }
+
+        final String profileId = status.getProfileId() != null ? status.getProfileId().intern() : null;
+        int index = indexOf(profileId);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, profileId);
+        }
+
+        final int bit = 1 << type.ordinal();
+        if ((masks[index] & bit) == 0) {
+            masks[index] |= bit;
+            size++;
+        }
+        final int slot = index * TYPES.length + type.ordinal();
+        updatedOn[slot] = status.getUpdatedOn() != null ? status.getUpdatedOn() : NONE;
+        eventIds[slot] = status.getConversationEventId() != null ? status.getConversationEventId() : NONE;
+        snapshot = null;
+        return true;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Iterates over statuses ordered by profile id and status type. Iterator works on a snapshot of the statuses, so it is not affected by later changes.
+     *
+     * @return Iterator over message statuses.
+     */
+    @NonNull
+    @Override
+    public Iterator<ChatMessageStatus> iterator() {
+        return Arrays.asList(snapshot()).iterator();
+    }
+
+    /**
+     * Creates status objects unless they were created after the last change.
+     *
+     * @return Statuses ordered by profile id and status type.
+     */
+    private synchronized ChatMessageStatus[] snapshot() {
+        if (snapshot == null) {
+            ChatMessageStatus[] statuses = new ChatMessageStatus[size];
+            int n = 0;
+            for (int i = 0; i < participants; i++) {
+                for (int t = 0; t < TYPES.length; t++) {
+                    if ((masks[i] & (1 << t)) != 0) {
+                        final int slot = i * TYPES.length + t;
+                        statuses[n++] = ChatMessageStatus.builder().populate(conversationId, messageId, profiles[i], TYPES[t],
+                                updatedOn[slot] != NONE ? updatedOn[slot] : null, eventIds[slot] != NONE ? eventIds[slot] : null).build();
+                    }
+                }
+            }
+            snapshot = statuses;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Binary search of a participant.
+     *
+     * @param profileId Interned profile id.
+     * @return Index of the participant or (-(insertion point) - 1) if not found.
+     */
+    private int indexOf(String profileId) {
+        int low = 0;
+        int high = participants - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = compare(profiles[mid], profileId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int compare(String a, String b) {
+        if (a == b) {
+            return 0;
+        } else if (a == null) {
+            return -1;
+        } else if (b == null) {
+            return 1;
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Inserts a participant without statuses, growing the arrays if needed.
+     *
+     * @param index     Insertion point.
+     * @param profileId Interned profile id.
+     */
+    private void insert(int index, String profileId) {
+
+        String[] newProfiles = profiles;
+        byte[] newMasks = masks;
+        long[] newUpdatedOn = updatedOn;
+        long[] newEventIds = eventIds;
+
+        if (participants == profiles.length) {
+            final int capacity = participants * 2;
+            newProfiles = new String[capacity];
+            newMasks = new byte[capacity];
+            newUpdatedOn = new long[capacity * TYPES.length];
+            newEventIds = new long[capacity * TYPES.length];
+            System.arraycopy(profiles, 0, newProfiles, 0, index);
+            System.arraycopy(masks, 0, newMasks, 0, index);
+            System.arraycopy(updatedOn, 0, newUpdatedOn, 0, index * TYPES.length);
+            System.arraycopy(eventIds, 0, newEventIds, 0, index * TYPES.length);
+        }
+
+        System.arraycopy(profiles, index, newProfiles, index + 1, participants - index);
+        System.arraycopy(masks, index, newMasks, index + 1, participants - index);
+        System.arraycopy(updatedOn, index * TYPES.length, newUpdatedOn, (index + 1) * TYPES.length, (participants - index) * TYPES.length);
+        System.arraycopy(eventIds, index * TYPES.length, newEventIds, (index + 1) * TYPES.length, (participants - index) * TYPES.length);
+
+        newProfiles[index] = profileId;
+        newMasks[index] = 0;
+
+        profiles = newProfiles;
+        masks = newMasks;
+        updatedOn = newUpdatedOn;
+        eventIds = newEventIds;
+        participants++;
+    }
+
+    /**
+     * Gson adapter keeping the JSON shape of the map of statuses keyed by the hash code of message id, profile id and status name, so messages serialised by older versions can still be read.
+     * Arrays of statuses are also accepted.
+     */
+    static class GsonAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+
+            final TypeAdapter<ChatMessageStatus> statusAdapter = gson.getAdapter(ChatMessageStatus.class);
+
+            return (TypeAdapter<T>) new TypeAdapter<MessageStatuses>() {
+
+                @Override
+                public void write(JsonWriter out, MessageStatuses value) throws IOException {
+                    if (value == null) {
+                        out.nullValue();
+                        return;
+                    }
+                    out.beginObject();
+                    for (ChatMessageStatus status : value) {
+                        out.name(String.valueOf((status.getMessageId() + status.getProfileId() + status.getMessageStatus().name()).hashCode()));
+                        statusAdapter.write(out, status);
+                    }
+                    out.endObject();
+                }
+
+                @Override
+                public MessageStatuses read(JsonReader in) throws IOException {
+                    final JsonToken token = in.peek();
+                    if (token == JsonToken.NULL) {
+                        in.nextNull();
+                        return null;
+                    }
+                    MessageStatuses statuses = new MessageStatuses();
+                    if (token == JsonToken.BEGIN_ARRAY) {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            add(statuses, statusAdapter.read(in));
+                        }
+                        in.endArray();
+                    } else {
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            in.nextName();
+                            add(statuses, statusAdapter.read(in));
+                        }
+                        in.endObject();
+                    }
+                    return statuses;
+                }
+
+                private void add(MessageStatuses statuses, ChatMessageStatus status) {
+                    if (status != null) {
+                        statuses.add(status);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -70,6 +70,17 @@ public class ModelAdapter {
      * @return Chat SDK message objects.
      */
     public List<ChatMessage> adaptMessages(List<MessageReceived> messagesReceived) {
+        return adaptMessages(messagesReceived, false);
+    }
+
+    /**
+     * Translates received messages through message query to chat SDK model.
+     *
+     * @param messagesReceived Foundation message objects.
+     * @param useWatermarks    True if statuses of messages with known sent event id are saved through status watermarks and shouldn't be added to the messages.
+     * @return Chat SDK message objects.
+     */
+    public List<ChatMessage> adaptMessages(List<MessageReceived> messagesReceived, boolean useWatermarks) {
 
         List<ChatMessage> chatMessages = new ArrayList<>();
 
@@ -77,9 +88,11 @@ public class ModelAdapter {
             for (MessageReceived msg : messagesReceived) {
 
                 ChatMessage adaptedMessage = ChatMessage.builder().populate(msg).build();
-                List<ChatMessageStatus> adaptedStatuses = adaptStatuses(msg.getConversationId(), msg.getMessageId(), msg.getStatusUpdate());
-                for (ChatMessageStatus s : adaptedStatuses) {
-                    adaptedMessage.addStatusUpdate(s);
+                if (!useWatermarks || msg.getSentEventId() == null) {
+                    List<ChatMessageStatus> adaptedStatuses = adaptStatuses(msg.getConversationId(), msg.getMessageId(), msg.getStatusUpdate());
+                    for (ChatMessageStatus s : adaptedStatuses) {
+                        adaptedMessage.addStatusUpdate(s);
+                    }
                 }
                 chatMessages.add(adaptedMessage);
             }
@@ -0,0 +1,581 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.store;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.comapi.chat.model.ChatConversation;
+import com.comapi.chat.model.ChatConversationBase;
+import com.comapi.chat.model.ChatMessage;
+import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.ChatStatusWatermark;
+import com.comapi.chat.model.ChatStore;
+import com.comapi.chat.model.LocalMessageStatus;
+import com.comapi.internal.network.model.conversation.Role;
+import com.comapi.internal.network.model.messaging.Part;
+import com.comapi.internal.network.model.messaging.Sender;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.comapi.chat.store.SQLiteStoreHelper.CONVERSATION_EVENT_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.CONVERSATION_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.DELIVERED_UP_TO;
+import static com.comapi.chat.store.SQLiteStoreHelper.DESCRIPTION;
+import static com.comapi.chat.store.SQLiteStoreHelper.ETAG;
+import static com.comapi.chat.store.SQLiteStoreHelper.FIRST_LOCAL_EVENT_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.FROM_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.FROM_NAME;
+import static com.comapi.chat.store.SQLiteStoreHelper.IS_PUBLIC;
+import static com.comapi.chat.store.SQLiteStoreHelper.LAST_LOCAL_EVENT_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.LAST_REMOTE_EVENT_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.MESSAGE_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.METADATA;
+import static com.comapi.chat.store.SQLiteStoreHelper.NAME;
+import static com.comapi.chat.store.SQLiteStoreHelper.OWNER_ROLES;
+import static com.comapi.chat.store.SQLiteStoreHelper.PARTICIPANT_ROLES;
+import static com.comapi.chat.store.SQLiteStoreHelper.PARTS;
+import static com.comapi.chat.store.SQLiteStoreHelper.PROFILE_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.READ_UP_TO;
+import static com.comapi.chat.store.SQLiteStoreHelper.SENT_BY;
+import static com.comapi.chat.store.SQLiteStoreHelper.SENT_EVENT_ID;
+import static com.comapi.chat.store.SQLiteStoreHelper.SENT_ON;
+import static com.comapi.chat.store.SQLiteStoreHelper.STATUS;
+import static com.comapi.chat.store.SQLiteStoreHelper.TABLE_CONVERSATIONS;
+import static com.comapi.chat.store.SQLiteStoreHelper.TABLE_MESSAGES;
+import static com.comapi.chat.store.SQLiteStoreHelper.TABLE_STATUSES;
+import static com.comapi.chat.store.SQLiteStoreHelper.TABLE_WATERMARKS;
+import static com.comapi.chat.store.SQLiteStoreHelper.UPDATED_ON;
+
+/**
+ * {@link ChatStore} implementation saving conversations, messages and message statuses in SQLite database. Create instances with {@link SQLiteStoreFactory}.
+ * Writes use statements compiled once per store transaction, message statuses are kept in a separate table with a row per message, participant and status type.
+ * Store transactions map to SQLite transactions, so a transaction is saved entirely or not at all.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class SQLiteChatStore extends ChatStore {
+
+    /**
+     * Maximum number of ids bound to a single 'IN' query, SQLite allows up to 999 arguments.
+     */
+    private static final int MAX_QUERY_ARGUMENTS = 500;
+
+    private static final Gson gson = new Gson();
+
+    private static final Type partsType = new TypeToken<List<Part>>() {
+    }.getType();
+
+    private static final Type metadataType = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
+    private static final String SQL_UPSERT_CONVERSATION =
+            "INSERT OR REPLACE INTO " + TABLE_CONVERSATIONS + "(" + CONVERSATION_ID + "," + FIRST_LOCAL_EVENT_ID + "," + LAST_LOCAL_EVENT_ID + "," + LAST_REMOTE_EVENT_ID + "," + UPDATED_ON + "," + ETAG + "," +
+                    NAME + "," + DESCRIPTION + "," + OWNER_ROLES + "," + PARTICIPANT_ROLES + "," + IS_PUBLIC + ") VALUES (?,?,?,?,?,?,?,?,?,?,?)";
+
+    private static final String SQL_UPDATE_CONVERSATION =
+            "UPDATE " + TABLE_CONVERSATIONS + " SET " + FIRST_LOCAL_EVENT_ID + "=?," + LAST_LOCAL_EVENT_ID + "=?," + LAST_REMOTE_EVENT_ID + "=?," + UPDATED_ON + "=?," + ETAG + "=? WHERE " + CONVERSATION_ID + "=?";
+
+    /**
+     * Merges watermarks in place. SQLite MAX and MIN return NULL if any argument is NULL, so NULL arguments and columns are replaced with the other value.
+     */
+    private static final String SQL_MERGE_WATERMARKS =
+            "UPDATE " + TABLE_CONVERSATIONS + " SET " +
+                    FIRST_LOCAL_EVENT_ID + "=CASE WHEN ?1 IS NULL OR ?1<0 THEN " + FIRST_LOCAL_EVENT_ID + " WHEN " + FIRST_LOCAL_EVENT_ID + " IS NULL OR " + FIRST_LOCAL_EVENT_ID + "<0 THEN ?1 ELSE MIN(" + FIRST_LOCAL_EVENT_ID + ",?1) END," +
+                    LAST_LOCAL_EVENT_ID + "=MAX(COALESCE(" + LAST_LOCAL_EVENT_ID + ",?2),COALESCE(?2," + LAST_LOCAL_EVENT_ID + "))," +
+                    LAST_REMOTE_EVENT_ID + "=MAX(COALESCE(" + LAST_REMOTE_EVENT_ID + ",?3),COALESCE(?3," + LAST_REMOTE_EVENT_ID + "))," +
+                    UPDATED_ON + "=MAX(COALESCE(" + UPDATED_ON + ",?4),COALESCE(?4," + UPDATED_ON + "))" +
+                    " WHERE " + CONVERSATION_ID + "=?5";
+
+    private static final String SQL_UPSERT_MESSAGE =
+            "INSERT OR REPLACE INTO " + TABLE_MESSAGES + "(" + MESSAGE_ID + "," + CONVERSATION_ID + "," + SENT_EVENT_ID + "," + FROM_ID + "," + FROM_NAME + "," + SENT_BY + "," + SENT_ON + "," + PARTS + "," + METADATA + ") VALUES (?,?,?,?,?,?,?,?,?)";
+
+    private static final String SQL_UPSERT_STATUS =
+            "INSERT OR REPLACE INTO " + TABLE_STATUSES + "(" + MESSAGE_ID + "," + PROFILE_ID + "," + STATUS + "," + CONVERSATION_ID + "," + CONVERSATION_EVENT_ID + "," + UPDATED_ON + ") VALUES (?,?,?,?,?,?)";
+
+    private static final String SQL_UPDATE_WATERMARK =
+            "UPDATE " + TABLE_WATERMARKS + " SET " + DELIVERED_UP_TO + "=MAX(" + DELIVERED_UP_TO + ",?)," + READ_UP_TO + "=MAX(" + READ_UP_TO + ",?)," + UPDATED_ON + "=MAX(" + UPDATED_ON + ",?) WHERE " + CONVERSATION_ID + "=? AND " + PROFILE_ID + "=?";
+
+    private static final String SQL_INSERT_WATERMARK =
+            "INSERT INTO " + TABLE_WATERMARKS + "(" + DELIVERED_UP_TO + "," + READ_UP_TO + "," + UPDATED_ON + "," + CONVERSATION_ID + "," + PROFILE_ID + ") VALUES (?,?,?,?,?)";
+
+    private static final String WHERE_MESSAGES_IN_CONVERSATION =
+            MESSAGE_ID + " IN (SELECT " + MESSAGE_ID + " FROM " + TABLE_MESSAGES + " WHERE " + CONVERSATION_ID + "=?)";
+
+    private final SQLiteDatabase db;
+
+    private final boolean useWatermarks;
+
+    private final Map<String, SQLiteStatement> statements;
+
+    private int transactions;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param db            Writable database.
+     * @param useWatermarks True if message statuses should be kept as {@link ChatStatusWatermark}s.
+     */
+    SQLiteChatStore(@NonNull SQLiteDatabase db, boolean useWatermarks) {
+        this.db = db;
+        this.useWatermarks = useWatermarks;
+        this.statements = new HashMap<>();
+    }
+
+    @Override
+    public ChatConversationBase getConversation(String conversationId) {
+        Cursor cursor = db.query(TABLE_CONVERSATIONS, null, CONVERSATION_ID + "=?", new String[]{conversationId}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? readConversation(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public Map<String, ChatConversationBase> getConversations(Collection<String> conversationIds) {
+        Map<String, ChatConversationBase> conversations = new HashMap<>();
+        for (String[] ids : split(conversationIds)) {
+            Cursor cursor = db.query(TABLE_CONVERSATIONS, null, CONVERSATION_ID + " IN (" + placeholders(ids.length) + ")", ids, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    ChatConversationBase conversation = readConversation(cursor);
+                    conversations.put(conversation.getConversationId(), conversation);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        return conversations;
+    }
+
+    @Override
+    public List<ChatConversationBase> getAllConversations() {
+        List<ChatConversationBase> conversations = new ArrayList<>();
+        Cursor cursor = db.query(TABLE_CONVERSATIONS, null, null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                conversations.add(readConversation(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return conversations;
+    }
+
+    @Override
+    public boolean upsert(ChatConversation conversation) {
+        SQLiteStatement statement = statement(SQL_UPSERT_CONVERSATION);
+        bind(statement, 1, conversation.getConversationId());
+        bind(statement, 2, conversation.getFirstLocalEventId());
+        bind(statement, 3, conversation.getLastLocalEventId());
+        bind(statement, 4, conversation.getLastRemoteEventId());
+        bind(statement, 5, conversation.getUpdatedOn());
+        bind(statement, 6, conversation.getETag());
+        bind(statement, 7, conversation.getName());
+        bind(statement, 8, conversation.getDescription());
+        bind(statement, 9, conversation.getOwnerPrivileges() != null ? gson.toJson(conversation.getOwnerPrivileges()) : null);
+        bind(statement, 10, conversation.getParticipantPrivileges() != null ? gson.toJson(conversation.getParticipantPrivileges()) : null);
+        statement.bindLong(11, conversation.isPublic() ? 1 : 0);
+        return statement.executeInsert() != -1;
+    }
+
+    @Override
+    public boolean update(ChatConversationBase conversation) {
+        SQLiteStatement statement = statement(SQL_UPDATE_CONVERSATION);
+        bind(statement, 1, conversation.getFirstLocalEventId());
+        bind(statement, 2, conversation.getLastLocalEventId());
+        bind(statement, 3, conversation.getLastRemoteEventId());
+        bind(statement, 4, conversation.getUpdatedOn());
+        bind(statement, 5, conversation.getETag());
+        bind(statement, 6, conversation.getConversationId());
+        return statement.executeUpdateDelete() > 0;
+    }
+
+    @Override
+    public boolean mergeWatermarks(String conversationId, Long firstLocalEventId, Long lastLocalEventId, Long lastRemoteEventId, Long updatedOn) {
+        SQLiteStatement statement = statement(SQL_MERGE_WATERMARKS);
+        bind(statement, 1, firstLocalEventId);
+        bind(statement, 2, lastLocalEventId);
+        bind(statement, 3, lastRemoteEventId);
+        bind(statement, 4, updatedOn);
+        bind(statement, 5, conversationId);
+        return statement.executeUpdateDelete() > 0;
+    }
+
+    @Override
+    public boolean deleteConversation(String conversationId) {
+        deleteAllMessages(conversationId);
+        db.delete(TABLE_WATERMARKS, CONVERSATION_ID + "=?", new String[]{conversationId});
+        return db.delete(TABLE_CONVERSATIONS, CONVERSATION_ID + "=?", new String[]{conversationId}) > 0;
+    }
+
+    @Override
+    public boolean upsert(ChatMessage message) {
+        SQLiteStatement statement = statement(SQL_UPSERT_MESSAGE);
+        bind(statement, 1, message.getMessageId());
+        bind(statement, 2, message.getConversationId());
+        bind(statement, 3, message.getSentEventId());
+        bind(statement, 4, message.getFromWhom() != null ? message.getFromWhom().getId() : null);
+        bind(statement, 5, message.getFromWhom() != null ? message.getFromWhom().getName() : null);
+        bind(statement, 6, message.getSentBy());
+        bind(statement, 7, message.getSentOn());
+        bind(statement, 8, message.getParts() != null ? gson.toJson(message.getParts(), partsType) : null);
+        bind(statement, 9, message.getMetadata() != null ? gson.toJson(message.getMetadata(), metadataType) : null);
+        boolean isSuccess = statement.executeInsert() != -1;
+        if (message.getStatusUpdates() != null) {
+            for (ChatMessageStatus status : message.getStatusUpdates()) {
+                isSuccess = update(status) && isSuccess;
+            }
+        }
+        return isSuccess;
+    }
+
+    @Override
+    public boolean update(ChatMessageStatus status) {
+        if (status.getMessageId() == null || status.getMessageStatus() == null) {
+            return false;
+        }
+        SQLiteStatement statement = statement(SQL_UPSERT_STATUS);
+        bind(statement, 1, status.getMessageId());
+        bind(statement, 2, status.getProfileId() != null ? status.getProfileId() : "");
+        statement.bindLong(3, status.getMessageStatus().getValue());
+        bind(statement, 4, status.getConversationId());
+        bind(statement, 5, status.getConversationEventId());
+        bind(statement, 6, status.getUpdatedOn());
+        return statement.executeInsert() != -1;
+    }
+
+    @Override
+    public boolean supportsWatermarks() {
+        return useWatermarks;
+    }
+
+    @Override
+    public boolean update(ChatStatusWatermark watermark) {
+        SQLiteStatement statement = statement(SQL_UPDATE_WATERMARK);
+        bindWatermark(statement, watermark);
+        if (statement.executeUpdateDelete() > 0) {
+            return true;
+        }
+        statement = statement(SQL_INSERT_WATERMARK);
+        bindWatermark(statement, watermark);
+        return statement.executeInsert() != -1;
+    }
+
+    @Override
+    public List<ChatStatusWatermark> getWatermarks(String conversationId) {
+        List<ChatStatusWatermark> watermarks = new ArrayList<>();
+        Cursor cursor = db.query(TABLE_WATERMARKS, null, CONVERSATION_ID + "=?", new String[]{conversationId}, null, null, null);
+        try {
+            final int profileId = cursor.getColumnIndexOrThrow(PROFILE_ID);
+            final int deliveredUpTo = cursor.getColumnIndexOrThrow(DELIVERED_UP_TO);
+            final int readUpTo = cursor.getColumnIndexOrThrow(READ_UP_TO);
+            final int updatedOn = cursor.getColumnIndexOrThrow(UPDATED_ON);
+            while (cursor.moveToNext()) {
+                watermarks.add(ChatStatusWatermark.builder().populate(conversationId, cursor.getString(profileId), cursor.getLong(deliveredUpTo), cursor.getLong(readUpTo), cursor.getLong(updatedOn)).build());
+            }
+        } finally {
+            cursor.close();
+        }
+        return watermarks;
+    }
+
+    @Override
+    public ChatMessage getMessage(String conversationId, String messageId) {
+        Cursor cursor = db.query(TABLE_MESSAGES, null, MESSAGE_ID + "=?", new String[]{messageId}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? readMessage(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public boolean hasMessagesBetween(String conversationId, long afterEventId, long beforeEventId, String profileId) {
+        String selection = CONVERSATION_ID + "=? AND " + SENT_EVENT_ID + ">? AND " + SENT_EVENT_ID + "<? AND (" + FROM_ID + " IS NULL OR " + FROM_ID + "<>?)";
+        String[] args = new String[]{conversationId, String.valueOf(afterEventId), String.valueOf(beforeEventId), profileId != null ? profileId : ""};
+        Cursor cursor = db.query(TABLE_MESSAGES, new String[]{MESSAGE_ID}, selection, args, null, null, null, "1");
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Gets messages from a conversation with their statuses, starting from the latest message. Uses index on conversation id and sent event id.
+     *
+     * @param conversationId Unique conversation id.
+     * @param beforeEventId  Only messages with lower sent event id are returned, null to start from the latest message.
+     * @param limit          Maximum number of messages to return.
+     * @return Messages ordered from the latest to the oldest.
+     */
+    public List<ChatMessage> getMessages(@NonNull String conversationId, @Nullable Long beforeEventId, int limit) {
+
+        List<ChatMessage> messages = new ArrayList<>();
+        Map<String, ChatMessage> messagesById = new HashMap<>();
+
+        String selection = CONVERSATION_ID + "=?" + (beforeEventId != null ? " AND " + SENT_EVENT_ID + "<?" : "");
+        String[] args = beforeEventId != null ? new String[]{conversationId, String.valueOf(beforeEventId)} : new String[]{conversationId};
+        Cursor cursor = db.query(TABLE_MESSAGES, null, selection, args, null, null, SENT_EVENT_ID + " DESC", String.valueOf(limit));
+        try {
+            while (cursor.moveToNext()) {
+                ChatMessage message = readMessage(cursor);
+                messages.add(message);
+                messagesById.put(message.getMessageId(), message);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        for (String[] ids : split(messagesById.keySet())) {
+            cursor = db.query(TABLE_STATUSES, null, MESSAGE_ID + " IN (" + placeholders(ids.length) + ")", ids, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    ChatMessageStatus status = readStatus(cursor);
+                    ChatMessage message = messagesById.get(status.getMessageId());
+                    if (message != null) {
+                        message.addStatusUpdate(status);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        if (useWatermarks && !messages.isEmpty()) {
+            for (ChatStatusWatermark watermark : getWatermarks(conversationId)) {
+                for (ChatMessage message : messages) {
+                    ChatMessageStatus status = watermark.getStatus(message);
+                    if (status != null) {
+                        message.addStatusUpdate(status);
+                    }
+                }
+            }
+        }
+
+        return messages;
+    }
+
+    @Override
+    public boolean deleteAllMessages(String conversationId) {
+        String[] args = new String[]{conversationId};
+        db.delete(TABLE_STATUSES, WHERE_MESSAGES_IN_CONVERSATION, args);
+        db.delete(TABLE_MESSAGES, CONVERSATION_ID + "=?", args);
+        return true;
+    }
+
+    @Override
+    public boolean deleteMessage(String conversationId, String messageId) {
+        String[] args = new String[]{messageId};
+        db.delete(TABLE_STATUSES, MESSAGE_ID + "=?", args);
+        return db.delete(TABLE_MESSAGES, MESSAGE_ID + "=?", args) > 0;
+    }
+
+    @Override
+    public boolean clearDatabase() {
+        db.delete(TABLE_STATUSES, null, null);
+        db.delete(TABLE_MESSAGES, null, null);
+        db.delete(TABLE_WATERMARKS, null, null);
+        db.delete(TABLE_CONVERSATIONS, null, null);
+        return true;
+    }
+
+    @Override
+    public void beginTransaction() {
+        // Immediate transaction, in write-ahead logging mode readers are not blocked
+        db.beginTransactionNonExclusive();
+        transactions++;
+    }
+
+    @Override
+    public void endTransaction() {
+        if (transactions > 0) {
+            db.setTransactionSuccessful();
+            db.endTransaction();
+            transactions--;
+        }
+    }
+
+    @Override
+    public void open() {
+
+    }
+
+    /**
+     * Closes compiled statements. Database is shared by all store instances and stays open.
+     */
+    @Override
+    public void close() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Rolls back transactions that were not ended, e.g. because the store transaction threw an exception, and closes compiled statements.
+     */
+    void release() {
+        while (transactions > 0) {
+            db.endTransaction();
+            transactions--;
+        }
+        close();
+    }
+
+    /**
+     * Gets statement compiled for this store instance.
+     *
+     * @param sql SQL statement.
+     * @return Compiled statement with cleared bindings.
+     */
+    private SQLiteStatement statement(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearBindings();
+        }
+        return statement;
+    }
+
+    private static void bindWatermark(SQLiteStatement statement, ChatStatusWatermark watermark) {
+        statement.bindLong(1, watermark.getDeliveredUpTo());
+        statement.bindLong(2, watermark.getReadUpTo());
+        statement.bindLong(3, watermark.getUpdatedOn());
+        bind(statement, 4, watermark.getConversationId());
+        bind(statement, 5, watermark.getProfileId() != null ? watermark.getProfileId() : "");
+    }
+
+    private static void bind(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    private static void bind(SQLiteStatement statement, int index, Long value) {
+        if (value != null) {
+            statement.bindLong(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    private static Long getLong(Cursor cursor, int index) {
+        return cursor.isNull(index) ? null : cursor.getLong(index);
+    }
+
+    private static ChatConversationBase readConversation(Cursor cursor) {
+        String ownerRoles = cursor.getString(cursor.getColumnIndexOrThrow(OWNER_ROLES));
+        String participantRoles = cursor.getString(cursor.getColumnIndexOrThrow(PARTICIPANT_ROLES));
+        return ChatConversation.builder()
+                .setConversationId(cursor.getString(cursor.getColumnIndexOrThrow(CONVERSATION_ID)))
+                .setFirstLocalEventId(getLong(cursor, cursor.getColumnIndexOrThrow(FIRST_LOCAL_EVENT_ID)))
+                .setLastLocalEventId(getLong(cursor, cursor.getColumnIndexOrThrow(LAST_LOCAL_EVENT_ID)))
+                .setLastRemoteEventId(getLong(cursor, cursor.getColumnIndexOrThrow(LAST_REMOTE_EVENT_ID)))
+                .setUpdatedOn(getLong(cursor, cursor.getColumnIndexOrThrow(UPDATED_ON)))
+                .setETag(cursor.getString(cursor.getColumnIndexOrThrow(ETAG)))
+                .setName(cursor.getString(cursor.getColumnIndexOrThrow(NAME)))
+                .setDescription(cursor.getString(cursor.getColumnIndexOrThrow(DESCRIPTION)))
+                .setOwnerPrivileges(ownerRoles != null ? gson.fromJson(ownerRoles, Role.class) : null)
+                .setParticipantPrivileges(participantRoles != null ? gson.fromJson(participantRoles, Role.class) : null)
+                .setPublic(cursor.getInt(cursor.getColumnIndexOrThrow(IS_PUBLIC)) == 1)
+                .build();
+    }
+
+    private static ChatMessage readMessage(Cursor cursor) {
+        String fromId = cursor.getString(cursor.getColumnIndexOrThrow(FROM_ID));
+        String parts = cursor.getString(cursor.getColumnIndexOrThrow(PARTS));
+        String metadata = cursor.getString(cursor.getColumnIndexOrThrow(METADATA));
+        return ChatMessage.builder()
+                .setMessageId(cursor.getString(cursor.getColumnIndexOrThrow(MESSAGE_ID)))
+                .setConversationId(cursor.getString(cursor.getColumnIndexOrThrow(CONVERSATION_ID)))
+                .setSentEventId(getLong(cursor, cursor.getColumnIndexOrThrow(SENT_EVENT_ID)))
+                .setFromWhom(fromId != null ? new Sender(fromId, cursor.getString(cursor.getColumnIndexOrThrow(FROM_NAME))) : null)
+                .setSentBy(cursor.getString(cursor.getColumnIndexOrThrow(SENT_BY)))
+                .setSentOn(getLong(cursor, cursor.getColumnIndexOrThrow(SENT_ON)))
+                .setParts(parts != null ? gson.fromJson(parts, partsType) : null)
+                .setMetadata(metadata != null ? gson.fromJson(metadata, metadataType) : null)
+                .build();
+    }
+
+    private static ChatMessageStatus readStatus(Cursor cursor) {
+        String profileId = cursor.getString(cursor.getColumnIndexOrThrow(PROFILE_ID));
+        return ChatMessageStatus.builder().populate(
+                cursor.getString(cursor.getColumnIndexOrThrow(CONVERSATION_ID)),
+                cursor.getString(cursor.getColumnIndexOrThrow(MESSAGE_ID)),
+                profileId.isEmpty() ? null : profileId,
+                toStatus(cursor.getInt(cursor.getColumnIndexOrThrow(STATUS))),
+                getLong(cursor, cursor.getColumnIndexOrThrow(UPDATED_ON)),
+                getLong(cursor, cursor.getColumnIndexOrThrow(CONVERSATION_EVENT_ID))).build();
+    }
+
+    private static LocalMessageStatus toStatus(int value) {
+        for (LocalMessageStatus status : LocalMessageStatus.values()) {
+            if (status.getValue() == value) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits ids into arrays small enough to be bound to a single query.
+     */
+    private static List<String[]> split(Collection<String> ids) {
+        List<String[]> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        for (String id : ids) {
+            chunk.add(id);
+            if (chunk.size() == MAX_QUERY_ARGUMENTS) {
+                chunks.add(chunk.toArray(new String[chunk.size()]));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk.toArray(new String[chunk.size()]));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.store;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import com.comapi.chat.StoreCallback;
+import com.comapi.chat.StoreFactory;
+
+/**
+ * Factory of {@link SQLiteChatStore}s. Pass it to {@link com.comapi.chat.ChatConfig#store(StoreFactory)} instead of implementing own {@link StoreFactory} if the app doesn't need custom storage.
+ * Every store transaction gets a new store instance working on a single database shared by all instances.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+public class SQLiteStoreFactory extends StoreFactory<SQLiteChatStore> {
+
+    private final SQLiteStoreHelper helper;
+
+    private final boolean useWatermarks;
+
+    /**
+     * Creates factory of stores saving data in default database file. Message statuses are added to every message.
+     *
+     * @param context Application context.
+     */
+    public SQLiteStoreFactory(@NonNull Context context) {
+        this(context, SQLiteStoreHelper.DATABASE_NAME, false);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param context       Application context.
+     * @param databaseName  Name of the database file.
+     * @param useWatermarks True if message statuses should be kept as {@link com.comapi.chat.model.ChatStatusWatermark}s per participant instead of being added to every message.
+     */
+    public SQLiteStoreFactory(@NonNull Context context, @NonNull String databaseName, boolean useWatermarks) {
+        this.helper = SQLiteStoreHelper.getInstance(context, databaseName);
+        this.useWatermarks = useWatermarks;
+    }
+
+    @Override
+    protected void build(StoreCallback<SQLiteChatStore> callback) {
+        SQLiteChatStore store = new SQLiteChatStore(helper.getWritableDatabase(), useWatermarks);
+        try {
+            callback.created(store);
+        } finally {
+            store.release();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.store;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQLite helper creating and migrating the schema of {@link SQLiteChatStore}. Database is opened in write-ahead logging mode, so store reads are not blocked by transactions saving received events.
+ *
+ * @author Marcin Swierczek
+ * @since 1.2.0
+ */
+class SQLiteStoreHelper extends SQLiteOpenHelper {
+
+    /**
+     * If the database schema change, the database version will be incremented and the migration added to {@link SQLiteStoreHelper#onUpgrade(SQLiteDatabase, int, int)}, without a migration the tables are recreated.
+     */
+    private static final int DATABASE_VERSION = 1;
+
+    /**
+     * Default file name for the store database.
+     */
+    static final String DATABASE_NAME = "ComapiChatStore.db";
+
+    private static final Map<String, SQLiteStoreHelper> instances = new HashMap<>();
+
+    static final String TABLE_CONVERSATIONS = "Conversations";
+    static final String TABLE_MESSAGES = "Messages";
+    static final String TABLE_STATUSES = "Statuses";
+    static final String TABLE_WATERMARKS = "Watermarks";
+
+    static final String CONVERSATION_ID = "conversationId";
+    static final String FIRST_LOCAL_EVENT_ID = "firstLocalEventId";
+    static final String LAST_LOCAL_EVENT_ID = "lastLocalEventId";
+    static final String LAST_REMOTE_EVENT_ID = "lastRemoteEventId";
+    static final String UPDATED_ON = "updatedOn";
+    static final String ETAG = "eTag";
+    static final String NAME = "name";
+    static final String DESCRIPTION = "description";
+    static final String OWNER_ROLES = "ownerRoles";
+    static final String PARTICIPANT_ROLES = "participantRoles";
+    static final String IS_PUBLIC = "isPublic";
+
+    static final String MESSAGE_ID = "messageId";
+    static final String SENT_EVENT_ID = "sentEventId";
+    static final String FROM_ID = "fromId";
+    static final String FROM_NAME = "fromName";
+    static final String SENT_BY = "sentBy";
+    static final String SENT_ON = "sentOn";
+    static final String PARTS = "parts";
+    static final String METADATA = "metadata";
+
+    static final String PROFILE_ID = "profileId";
+    static final String STATUS = "status";
+    static final String CONVERSATION_EVENT_ID = "conversationEventId";
+
+    static final String DELIVERED_UP_TO = "deliveredUpTo";
+    static final String READ_UP_TO = "readUpTo";
+
+    private static final String TEXT_TYPE = " TEXT";
+    private static final String INTEGER_TYPE = " INTEGER";
+    private static final String COMMA_SEP = ",";
+
+    private static final String SQL_CREATE_CONVERSATIONS_TABLE =
+            "CREATE TABLE " + TABLE_CONVERSATIONS + "(" +
+                    CONVERSATION_ID + " TEXT PRIMARY KEY" + COMMA_SEP +
+                    FIRST_LOCAL_EVENT_ID + INTEGER_TYPE + COMMA_SEP +
+                    LAST_LOCAL_EVENT_ID + INTEGER_TYPE + COMMA_SEP +
+                    LAST_REMOTE_EVENT_ID + INTEGER_TYPE + COMMA_SEP +
+                    UPDATED_ON + INTEGER_TYPE + COMMA_SEP +
+                    ETAG + TEXT_TYPE + COMMA_SEP +
+                    NAME + TEXT_TYPE + COMMA_SEP +
+                    DESCRIPTION + TEXT_TYPE + COMMA_SEP +
+                    OWNER_ROLES + TEXT_TYPE + COMMA_SEP +
+                    PARTICIPANT_ROLES + TEXT_TYPE + COMMA_SEP +
+                    IS_PUBLIC + INTEGER_TYPE + ")";
+
+    private static final String SQL_CREATE_MESSAGES_TABLE =
+            "CREATE TABLE " + TABLE_MESSAGES + "(" +
+                    MESSAGE_ID + " TEXT PRIMARY KEY" + COMMA_SEP +
+                    CONVERSATION_ID + TEXT_TYPE + " NOT NULL" + COMMA_SEP +
+                    SENT_EVENT_ID + INTEGER_TYPE + COMMA_SEP +
+                    FROM_ID + TEXT_TYPE + COMMA_SEP +
+                    FROM_NAME + TEXT_TYPE + COMMA_SEP +
+                    SENT_BY + TEXT_TYPE + COMMA_SEP +
+                    SENT_ON + INTEGER_TYPE + COMMA_SEP +
+                    PARTS + TEXT_TYPE + COMMA_SEP +
+                    METADATA + TEXT_TYPE + ")";
+
+    /**
+     * Messages are loaded and deleted per conversation in the order of sent event ids.
+     */
+    private static final String SQL_CREATE_MESSAGES_INDEX =
+            "CREATE INDEX " + TABLE_MESSAGES + "_" + CONVERSATION_ID + "_" + SENT_EVENT_ID + " ON " + TABLE_MESSAGES + "(" + CONVERSATION_ID + COMMA_SEP + SENT_EVENT_ID + ")";
+
+    /**
+     * One row per message, participant and status type. Primary key starts with the message id, so it also serves status lookups by message id.
+     */
+    private static final String SQL_CREATE_STATUSES_TABLE =
+            "CREATE TABLE " + TABLE_STATUSES + "(" +
+                    MESSAGE_ID + TEXT_TYPE + " NOT NULL" + COMMA_SEP +
+                    PROFILE_ID + TEXT_TYPE + " NOT NULL" + COMMA_SEP +
+                    STATUS + INTEGER_TYPE + " NOT NULL" + COMMA_SEP +
+                    CONVERSATION_ID + TEXT_TYPE + COMMA_SEP +
+                    CONVERSATION_EVENT_ID + INTEGER_TYPE + COMMA_SEP +
+                    UPDATED_ON + INTEGER_TYPE + COMMA_SEP +
+                    "PRIMARY KEY(" + MESSAGE_ID + COMMA_SEP + PROFILE_ID + COMMA_SEP + STATUS + "))";
+
+    private static final String SQL_CREATE_WATERMARKS_TABLE =
+            "CREATE TABLE " + TABLE_WATERMARKS + "(" +
+                    CONVERSATION_ID + TEXT_TYPE + " NOT NULL" + COMMA_SEP +
+                    PROFILE_ID + TEXT_TYPE + " NOT NULL" + COMMA_SEP +
+                    DELIVERED_UP_TO + INTEGER_TYPE + COMMA_SEP +
+                    READ_UP_TO + INTEGER_TYPE + COMMA_SEP +
+                    UPDATED_ON + INTEGER_TYPE + COMMA_SEP +
+                    "PRIMARY KEY(" + CONVERSATION_ID + COMMA_SEP + PROFILE_ID + "))";
+
+    private SQLiteStoreHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    static synchronized SQLiteStoreHelper getInstance(@NonNull Context context, @NonNull String name) {
+        SQLiteStoreHelper instance = instances.get(name);
+        if (instance == null) {
+            instance = new SQLiteStoreHelper(context.getApplicationContext(), name);
+            instances.put(name, instance);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_CONVERSATIONS_TABLE);
+        db.execSQL(SQL_CREATE_MESSAGES_TABLE);
+        db.execSQL(SQL_CREATE_MESSAGES_INDEX);
+        db.execSQL(SQL_CREATE_STATUSES_TABLE);
+        db.execSQL(SQL_CREATE_WATERMARKS_TABLE);
+    }
+
+    /**
+     * Store keeps a copy of the service data, so until a migration is added for the new version the tables are recreated and the store is filled again by the next synchronisation.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        recreate(db);
+    }
+
+    /**
+     * Schema of a newer SDK version is unknown, the tables are recreated and the store is filled again by the next synchronisation.
+     */
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        recreate(db);
+    }
+
+    /**
+     * Drops all tables and creates empty ones with the current schema.
+     *
+     * @param db Database to recreate.
+     */
+    private void recreate(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CONVERSATIONS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_STATUSES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_WATERMARKS);
+        onCreate(db);
+    }
+}
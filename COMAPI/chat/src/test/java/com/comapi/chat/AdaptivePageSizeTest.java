@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.internal.AdaptivePageSize;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptivePageSizeTest {
+
+    @Test
+    public void test_fixed() {
+
+        AdaptivePageSize pageSize = new AdaptivePageSize(10, 100, 0);
+        assertFalse(pageSize.isEnabled());
+        assertEquals(100, pageSize.getPageSize());
+
+        pageSize.onResponse(100, 100, 60000);
+        pageSize.onError(100);
+        assertEquals(100, pageSize.getPageSize());
+
+        assertFalse(new AdaptivePageSize(100, 100, 1000).isEnabled());
+    }
+
+    @Test
+    public void test_adapt() {
+
+        AdaptivePageSize pageSize = new AdaptivePageSize(10, 200, 1000);
+        assertTrue(pageSize.isEnabled());
+        assertEquals(200, pageSize.getPageSize());
+
+        // slow query shrinks the page, at most by half
+        pageSize.onResponse(200, 200, 1600);
+        assertEquals(125, pageSize.getPageSize());
+        pageSize.onResponse(125, 125, 10000);
+        assertEquals(63, pageSize.getPageSize());
+
+        // fast query grows the page, at most twice
+        pageSize.onResponse(63, 63, 900);
+        assertEquals(70, pageSize.getPageSize());
+        pageSize.onResponse(70, 70, 100);
+        assertEquals(140, pageSize.getPageSize());
+        pageSize.onResponse(140, 140, 0);
+        assertEquals(200, pageSize.getPageSize());
+
+        // short fast page is ignored, short slow page shrinks
+        pageSize.onResponse(200, 5, 100);
+        assertEquals(200, pageSize.getPageSize());
+        pageSize.onResponse(200, 5, 2000);
+        assertEquals(100, pageSize.getPageSize());
+
+        // errors halve the page down to the minimum
+        pageSize.onError(100);
+        assertEquals(50, pageSize.getPageSize());
+        pageSize.onError(15);
+        assertEquals(10, pageSize.getPageSize());
+    }
+}
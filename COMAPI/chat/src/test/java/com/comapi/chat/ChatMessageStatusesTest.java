@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.model.ChatMessage;
+import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.LocalMessageStatus;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ChatMessageStatusesTest {
+
+    private static ChatMessageStatus status(String profileId, LocalMessageStatus status, long updatedOn) {
+        return ChatMessageStatus.builder().populate("c1", "m1", profileId, status, updatedOn, null).build();
+    }
+
+    @Test
+    public void test_addStatusUpdate() {
+
+        ChatMessage message = ChatMessage.builder().setMessageId("m1").setConversationId("c1").build();
+
+        message.addStatusUpdate(status("p2", LocalMessageStatus.read, 3));
+        message.addStatusUpdate(status("p1", LocalMessageStatus.read, 2));
+        message.addStatusUpdate(status("p1", LocalMessageStatus.delivered, 1));
+        assertEquals(3, message.getStatusUpdates().size());
+
+        // same participant and status type replaces previous status
+        message.addStatusUpdate(status(new String("p1"), LocalMessageStatus.read, 4));
+        message.addStatusUpdate(status("p2", LocalMessageStatus.read, 5));
+        assertEquals(3, message.getStatusUpdates().size());
+
+        // ordered by profile id and status type
+        Iterator<ChatMessageStatus> iterator = message.getStatusUpdates().iterator();
+        assertStatus(iterator.next(), "p1", LocalMessageStatus.delivered, 1);
+        assertStatus(iterator.next(), "p1", LocalMessageStatus.read, 4);
+        assertStatus(iterator.next(), "p2", LocalMessageStatus.read, 5);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void test_gsonShape() {
+
+        // shape written by versions keeping statuses in a map
+        String json = "{\"messageId\":\"m1\",\"conversationId\":\"c1\",\"statusUpdates\":{" +
+                "\"1\":{\"conversationId\":\"c1\",\"messageId\":\"m1\",\"profileId\":\"p1\",\"conversationEventId\":7,\"messageStatus\":\"read\",\"updatedOn\":2}," +
+                "\"2\":{\"conversationId\":\"c1\",\"messageId\":\"m1\",\"profileId\":\"p2\",\"messageStatus\":\"delivered\",\"updatedOn\":1}}}";
+
+        Gson gson = new Gson();
+        ChatMessage message = gson.fromJson(json, ChatMessage.class);
+        assertEquals(2, message.getStatusUpdates().size());
+        Iterator<ChatMessageStatus> iterator = message.getStatusUpdates().iterator();
+        ChatMessageStatus read = iterator.next();
+        assertStatus(read, "p1", LocalMessageStatus.read, 2);
+        assertEquals(7L, read.getConversationEventId().longValue());
+        assertStatus(iterator.next(), "p2", LocalMessageStatus.delivered, 1);
+
+        JsonObject statuses = gson.toJsonTree(message).getAsJsonObject().getAsJsonObject("statusUpdates");
+        assertEquals(2, statuses.size());
+        assertTrue(statuses.has(String.valueOf(("m1" + "p1" + "read").hashCode())));
+        assertTrue(statuses.has(String.valueOf(("m1" + "p2" + "delivered").hashCode())));
+
+        ChatMessage copy = gson.fromJson(gson.toJson(message), ChatMessage.class);
+        assertEquals(2, copy.getStatusUpdates().size());
+        ChatMessageStatus[] copied = copy.getStatusUpdates().toArray(new ChatMessageStatus[2]);
+        assertEquals(7L, copied[0].getConversationEventId().longValue());
+        assertNull(copied[1].getConversationEventId());
+    }
+
+    private static void assertStatus(ChatMessageStatus status, String profileId, LocalMessageStatus messageStatus, long updatedOn) {
+        assertEquals("c1", status.getConversationId());
+        assertEquals("m1", status.getMessageId());
+        assertEquals(profileId, status.getProfileId());
+        assertEquals(messageStatus, status.getMessageStatus());
+        assertEquals(updatedOn, status.getUpdatedOn().longValue());
+    }
+
+    @Test
+    public void test_growAndSnapshot() {
+
+        ChatMessage message = ChatMessage.builder().build();
+
+        // inserted in reverse order, kept sorted by profile id
+        for (int i = 19; i >= 0; i--) {
+            message.addStatusUpdate(status(String.format("p%02d", i), LocalMessageStatus.delivered, i));
+        }
+        assertEquals(20, message.getStatusUpdates().size());
+
+        Iterator<ChatMessageStatus> iterator = message.getStatusUpdates().iterator();
+        message.addStatusUpdate(status("p00a", LocalMessageStatus.delivered, 20));
+        message.addStatusUpdate(status("p01", LocalMessageStatus.read, 21));
+
+        int count = 0;
+        while (iterator.hasNext()) {
+            assertEquals(count, iterator.next().getUpdatedOn().longValue());
+            count++;
+        }
+        assertEquals(20, count);
+        assertEquals(22, message.getStatusUpdates().toArray().length);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_statusUpdatesUnmodifiable() {
+
+        ChatMessage message = ChatMessage.builder().build();
+        message.addStatusUpdate(status("p1", LocalMessageStatus.delivered, 1));
+
+        message.getStatusUpdates().add(status("p2", LocalMessageStatus.delivered, 2));
+    }
+}
@@ -28,6 +28,7 @@ import com.comapi.ComapiAuthenticator;
 import com.comapi.RxComapiClient;
 import com.comapi.chat.database.Database;
 import com.comapi.chat.database.model.DbOrphanedEvent;
+import com.comapi.chat.database.model.DbSyncCheckpoint;
 import com.comapi.chat.helpers.ChatTestConst;
 import com.comapi.chat.helpers.FileResHelper;
 import com.comapi.chat.helpers.MockCallback;
@@ -37,7 +38,6 @@ import com.comapi.chat.helpers.MockFoundationFactory;
 import com.comapi.chat.helpers.MockResult;
 import com.comapi.chat.helpers.TestChatStore;
 import com.comapi.chat.internal.AttachmentController;
-import com.comapi.chat.internal.CallLimiter;
 import com.comapi.chat.model.Attachment;
 import com.comapi.chat.model.ChatConversation;
 import com.comapi.chat.model.ChatConversationBase;
@@ -86,20 +86,19 @@ import org.robolectric.annotation.Config;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 
+import rx.Notification;
 import rx.Observable;
 import rx.schedulers.Schedulers;
 
@@ -108,7 +107,9 @@ import static java.lang.Thread.sleep;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
@@ -174,7 +175,7 @@ public class ControllerTest {
 
         ModelAdapter modelAdapter = new ModelAdapter();
         db = Database.getInstance(RuntimeEnvironment.application, true, new Logger(logMgr, ""));
-        persistenceController = new PersistenceController(db, modelAdapter, factory, logger);
+        persistenceController = new PersistenceController(db, modelAdapter, factory, new InternalConfig(), logger);
 
         InternalConfig internal = new InternalConfig();
 
@@ -330,8 +331,8 @@ public class ControllerTest {
         mockedComapiClient.addMockedResult(new MockResult<>(null, false, null, 500));
         mockedComapiClient.addMockedResult(new MockResult<>(null, false, null, 500));
 
-        List<ComapiResult<Void>> result = chatController.markDelivered(conversationId, ids).toList().toBlocking().first();
-        assertTrue(result.isEmpty());
+        Notification<ComapiResult<Void>> result = chatController.markDelivered(conversationId, ids).materialize().toBlocking().first();
+        assertTrue(result.isOnError());
     }
 
     @Test
@@ -408,6 +409,37 @@ public class ControllerTest {
         assertTrue(loadedConversation.getConversationId().equals(conversationId));
     }
 
+    @Test
+    public void test_HandleMessageFromOtherUser_markDeliveredFailed() {
+
+        String conversationId = "id-1";
+        String tempId = "temp-1";
+        String sender = "someone";
+
+        ChatConversationBase conversationInStore = ChatConversationBase.baseBuilder()
+                .setConversationId(conversationId)
+                .setETag("eTag-0")
+                .setFirstLocalEventId(1L)
+                .setLastLocalEventId(2L)
+                .setLastRemoteEventId(2L)
+                .setUpdatedOn(0L)
+                .build();
+        store.getConversations().put(conversationId, conversationInStore);
+
+        for (int i = 0; i < 4; i++) {
+            mockedComapiClient.addMockedResult(new MockResult<>(null, false, null, 500));
+        }
+
+        List<Part> parts = new ArrayList<>();
+        parts.add(Part.builder().setData("hello").build());
+        ChatMessage chatMessage = ChatMessage.builder().setMessageId(tempId).setConversationId(conversationId).setSentBy(sender).setFromWhom(new Sender(sender, sender)).setParts(parts).setSentOn(0L).build();
+
+        List<Boolean> result = chatController.handleMessage(chatMessage).toList().toBlocking().first();
+        assertEquals(1, result.size());
+        assertFalse(result.get(0));
+        assertNotNull(store.getMessages().get(tempId));
+    }
+
     @Test
     public void test_noLocalConversation_shouldGetOne_failed() {
 
@@ -425,6 +457,23 @@ public class ControllerTest {
         assertNull(loadedConversation);
     }
 
+    @Test
+    public void test_noLocalConversation_notFound_notQueriedAgain() {
+
+        String conversationId = "id-1";
+
+        mockedComapiClient.addMockedResult(new MockResult<>(null, false, null, 404));
+        mockedComapiClient.addMockedResult(new MockResult<>(new MockConversationDetails(conversationId), true, ChatTestConst.ETAG, 200));
+
+        ChatResult result = chatController.handleNoLocalConversation(conversationId).toBlocking().first();
+        assertFalse(result.isSuccessful());
+
+        // Conversation recently not found on the server should not be queried again
+        result = chatController.handleNoLocalConversation(conversationId).toBlocking().first();
+        assertFalse(result.isSuccessful());
+        assertNull(store.getConversations().get(conversationId));
+    }
+
     @Test
     public void test_HandleMessage_localConversationExists() {
 
@@ -712,6 +761,33 @@ public class ControllerTest {
         List result = (List) method.invoke(chatController, list);
 
         assertEquals(20, result.size());
+        // Most recently updated conversations first
+        assertEquals("99", ((ChatConversation) result.get(0)).getConversationId());
+        assertEquals("80", ((ChatConversation) result.get(19)).getConversationId());
+    }
+
+    @Test
+    public void test_limitNumberOfConversations_priority() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+
+        List<ChatConversation> list = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            list.add(ChatConversation.builder().setConversationId(Integer.toString(i)).setLastRemoteEventId(1L).setLastLocalEventId(1L).setUpdatedOn(1000L * i).build());
+        }
+        // No update time, but many missing events
+        list.add(ChatConversation.builder().setConversationId("gap").setLastRemoteEventId(500L).setLastLocalEventId(1L).build());
+        // Oldest, but pinned by the app
+        list.add(ChatConversation.builder().setConversationId("pinned").setLastRemoteEventId(1L).setLastLocalEventId(1L).setUpdatedOn(0L).build());
+        chatController.setPinnedConversations(Collections.singletonList("pinned"));
+
+        Method method = chatController.getClass().getDeclaredMethod("limitNumberOfConversations", List.class);
+        method.setAccessible(true);
+        List result = (List) method.invoke(chatController, list);
+
+        assertEquals(20, result.size());
+        assertEquals("pinned", ((ChatConversation) result.get(0)).getConversationId());
+        assertEquals("gap", ((ChatConversation) result.get(1)).getConversationId());
+        assertEquals("99", ((ChatConversation) result.get(2)).getConversationId());
     }
 
     @Test
@@ -939,6 +1015,25 @@ public class ControllerTest {
         chatController.checkState().toBlocking().first();
     }
 
+    @Test
+    public void test_handleBackgrounded_flushesOnExecutor() {
+
+        final List<Observable<?>> executed = new ArrayList<>();
+
+        ChatController chatController = new ChatController(mockedComapiClient, persistenceController, attachmentController, new InternalConfig(), new ObservableExecutor() {
+            @Override
+            public <T> void execute(Observable<T> obs) {
+                executed.add(obs);
+            }
+        }, new ModelAdapter(), logger);
+
+        chatController.handleBackgrounded();
+
+        // Receipts are flushed by the executor, not on the calling thread
+        assertEquals(1, executed.size());
+        assertEquals(true, executed.get(0).toBlocking().first());
+    }
+
     @Test
     public void test_handleConversationCreated_failed() {
 
@@ -1117,9 +1212,9 @@ public class ControllerTest {
 
         store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, 0, 3, 3, 0, ChatTestConst.ETAG);
 
-        Method method = chatController.getClass().getDeclaredMethod("synchroniseEvents", RxComapiClient.class, List.class, List.class);
+        Method method = chatController.getClass().getDeclaredMethod("synchroniseEvents", RxComapiClient.class, List.class, List.class, Boolean.TYPE, SynchronisationTracker.class);
         method.setAccessible(true);
-        Boolean result = (Boolean) ((Observable) method.invoke(chatController, mockedComapiClient, new ArrayList<>(), new ArrayList<>())).toBlocking().first();
+        Boolean result = (Boolean) ((Observable) method.invoke(chatController, mockedComapiClient, new ArrayList<>(), new ArrayList<>(), false, new SynchronisationTracker())).toBlocking().first();
         assertTrue(result);
     }
 
@@ -1128,17 +1223,79 @@ public class ControllerTest {
 
         store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, 0, 3, 3, 0, ChatTestConst.ETAG);
 
-        Method method = chatController.getClass().getDeclaredMethod("synchroniseEvents", RxComapiClient.class, List.class, List.class);
+        Method method = chatController.getClass().getDeclaredMethod("synchroniseEvents", RxComapiClient.class, List.class, List.class, Boolean.TYPE, SynchronisationTracker.class);
         method.setAccessible(true);
 
         ArrayList<ChatConversation> conversations = new ArrayList<>();
         conversations.add(ChatConversation.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setFirstLocalEventId(0L).setLastLocalEventId(3L).setLastRemoteEventId(3L).build());
-        Boolean result = (Boolean) ((Observable) method.invoke(chatController, mockedComapiClient, conversations, new ArrayList<>())).toBlocking().first();
+        Boolean result = (Boolean) ((Observable) method.invoke(chatController, mockedComapiClient, conversations, new ArrayList<>(), false, new SynchronisationTracker())).toBlocking().first();
+        assertTrue(result);
+    }
+
+    @Test
+    public void test_resumeCursor_newEventsAfterFinishedCheckpoint() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+
+        Method method = chatController.getClass().getDeclaredMethod("resumeCursor", ChatConversationBase.class, DbSyncCheckpoint.class);
+        method.setAccessible(true);
+
+        ChatConversation conversation = ChatConversation.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setFirstLocalEventId(0L).setLastLocalEventId(100L).setLastRemoteEventId(300L).build();
+
+        // Checkpoint finished before new events arrived
+        EventQueryScheduler.Cursor cursor = (EventQueryScheduler.Cursor) method.invoke(chatController, conversation, DbSyncCheckpoint.create(ChatTestConst.CONVERSATION_ID1, 200, 2, true, 0));
+        assertFalse(cursor.isFinished);
+        assertEquals(200, cursor.from);
+        assertEquals(2, cursor.events);
+
+        // Checkpoint finished at the last remote event
+        cursor = (EventQueryScheduler.Cursor) method.invoke(chatController, conversation, DbSyncCheckpoint.create(ChatTestConst.CONVERSATION_ID1, 300, 3, true, 0));
+        assertTrue(cursor.isFinished);
+
+        // Local store is ahead of the checkpoint
+        cursor = (EventQueryScheduler.Cursor) method.invoke(chatController, conversation, DbSyncCheckpoint.create(ChatTestConst.CONVERSATION_ID1, 50, 1, false, 0));
+        assertFalse(cursor.isFinished);
+        assertEquals(100, cursor.from);
+    }
+
+    @Test
+    public void test_synchroniseEvents_prefetchesNextTurnPage() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException {
+
+        ChatController chatController = new ChatController(mockedComapiClient, persistenceController, attachmentController, new InternalConfig().limitEventsPerQuery(100).limitConversationsInFlight(1).limitEventPagesPrefetched(1), new ObservableExecutor() {
+            @Override
+            public <T> void execute(Observable<T> obs) {
+                obs.toBlocking().first();
+            }
+        }, new ModelAdapter(), logger);
+
+        store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, -1L, 0, 200, 0, ChatTestConst.ETAG);
+
+        mockedComapiClient.addMockedResult(new MockResult<>(createEventsResponse("page1-", 100), true, ChatTestConst.ETAG, 200));
+        mockedComapiClient.addMockedResult(new MockResult<>(createEventsResponse("page2-", 10), true, ChatTestConst.ETAG, 200));
+
+        final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> savedMessages = Collections.synchronizedList(new ArrayList<>());
+        mockedComapiClient.setEventsQueryListener((conversationId, from, limit) -> {
+            queries.add(conversationId + ":" + from);
+            savedMessages.add(store.getMessages().size());
+        });
+
+        List<ChatConversation> conversations = new ArrayList<>();
+        conversations.add(ChatConversation.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setFirstLocalEventId(-1L).setLastLocalEventId(0L).setLastRemoteEventId(200L).build());
+
+        Method method = chatController.getClass().getDeclaredMethod("synchroniseEvents", RxComapiClient.class, List.class, List.class, Boolean.TYPE, SynchronisationTracker.class);
+        method.setAccessible(true);
+        Boolean result = (Boolean) ((Observable) method.invoke(chatController, mockedComapiClient, conversations, new ArrayList<>(), false, new SynchronisationTracker())).toBlocking().first();
+
         assertTrue(result);
+        assertEquals(2, queries.size());
+        assertEquals(ChatTestConst.CONVERSATION_ID1 + ":0", queries.get(0));
+        assertEquals(ChatTestConst.CONVERSATION_ID1 + ":100", queries.get(1));
+        // Query for the next turn started before the first page was saved
+        assertEquals(0, (int) savedMessages.get(1));
+        assertEquals(110, store.getMessages().size());
     }
 
     @Test
-    public void test_queryEventsRecursively_largeNumber() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException {
+    public void test_synchroniseEvents_largeNumber() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException {
 
         store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, -1L, 1, 3, 0, ChatTestConst.ETAG);
 
@@ -1166,18 +1323,61 @@ public class ControllerTest {
             index = newIndex;
         }
 
-        ChatController.ConversationComparison comparison = chatController.new ConversationComparison(true, new HashMap<>(), new HashMap<>());
-        comparison.conversationsToUpdate.add(ChatConversation.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setFirstLocalEventId(-1L).setLastLocalEventId(-1L).setLastRemoteEventId(-1L).build());
+        List<ChatConversation> conversations = new ArrayList<>();
+        conversations.add(ChatConversation.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setFirstLocalEventId(-1L).setLastLocalEventId(1L).setLastRemoteEventId(3L).build());
 
-        Method method = chatController.getClass().getDeclaredMethod("queryEventsRecursively", RxComapiClient.class, String.class, Long.TYPE, Integer.TYPE, List.class);
+        Method method = chatController.getClass().getDeclaredMethod("synchroniseEvents", RxComapiClient.class, List.class, List.class, Boolean.TYPE, SynchronisationTracker.class);
         method.setAccessible(true);
-        ((Observable) method.invoke(chatController, mockedComapiClient, ChatTestConst.CONVERSATION_ID1, -1, 0, new ArrayList<Boolean>())).toBlocking().first();
+        Boolean result = (Boolean) ((Observable) method.invoke(chatController, mockedComapiClient, conversations, new ArrayList<>(), false, new SynchronisationTracker())).toBlocking().first();
 
-        assertFalse(comparison.isSuccessful);
+        assertTrue(result);
         assertEquals(999, store.getMessages().size());
         assertEquals(2, store.getMessages().get("60526ba0-76b3-4f33-9e2e-20f4a8bb548b").getStatusUpdates().size());
     }
 
+    @Test
+    public void test_synchroniseEvents_activeFirstThenRoundRobin() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException {
+
+        ChatController chatController = new ChatController(mockedComapiClient, persistenceController, attachmentController, new InternalConfig().limitEventsPerQuery(100).limitConversationsInFlight(1).limitEventPagesPrefetched(0), new ObservableExecutor() {
+            @Override
+            public <T> void execute(Observable<T> obs) {
+                obs.toBlocking().first();
+            }
+        }, new ModelAdapter(), logger);
+        chatController.setActiveConversation(ChatTestConst.CONVERSATION_ID2);
+
+        List<ChatConversation> conversations = new ArrayList<>();
+        for (String id : new String[]{ChatTestConst.CONVERSATION_ID1, ChatTestConst.CONVERSATION_ID2, ChatTestConst.CONVERSATION_ID3}) {
+            store.addConversationToStore(id, -1L, 0, 300, 0, ChatTestConst.ETAG);
+            conversations.add(ChatConversation.builder().setConversationId(id).setFirstLocalEventId(-1L).setLastLocalEventId(0L).setLastRemoteEventId(300L).build());
+        }
+
+        // Full pages keep the conversation in the queue, short pages finish it
+        mockedComapiClient.addMockedResult(new MockResult<>(createEventsResponse("a", 100), true, ChatTestConst.ETAG, 200));
+        mockedComapiClient.addMockedResult(new MockResult<>(createEventsResponse("b", 10), true, ChatTestConst.ETAG, 200));
+        mockedComapiClient.addMockedResult(new MockResult<>(createEventsResponse("c", 100), true, ChatTestConst.ETAG, 200));
+        mockedComapiClient.addMockedResult(new MockResult<>(createEventsResponse("d", 100), true, ChatTestConst.ETAG, 200));
+        mockedComapiClient.addMockedResult(new MockResult<>(createEventsResponse("e", 10), true, ChatTestConst.ETAG, 200));
+        mockedComapiClient.addMockedResult(new MockResult<>(createEventsResponse("f", 10), true, ChatTestConst.ETAG, 200));
+
+        final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+        mockedComapiClient.setEventsQueryListener((conversationId, from, limit) -> queries.add(conversationId + ":" + from));
+
+        Method method = chatController.getClass().getDeclaredMethod("synchroniseEvents", RxComapiClient.class, List.class, List.class, Boolean.TYPE, SynchronisationTracker.class);
+        method.setAccessible(true);
+        Boolean result = (Boolean) ((Observable) method.invoke(chatController, mockedComapiClient, conversations, new ArrayList<>(), false, new SynchronisationTracker())).toBlocking().first();
+
+        assertTrue(result);
+        // Active conversation is synchronised to the end first, the others take turns of a single query
+        assertEquals(6, queries.size());
+        assertEquals(ChatTestConst.CONVERSATION_ID2 + ":0", queries.get(0));
+        assertEquals(ChatTestConst.CONVERSATION_ID2 + ":100", queries.get(1));
+        assertEquals(ChatTestConst.CONVERSATION_ID1 + ":0", queries.get(2));
+        assertEquals(ChatTestConst.CONVERSATION_ID3 + ":0", queries.get(3));
+        assertEquals(ChatTestConst.CONVERSATION_ID1 + ":100", queries.get(4));
+        assertEquals(ChatTestConst.CONVERSATION_ID3 + ":100", queries.get(5));
+    }
+
     @Test
     public void test_queryMissingEvents() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException {
 
@@ -1222,43 +1422,161 @@ public class ControllerTest {
     }
 
     @Test
-    public void test_synchroniseStore() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, NoSuchFieldException {
+    public void test_synchroniseStore() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+
+        Method method = chatController.getClass().getDeclaredMethod("synchroniseStore");
+        method.setAccessible(true);
+
+        mockedComapiClient.addMockedResult(new MockResult<>(null, false, ChatTestConst.ETAG, 500));
+        assertFalse(((ChatResult) ((Observable) method.invoke(chatController)).toBlocking().first()).isSuccessful());
+    }
+
+    @Test
+    public void test_synchroniseStore_resumedWithoutComparingConversationList() {
+
+        ChatConversationBase conversationInStore = ChatConversationBase.baseBuilder()
+                .setConversationId(ChatTestConst.CONVERSATION_ID1)
+                .setETag("eTag-0")
+                .setFirstLocalEventId(1L)
+                .setLastLocalEventId(2L)
+                .setLastRemoteEventId(2L)
+                .setUpdatedOn(0L)
+                .build();
+        store.getConversations().put(ChatTestConst.CONVERSATION_ID1, conversationInStore);
+
+        db.saveSyncCheckpoints(Collections.singletonList(DbSyncCheckpoint.create(ChatTestConst.CONVERSATION_ID1, 1, 1, false, System.currentTimeMillis()))).toBlocking().first();
 
-        Field f1 = chatController.getClass().getDeclaredField("isSynchronising");
-        f1.setAccessible(true);
-        AtomicBoolean isSynchronising = (AtomicBoolean) f1.get(chatController);
+        // Conversation list query would fail the synchronisation if it was made
+        mockedComapiClient.addMockedResult(new MockResult<>(null, false, ChatTestConst.ETAG, 500));
+
+        assertTrue(chatController.synchroniseStore().toBlocking().first().isSuccessful());
+        assertTrue(db.querySyncCheckpoints(0).toBlocking().first().isEmpty());
+    }
+
+    @Test
+    public void test_synchroniseStore_joinsSynchronisationInProgress() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
 
         Method method = chatController.getClass().getDeclaredMethod("synchroniseStore");
         method.setAccessible(true);
 
-        isSynchronising.set(true);
-        assertTrue(((ChatResult) ((Observable) method.invoke(chatController)).toBlocking().first()).isSuccessful());
-        isSynchronising.set(false);
+        mockedComapiClient.addMockedResult(new MockResult<>(null, false, ChatTestConst.ETAG, 500));
+
+        Observable first = (Observable) method.invoke(chatController);
+        Observable second = (Observable) method.invoke(chatController);
+        assertSame(first, second);
+
+        assertFalse(((ChatResult) first.toBlocking().first()).isSuccessful());
+        assertFalse(((ChatResult) second.toBlocking().first()).isSuccessful());
+
+        assertNotSame(first, method.invoke(chatController));
+    }
+
+    @Test
+    public void test_synchroniseStore_joinDoesNotQueueFollowUp() {
+
+        final List<Observable<?>> executed = new ArrayList<>();
+
+        ChatController chatController = new ChatController(mockedComapiClient, persistenceController, attachmentController, new InternalConfig(), new ObservableExecutor() {
+            @Override
+            public <T> void execute(Observable<T> obs) {
+                executed.add(obs);
+            }
+        }, new ModelAdapter(), logger);
 
         mockedComapiClient.addMockedResult(new MockResult<>(null, false, ChatTestConst.ETAG, 500));
-        assertFalse(((ChatResult) ((Observable) method.invoke(chatController)).toBlocking().first()).isSuccessful());
+
+        Observable<ChatResult> first = chatController.synchroniseStore();
+        Observable<SynchronisationProgress> joined = chatController.synchroniseStoreWithProgress();
+
+        assertFalse(first.toBlocking().first().isSuccessful());
+        joined.toBlocking().lastOrDefault(null);
+
+        // Callers joining the running synchronisation share its result, no second synchronisation is started
+        assertTrue(executed.isEmpty());
     }
 
     @Test
-    public void test_callLimiter() {
+    public void test_synchronisationStale() {
+
+        assertTrue(chatController.isSynchronisationStale());
+
+        chatController.handleSocketConnected();
+        mockedComapiClient.addMockedResult(new MockResult<>(new ArrayList<Conversation>(), true, ChatTestConst.ETAG, 200));
+        assertTrue(chatController.synchroniseStore().toBlocking().first().isSuccessful());
+        assertFalse(chatController.isSynchronisationStale());
+
+        chatController.handleSocketDisconnected();
+        assertTrue(chatController.isSynchronisationStale());
+    }
+
+    @Test
+    public void test_foregroundedTakesLimiterTokenOnlyWhenSynchronising() {
+
+        final List<Observable<?>> executed = new ArrayList<>();
+
+        ChatController chatController = new ChatController(mockedComapiClient, persistenceController, attachmentController, new InternalConfig().limitAutoSyncBurst(2), new ObservableExecutor() {
+            @Override
+            public <T> void execute(Observable<T> obs) {
+                executed.add(obs);
+            }
+        }, new ModelAdapter(), logger);
+
+        chatController.handleSocketConnected();
+        mockedComapiClient.addMockedResult(new MockResult<>(new ArrayList<Conversation>(), true, ChatTestConst.ETAG, 200));
+        assertTrue(chatController.synchroniseStore().toBlocking().first().isSuccessful());
+        assertEquals(2, chatController.observeAutoSyncLimiter().toBlocking().first().getTokens());
+
+        // Fresh store, staleness check doesn't take a token
+        chatController.handleForegrounded();
+        assertEquals(2, chatController.observeAutoSyncLimiter().toBlocking().first().getTokens());
+
+        // Stale store, new synchronisation takes a token
+        chatController.handleSocketDisconnected();
+        chatController.handleForegrounded();
+        assertEquals(1, chatController.observeAutoSyncLimiter().toBlocking().first().getTokens());
+
+        // Joining the running synchronisation doesn't take a token
+        executed.clear();
+        chatController.handleForegrounded();
+        assertEquals(1, chatController.observeAutoSyncLimiter().toBlocking().first().getTokens());
+        assertEquals(1, executed.size());
+    }
 
-        CallLimiter limiter = new CallLimiter(10, 3, TimeUnit.SECONDS, 1, 1, TimeUnit.SECONDS, 1);
-        assertTrue(limiter.checkAndIncrease());
-        assertFalse(limiter.checkAndIncrease());
+    @Test
+    public void test_callLimiter() {
 
-        limiter = new CallLimiter(1, 1, TimeUnit.MINUTES, 1, 10, TimeUnit.MINUTES, 1);
-        assertTrue(limiter.checkAndIncrease());
-        assertFalse(limiter.checkAndIncrease());
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 60000, 0, 0);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertTrue(limiter.getState().isSuppressed());
 
-        limiter = new CallLimiter(1, 1, TimeUnit.MINUTES, 1, 10, TimeUnit.MINUTES, 0);
-        assertTrue(limiter.checkAndIncrease());
-        assertFalse(limiter.checkAndIncrease());
+        limiter = new TokenBucketLimiter(1, 50, 0, 0);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
         try {
             sleep(100);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
-        assertTrue(limiter.checkAndIncrease());
+        assertTrue(limiter.tryAcquire());
+
+        limiter = new TokenBucketLimiter(10, 1, 60000, 60000);
+        limiter.onFailure();
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getState().getFailures());
+        limiter.onSuccess();
+        assertTrue(limiter.tryAcquire());
+
+        limiter = new TokenBucketLimiter(10, 1, 50, 100);
+        limiter.onFailure();
+        assertFalse(limiter.tryAcquire());
+        try {
+            sleep(150);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        assertTrue(limiter.tryAcquire());
     }
 
 
@@ -1277,4 +1595,24 @@ public class ControllerTest {
         list.add(Attachment.create(new byte[0], "dataType", "test", "name"));
         return list;
     }
-}
\ No newline at end of file
+
+    private ConversationEventsResponse createEventsResponse(String messageIdPrefix, int count) throws IOException {
+
+        String json = FileResHelper.readFromFile(this, "rest_events_query.json");
+        Parser parser = new Parser();
+
+        Type listType = new TypeToken<ArrayList<JsonObject>>() {
+        }.getType();
+        String str = new Gson().<List<JsonObject>>fromJson(json, listType).get(0).toString();
+
+        List<JsonObject> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JsonObject newObj = parser.parse(str, JsonObject.class);
+            newObj.getAsJsonObject("payload").remove("messageId");
+            newObj.getAsJsonObject("payload").addProperty("messageId", messageIdPrefix + i);
+            list.add(newObj);
+        }
+
+        return new ConversationEventsResponse(list, parser);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.internal.DeliveryReceiptsAggregator;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeliveryReceiptsTest {
+
+    @Test
+    public void test_batchSize() {
+
+        final Map<String, Set<String>> sent = new HashMap<>();
+        DeliveryReceiptsAggregator aggregator = new DeliveryReceiptsAggregator(sent::put, 60000, 3);
+        assertTrue(aggregator.isEnabled());
+
+        aggregator.add("id-1", "m1");
+        aggregator.add("id-1", "m2");
+        aggregator.add("id-2", "m3");
+        assertTrue(sent.isEmpty());
+
+        aggregator.add("id-1", "m4");
+        assertEquals(1, sent.size());
+        assertEquals(3, sent.get("id-1").size());
+
+        aggregator.flush();
+        assertEquals(2, sent.size());
+        assertEquals(1, sent.get("id-2").size());
+    }
+
+    @Test
+    public void test_window() throws InterruptedException {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Map<String, Set<String>> sent = new HashMap<>();
+        DeliveryReceiptsAggregator aggregator = new DeliveryReceiptsAggregator((conversationId, ids) -> {
+            sent.put(conversationId, ids);
+            latch.countDown();
+        }, 100, 100);
+
+        aggregator.add("id-1", "m1");
+        aggregator.add("id-1", "m2");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(2, sent.get("id-1").size());
+    }
+
+    @Test
+    public void test_drain() {
+
+        final Map<String, Set<String>> sent = new HashMap<>();
+        DeliveryReceiptsAggregator aggregator = new DeliveryReceiptsAggregator(sent::put, 60000, 100);
+
+        aggregator.add("id-1", "m1");
+        aggregator.add("id-2", "m2");
+
+        Map<String, Set<String>> drained = aggregator.drain();
+        assertEquals(2, drained.size());
+        assertTrue(drained.get("id-1").contains("m1"));
+        assertTrue(sent.isEmpty());
+        assertTrue(aggregator.drain().isEmpty());
+    }
+
+    @Test
+    public void test_disabled() {
+        assertFalse(new DeliveryReceiptsAggregator((conversationId, ids) -> {}, 0, 100).isEnabled());
+    }
+}
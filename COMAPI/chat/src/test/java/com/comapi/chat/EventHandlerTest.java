@@ -177,7 +177,7 @@ public class EventHandlerTest {
 
         ModelAdapter modelAdapter = new ModelAdapter();
         db = Database.getInstance(RuntimeEnvironment.application, true, new Logger(logMgr, ""));
-        persistenceController = new PersistenceController(db, modelAdapter, factory, logger);
+        persistenceController = new PersistenceController(db, modelAdapter, factory, new InternalConfig(), logger);
 
         InternalConfig internal = new InternalConfig();
 
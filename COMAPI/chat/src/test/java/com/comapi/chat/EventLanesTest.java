@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.internal.EventLanes;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventLanesTest {
+
+    @Test
+    public void test_orderInLane() throws InterruptedException {
+
+        EventLanes lanes = new EventLanes(2);
+        final List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch latch = new CountDownLatch(5);
+
+        for (int i = 0; i < 5; i++) {
+            final int id = i;
+            // Earlier events take longer to process
+            Observable<Integer> task = Observable.timer(50 - 10 * i, TimeUnit.MILLISECONDS).map(tick -> id).doOnNext(processed::add);
+            lanes.serialise("conversation-1", task).subscribe(result -> latch.countDown());
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(5, processed.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(i), processed.get(i));
+        }
+        assertEquals(0, lanes.getQueueDepth());
+    }
+
+    @Test
+    public void test_orderAcrossLanes() throws InterruptedException {
+
+        EventLanes lanes = new EventLanes(2);
+        final List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch latch = new CountDownLatch(3);
+
+        // Keys "a" and "b" are assigned to different lanes
+        lanes.serialise("a", Observable.timer(100, TimeUnit.MILLISECONDS).map(tick -> "a").doOnNext(processed::add)).subscribe(result -> latch.countDown());
+        lanes.serialise(Arrays.asList("a", "b"), Observable.just("ab").doOnNext(processed::add)).subscribe(result -> latch.countDown());
+        lanes.serialise("b", Observable.just("b").doOnNext(processed::add)).subscribe(result -> latch.countDown());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a", "ab", "b"), processed);
+        assertEquals(0, lanes.getQueueDepth());
+        lanes.shutdown();
+    }
+
+    @Test
+    public void test_errorDoesNotStopLane() throws InterruptedException {
+
+        EventLanes lanes = new EventLanes(1);
+        final CountDownLatch failed = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        lanes.serialise("conversation-1", Observable.error(new Exception("test"))).subscribe(result -> {
+        }, error -> failed.countDown());
+        lanes.serialise("conversation-1", Observable.just(1)).subscribe(result -> latch.countDown());
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, lanes.getQueueDepth());
+        lanes.shutdown();
+    }
+
+    @Test
+    public void test_shutdown() {
+
+        EventLanes lanes = new EventLanes(2);
+        lanes.shutdown();
+
+        assertEquals(Integer.valueOf(1), lanes.serialise("conversation-1", Observable.just(1)).toBlocking().first());
+        assertEquals(0, lanes.getQueueDepth());
+    }
+
+    @Test
+    public void test_queuedOnSubscription() throws InterruptedException {
+
+        EventLanes lanes = new EventLanes(1);
+        final AtomicBoolean isExecuted = new AtomicBoolean(false);
+
+        Observable<Integer> serialised = lanes.serialise("conversation-1", Observable.just(1).doOnNext(result -> isExecuted.set(true)));
+
+        assertEquals(0, lanes.getQueueDepth());
+        assertFalse(isExecuted.get());
+
+        assertEquals(Integer.valueOf(1), serialised.toBlocking().first());
+        assertTrue(isExecuted.get());
+        assertEquals(0, lanes.getQueueDepth());
+        lanes.shutdown();
+    }
+
+    @Test
+    public void test_shutdownTerminatesPendingTasks() throws InterruptedException {
+
+        EventLanes lanes = new EventLanes(1);
+        final CountDownLatch failed = new CountDownLatch(2);
+
+        lanes.serialise("conversation-1", Observable.never()).subscribe(result -> {
+        }, error -> failed.countDown());
+        lanes.serialise(Arrays.asList("conversation-1", "conversation-2"), Observable.just(1)).subscribe(result -> {
+        }, error -> failed.countDown());
+        assertEquals(2, lanes.getQueueDepth("conversation-1"));
+
+        lanes.shutdown();
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, lanes.getQueueDepth());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.internal.EventQueriesRegistry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventQueriesRegistryTest {
+
+    @Test
+    public void test_sameRange_joinsQuery() {
+
+        EventQueriesRegistry<String> registry = new EventQueriesRegistry<>();
+        final List<String> queries = new ArrayList<>();
+        final PublishSubject<String> response = PublishSubject.create();
+        EventQueriesRegistry.Fetcher<String> fetcher = (from, limit) -> {
+            queries.add(from + ":" + limit);
+            return response.first();
+        };
+
+        List<EventQueriesRegistry.Part<String>> first = new ArrayList<>();
+        List<EventQueriesRegistry.Part<String>> second = new ArrayList<>();
+        registry.query("id-1", 10, 5, fetcher).subscribe(first::add);
+        registry.query("id-1", 10, 5, fetcher).subscribe(second::add);
+        assertEquals(1, registry.getQueriesInProgress());
+
+        response.onNext("result");
+
+        assertEquals(1, queries.size());
+        assertEquals("10:5", queries.get(0));
+        assertEquals(1, first.size());
+        assertFalse(first.get(0).isShared);
+        assertEquals(1, second.size());
+        assertTrue(second.get(0).isShared);
+        assertEquals("result", second.get(0).result);
+        assertEquals(0, registry.getQueriesInProgress());
+    }
+
+    @Test
+    public void test_overlappingRange_queriesRemainder() {
+
+        EventQueriesRegistry<String> registry = new EventQueriesRegistry<>();
+        final List<String> queries = new ArrayList<>();
+        final PublishSubject<String> response = PublishSubject.create();
+        EventQueriesRegistry.Fetcher<String> fetcher = (from, limit) -> {
+            queries.add(from + ":" + limit);
+            return from == 10 ? response.first() : Observable.just(from + ":" + limit);
+        };
+
+        registry.query("id-1", 10, 10, fetcher).subscribe();
+        List<EventQueriesRegistry.Part<String>> parts = new ArrayList<>();
+        registry.query("id-1", 5, 20, fetcher).subscribe(parts::add);
+        response.onNext("10:10");
+
+        assertEquals(3, queries.size());
+        assertEquals(3, parts.size());
+        assertEquals("5:5", parts.get(0).result);
+        assertFalse(parts.get(0).isShared);
+        assertEquals("10:10", parts.get(1).result);
+        assertTrue(parts.get(1).isShared);
+        assertEquals("20:5", parts.get(2).result);
+        assertFalse(parts.get(2).isShared);
+        assertEquals(0, registry.getQueriesInProgress());
+    }
+
+    @Test
+    public void test_queryInProgressStartsBeforeRange_clipsSharedPart() {
+
+        EventQueriesRegistry<String> registry = new EventQueriesRegistry<>();
+        final List<String> queries = new ArrayList<>();
+        final PublishSubject<String> response = PublishSubject.create();
+        EventQueriesRegistry.Fetcher<String> fetcher = (from, limit) -> {
+            queries.add(from + ":" + limit);
+            return from == 50 ? response.first() : Observable.just(from + ":" + limit);
+        };
+
+        registry.query("id-1", 50, 100, fetcher).subscribe();
+        List<EventQueriesRegistry.Part<String>> parts = new ArrayList<>();
+        registry.query("id-1", 100, 100, fetcher).subscribe(parts::add);
+        response.onNext("50:100");
+
+        assertEquals(2, queries.size());
+        assertEquals("150:50", queries.get(1));
+        assertEquals(2, parts.size());
+        // shared part reports only the requested events, so parts add up to the requested range
+        assertTrue(parts.get(0).isShared);
+        assertEquals(100, parts.get(0).from);
+        assertEquals(50, parts.get(0).limit);
+        assertFalse(parts.get(1).isShared);
+        assertEquals(150, parts.get(1).from);
+        assertEquals(50, parts.get(1).limit);
+    }
+
+    @Test
+    public void test_notSubscribed_notRegistered() {
+
+        EventQueriesRegistry<String> registry = new EventQueriesRegistry<>();
+        final List<String> queries = new ArrayList<>();
+        EventQueriesRegistry.Fetcher<String> fetcher = (from, limit) -> {
+            queries.add(from + ":" + limit);
+            return Observable.never();
+        };
+
+        registry.query("id-1", 10, 5, fetcher);
+        assertEquals(0, registry.getQueriesInProgress());
+        assertTrue(queries.isEmpty());
+
+        Subscription first = registry.query("id-1", 10, 5, fetcher).subscribe();
+        Subscription second = registry.query("id-1", 10, 5, fetcher).subscribe();
+        assertEquals(1, registry.getQueriesInProgress());
+        assertEquals(1, queries.size());
+
+        first.unsubscribe();
+        assertEquals(1, registry.getQueriesInProgress());
+        second.unsubscribe();
+        assertEquals(0, registry.getQueriesInProgress());
+    }
+
+    @Test
+    public void test_differentConversations_notShared() {
+
+        EventQueriesRegistry<String> registry = new EventQueriesRegistry<>();
+        EventQueriesRegistry.Fetcher<String> fetcher = (from, limit) -> Observable.never();
+
+        registry.query("id-1", 10, 5, fetcher).subscribe();
+        registry.query("id-2", 10, 5, fetcher).subscribe();
+        assertEquals(2, registry.getQueriesInProgress());
+    }
+}
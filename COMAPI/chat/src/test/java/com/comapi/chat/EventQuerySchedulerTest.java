@@ -0,0 +1,278 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.internal.EventQueriesRegistry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rx.Observable;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EventQuerySchedulerTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final EventQueriesRegistry<Integer> registry = new EventQueriesRegistry<>();
+
+    private final List<String> queries = new ArrayList<>();
+
+    private int pageSize = PAGE_SIZE;
+
+    /**
+     * Number of events stored on the server per conversation.
+     */
+    private final Map<String, Integer> events = new HashMap<>();
+
+    private Observable<List<EventQueriesRegistry.Part<Integer>>> query(String conversationId, long from) {
+        return registry.query(conversationId, from, pageSize, (queryFrom, queryLimit) -> {
+            queries.add(conversationId + ":" + queryFrom);
+            return Observable.just((int) Math.max(0, Math.min(queryLimit, events.get(conversationId) - queryFrom)));
+        }).toList();
+    }
+
+    private EventQueryScheduler<Integer> create(String activeId, int queriesPerTurn, int maxPagesPrefetched, String... conversationIds) {
+        List<EventQueryScheduler.Cursor> cursors = new ArrayList<>();
+        for (String id : conversationIds) {
+            cursors.add(new EventQueryScheduler.Cursor(id, 0, 0));
+        }
+        return new EventQueryScheduler<>(cursors, this::query, result -> result, id -> id.equals(activeId), queriesPerTurn, 1000, maxPagesPrefetched);
+    }
+
+    /**
+     * Saves pages of a single turn.
+     *
+     * @return Synchronisation state after the turn.
+     */
+    private EventQueryScheduler.Cursor runTurn(EventQueryScheduler<Integer> scheduler, EventQueryScheduler.Page<Integer> page) {
+        while (true) {
+            scheduler.getResponse(page).toBlocking().first();
+            scheduler.onSaved(page);
+            EventQueryScheduler.Page<Integer> following = scheduler.getFollowing(page);
+            if (following == null) {
+                return scheduler.getNext(page);
+            }
+            page = following;
+        }
+    }
+
+    private void runAll(EventQueryScheduler<Integer> scheduler) {
+        EventQueryScheduler.Page<Integer> page;
+        while ((page = scheduler.nextTurn()) != null) {
+            scheduler.onTurnFinished(runTurn(scheduler, page));
+        }
+    }
+
+    @Test
+    public void test_turnsLimitedByQuota() {
+
+        events.put("a", 25);
+        events.put("b", 25);
+
+        runAll(create(null, 2, 0, "a", "b"));
+
+        assertEquals(Arrays.asList("a:0", "a:10", "b:0", "b:10", "a:20", "b:20"), queries);
+    }
+
+    @Test
+    public void test_activeConversationDoesNotYield() {
+
+        events.put("a", 25);
+        events.put("b", 25);
+
+        runAll(create("b", 1, 0, "a", "b"));
+
+        assertEquals(Arrays.asList("b:0", "b:10", "b:20", "a:0", "a:10", "a:20"), queries);
+    }
+
+    @Test
+    public void test_nextTurnPagePrefetched() {
+
+        events.put("a", 15);
+
+        EventQueryScheduler<Integer> scheduler = create(null, 1, 1, "a");
+        EventQueryScheduler.Page<Integer> page = scheduler.nextTurn();
+        scheduler.getResponse(page).toBlocking().first();
+        // First page of the next turn queried before this one is saved
+        assertEquals(Arrays.asList("a:0", "a:10"), queries);
+
+        scheduler.onSaved(page);
+        scheduler.onTurnFinished(scheduler.getNext(page));
+        runAll(scheduler);
+        assertEquals(Arrays.asList("a:0", "a:10"), queries);
+    }
+
+    @Test
+    public void test_eventsLimitWithSmallerPages() {
+
+        events.put("a", 1000);
+        pageSize = 5;
+
+        EventQueryScheduler<Integer> scheduler = new EventQueryScheduler<>(Collections.singletonList(new EventQueryScheduler.Cursor("a", 0, 0)), this::query,
+                result -> result, id -> false, 100, 3 * PAGE_SIZE, 0);
+
+        EventQueryScheduler.Cursor next = runTurn(scheduler, scheduler.nextTurn());
+
+        // Limit of three full pages lets twice as many half-size pages through
+        assertTrue(next.isFinished);
+        assertEquals(30, next.from);
+        assertEquals(30, next.events);
+        assertEquals(Arrays.asList("a:0", "a:5", "a:10", "a:15", "a:20", "a:25", "a:30"), queries);
+    }
+
+    @Test
+    public void test_failedQueryFinishesConversation() {
+
+        events.put("a", 25);
+
+        EventQueryScheduler<Integer> scheduler = new EventQueryScheduler<>(Collections.singletonList(new EventQueryScheduler.Cursor("a", 0, 0)), this::query,
+                result -> queries.size() > 1 ? 0 : result, id -> false, 5, 1000, 0);
+
+        EventQueryScheduler.Cursor next = runTurn(scheduler, scheduler.nextTurn());
+
+        // Failed query is treated as a short page, the conversation is finished from the last successful page
+        assertTrue(next.isFinished);
+        assertEquals(10, next.from);
+        scheduler.onTurnFinished(next);
+        assertNull(scheduler.nextTurn());
+    }
+
+    @Test
+    public void test_queryError() {
+
+        events.put("b", 5);
+
+        EventQueryScheduler<Integer> scheduler = new EventQueryScheduler<>(Arrays.asList(new EventQueryScheduler.Cursor("a", 0, 0), new EventQueryScheduler.Cursor("b", 0, 0)),
+                (conversationId, from) -> "a".equals(conversationId) ? Observable.error(new Exception("test")) : query(conversationId, from),
+                result -> result, id -> false, 5, 1000, 1);
+
+        EventQueryScheduler.Page<Integer> page = scheduler.nextTurn();
+        Throwable error = null;
+        try {
+            scheduler.getResponse(page).toBlocking().first();
+        } catch (Exception e) {
+            error = e;
+        }
+        assertNotNull(error);
+        assertNull(scheduler.getFollowing(page));
+        assertNull(scheduler.getNext(page));
+
+        // Other conversations are still served
+        page = scheduler.nextTurn();
+        assertEquals("b", page.cursor.conversationId);
+        assertTrue(runTurn(scheduler, page).isFinished);
+        assertNull(scheduler.nextTurn());
+    }
+
+    @Test
+    public void test_abandonedPrefetchNotUsed() {
+
+        events.put("a", 15);
+
+        EventQueryScheduler<Integer> scheduler = create(null, 1, 1, "a");
+        EventQueryScheduler.Page<Integer> page = scheduler.nextTurn();
+        scheduler.getResponse(page).toBlocking().first();
+        scheduler.onSaved(page);
+        assertEquals(Arrays.asList("a:0", "a:10"), queries);
+
+        // Turn progress discarded e.g. because saving the page failed, the page prefetched from the discarded progress is dropped
+        scheduler.onTurnFinished(new EventQueryScheduler.Cursor("a", 0, 0));
+        page = scheduler.nextTurn();
+        assertEquals(0, page.cursor.from);
+        runTurn(scheduler, page);
+        assertEquals("a:0", queries.get(2));
+    }
+
+    @Test
+    public void test_prefetchBoundBySavedPages() {
+
+        events.put("a", 100);
+
+        EventQueryScheduler<Integer> scheduler = create(null, 5, 1, "a");
+        EventQueryScheduler.Page<Integer> page = scheduler.nextTurn();
+        scheduler.getResponse(page).toBlocking().first();
+        scheduler.getResponse(scheduler.getFollowing(page)).toBlocking().first();
+        // Only one page is queried ahead of the first page that hasn't been saved
+        assertEquals(Arrays.asList("a:0", "a:10"), queries);
+
+        scheduler.onSaved(page);
+        assertEquals(Arrays.asList("a:0", "a:10", "a:20"), queries);
+    }
+
+    @Test
+    public void test_prefetchConversationServedNext() {
+
+        events.put("a", 100);
+        events.put("b", 100);
+
+        EventQueryScheduler<Integer> scheduler = create(null, 1, 1, "a", "b");
+        EventQueryScheduler.Page<Integer> page = scheduler.nextTurn();
+        scheduler.getResponse(page).toBlocking().first();
+        // Next turn belongs to the first conversation in the queue
+        assertEquals(Arrays.asList("a:0", "b:0"), queries);
+
+        scheduler.onSaved(page);
+        scheduler.onTurnFinished(scheduler.getNext(page));
+        page = scheduler.nextTurn();
+        assertEquals("b", page.cursor.conversationId);
+        scheduler.getResponse(page).toBlocking().first();
+        assertEquals(Arrays.asList("a:0", "b:0", "a:10"), queries);
+    }
+
+    @Test
+    public void test_shutdownCancelsPrefetchedPages() {
+
+        final List<PublishSubject<Integer>> responses = new ArrayList<>();
+        EventQueryScheduler<Integer> scheduler = new EventQueryScheduler<>(Arrays.asList(new EventQueryScheduler.Cursor("a", 0, 0), new EventQueryScheduler.Cursor("b", 0, 0)),
+                (conversationId, from) -> registry.query(conversationId, from, pageSize, (queryFrom, queryLimit) -> {
+                    if ("a".equals(conversationId)) {
+                        return Observable.just(queryLimit);
+                    }
+                    PublishSubject<Integer> response = PublishSubject.create();
+                    responses.add(response);
+                    return response;
+                }).toList(),
+                result -> result, id -> false, 1, 1000, 1);
+
+        EventQueryScheduler.Page<Integer> page = scheduler.nextTurn();
+        scheduler.getResponse(page).toBlocking().first();
+        assertEquals(1, responses.size());
+        assertTrue(responses.get(0).hasObservers());
+
+        // Synchronisation terminated before the prefetched page was used
+        scheduler.shutdown();
+        assertFalse(responses.get(0).hasObservers());
+        assertEquals(0, registry.getQueriesInProgress());
+        assertNull(scheduler.nextTurn());
+    }
+}
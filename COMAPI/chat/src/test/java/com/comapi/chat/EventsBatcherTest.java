@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.model.ChatMessage;
+import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.LocalMessageStatus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventsBatcherTest {
+
+    @Test
+    public void test_batchSize() {
+
+        final List<Map<String, List<ChatMessage>>> batches = new ArrayList<>();
+        EventsBatcher batcher = new EventsBatcher((messages, statuses) -> batches.add(messages), 60000, 3);
+        assertTrue(batcher.isEnabled());
+
+        batcher.add(ChatMessage.builder().setConversationId("id-1").setMessageId("m1").build());
+        batcher.add(ChatMessage.builder().setConversationId("id-2").setMessageId("m2").build());
+        assertTrue(batches.isEmpty());
+
+        batcher.add(ChatMessage.builder().setConversationId("id-1").setMessageId("m3").build());
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).get("id-1").size());
+        assertEquals(1, batches.get(0).get("id-2").size());
+
+        batcher.flush();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void test_window() throws InterruptedException {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Map<String, List<ChatMessageStatus>>> batches = new ArrayList<>();
+        EventsBatcher batcher = new EventsBatcher((messages, statuses) -> {
+            batches.add(statuses);
+            latch.countDown();
+        }, 100, 100);
+
+        batcher.add(ChatMessageStatus.builder().populate("id-1", "m1", "p1", LocalMessageStatus.delivered, 0L, null).build());
+        batcher.add(ChatMessageStatus.builder().populate("id-1", "m2", "p1", LocalMessageStatus.delivered, 0L, null).build());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).get("id-1").size());
+    }
+
+    @Test
+    public void test_addWhileListenerProcessesBatch() throws InterruptedException {
+
+        final CountDownLatch inListener = new CountDownLatch(1);
+        final CountDownLatch added = new CountDownLatch(1);
+        final List<Map<String, List<ChatMessage>>> batches = new ArrayList<>();
+        final EventsBatcher batcher = new EventsBatcher((messages, statuses) -> {
+            batches.add(messages);
+            inListener.countDown();
+            try {
+                added.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 60000, 1);
+
+        new Thread(() -> batcher.add(ChatMessage.builder().setConversationId("id-1").setMessageId("m1").build())).start();
+        assertTrue(inListener.await(5, TimeUnit.SECONDS));
+
+        // Listener is called outside the lock collecting events
+        new Thread(() -> {
+            synchronized (batcher) {
+                added.countDown();
+            }
+        }).start();
+        assertTrue(added.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_disabled() {
+        assertFalse(new EventsBatcher((messages, statuses) -> {}, 0, 100).isEnabled());
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.helpers.TestChatStore;
+import com.comapi.chat.model.ChatStore;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GroupCommitStoreFactoryTest {
+
+    @Test
+    public void test_groupCommit() throws InterruptedException {
+
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+
+        final TestChatStore store = new TestChatStore() {
+            @Override
+            public void endTransaction() {
+                commits.incrementAndGet();
+            }
+        };
+
+        GroupCommitStoreFactory factory = new GroupCommitStoreFactory(factory(store), 10, null);
+
+        final CountDownLatch writerBusy = new CountDownLatch(1);
+        final CountDownLatch blockWriter = new CountDownLatch(1);
+
+        Observable<Integer> blocking = factory.write(s -> {
+            writerBusy.countDown();
+            await(blockWriter);
+            return writes.incrementAndGet();
+        });
+        blocking.subscribe();
+
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+
+        List<Observable<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Observable<Integer> write = factory.write(s -> writes.incrementAndGet()).cache();
+            write.subscribe();
+            queued.add(write);
+        }
+
+        blockWriter.countDown();
+        assertEquals(Integer.valueOf(5), Observable.merge(queued).count().toBlocking().single());
+
+        assertEquals(6, writes.get());
+        assertEquals(2, commits.get());
+    }
+
+    @Test
+    public void test_groupCommit_writesGetAppStore() {
+
+        final TestChatStore store = new TestChatStore();
+
+        GroupCommitStoreFactory factory = new GroupCommitStoreFactory(factory(store), 10, null);
+
+        // No wrapper, so every ChatStore method reaches the app's implementation
+        assertSame(store, factory.write(s -> s).toBlocking().single());
+    }
+
+    @Test
+    public void test_groupCommit_resultsAfterCommit() {
+
+        final AtomicBoolean isCommitted = new AtomicBoolean(false);
+        final AtomicBoolean isWriterThread = new AtomicBoolean(true);
+
+        final TestChatStore store = new TestChatStore() {
+            @Override
+            public void beginTransaction() {
+                isCommitted.set(false);
+            }
+
+            @Override
+            public void endTransaction() {
+                isCommitted.set(true);
+            }
+        };
+
+        GroupCommitStoreFactory factory = new GroupCommitStoreFactory(factory(store), 10, null);
+
+        final Thread[] writer = new Thread[1];
+        boolean isCommittedOnResult = factory.write(s -> {
+            writer[0] = Thread.currentThread();
+            return true;
+        }).map(result -> {
+            isWriterThread.set(Thread.currentThread() == writer[0]);
+            return isCommitted.get();
+        }).toBlocking().single();
+
+        assertTrue(isCommittedOnResult);
+        assertFalse(isWriterThread.get());
+    }
+
+    @Test
+    public void test_groupCommit_failedWriteReplayed() throws InterruptedException {
+
+        final AtomicInteger transactions = new AtomicInteger();
+        final AtomicInteger commits = new AtomicInteger();
+        final List<String> committed = Collections.synchronizedList(new ArrayList<>());
+        final List<String> uncommitted = Collections.synchronizedList(new ArrayList<>());
+
+        final TestChatStore store = new TestChatStore() {
+            @Override
+            public void beginTransaction() {
+                transactions.incrementAndGet();
+                uncommitted.clear();
+            }
+
+            @Override
+            public void endTransaction() {
+                commits.incrementAndGet();
+                committed.addAll(uncommitted);
+                uncommitted.clear();
+            }
+        };
+
+        GroupCommitStoreFactory factory = new GroupCommitStoreFactory(factory(store), 10, null);
+
+        final CountDownLatch writerBusy = new CountDownLatch(1);
+        final CountDownLatch blockWriter = new CountDownLatch(1);
+
+        factory.write(s -> {
+            writerBusy.countDown();
+            await(blockWriter);
+            return true;
+        }).subscribe();
+
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+
+        Observable<String> first = factory.write(s -> {
+            uncommitted.add("first");
+            return "first";
+        }).cache();
+        first.subscribe();
+        Observable<String> failing = factory.<String>write(s -> {
+            uncommitted.add("failing");
+            throw new RuntimeException("write failed");
+        }).cache();
+        failing.subscribe();
+        Observable<String> last = factory.write(s -> {
+            uncommitted.add("last");
+            return "last";
+        }).cache();
+        last.subscribe();
+
+        blockWriter.countDown();
+
+        assertEquals("first", first.toBlocking().single());
+        assertEquals("last", last.toBlocking().single());
+        assertTrue(failing.isEmpty().toBlocking().single());
+
+        // Blocking write, failed group of three and three replayed writes
+        assertEquals(5, transactions.get());
+        assertEquals(3, commits.get());
+        assertEquals(2, committed.size());
+        assertTrue(committed.contains("first"));
+        assertTrue(committed.contains("last"));
+        assertFalse(committed.contains("failing"));
+    }
+
+    @Test
+    public void test_execute_notGrouped() throws InterruptedException {
+
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger commits = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(3);
+
+        final TestChatStore store = new TestChatStore() {
+            @Override
+            public void open() {
+                opened.incrementAndGet();
+            }
+
+            @Override
+            public void endTransaction() {
+                commits.incrementAndGet();
+            }
+        };
+
+        GroupCommitStoreFactory factory = new GroupCommitStoreFactory(factory(store), 10, null);
+
+        final CountDownLatch writerBusy = new CountDownLatch(1);
+        final CountDownLatch blockWriter = new CountDownLatch(1);
+
+        factory.write(s -> {
+            writerBusy.countDown();
+            await(blockWriter);
+            return true;
+        }).subscribe();
+
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+
+        final List<ChatStore> stores = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            factory.execute(new StoreTransaction<ChatStore>() {
+                @Override
+                protected void execute(ChatStore store) {
+                    stores.add(store);
+                    store.beginTransaction();
+                    store.endTransaction();
+                    done.countDown();
+                }
+            });
+        }
+
+        blockWriter.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        factory.shutdown();
+
+        // Transactions setting own boundaries are executed alone with the app's store
+        assertEquals(4, commits.get());
+        assertEquals(1, opened.get());
+        assertEquals(3, stores.size());
+        for (ChatStore s : stores) {
+            assertSame(store, s);
+        }
+    }
+
+    @Test
+    public void test_shutdown_transactionsStillExecuted() {
+
+        final AtomicInteger transactions = new AtomicInteger();
+
+        GroupCommitStoreFactory factory = new GroupCommitStoreFactory(factory(new TestChatStore()), 10, null);
+
+        factory.shutdown();
+
+        factory.execute(new StoreTransaction<ChatStore>() {
+            @Override
+            protected void execute(ChatStore store) {
+                transactions.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, transactions.get());
+        assertEquals(Integer.valueOf(2), factory.write(s -> transactions.incrementAndGet()).toBlocking().single());
+    }
+
+    private static StoreFactory<ChatStore> factory(final ChatStore store) {
+        return new StoreFactory<ChatStore>() {
+            @Override
+            protected void build(StoreCallback<ChatStore> callback) {
+                callback.created(store);
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.helpers.TestChatStore;
+import com.comapi.chat.internal.ConversationCache;
+import com.comapi.chat.model.ChatConversationBase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MergeWatermarksTest {
+
+    @Test
+    public void test_mergeWatermarks() {
+
+        TestChatStore store = new TestChatStore();
+        store.addConversationToStore("c1", 5, 10, 12, 100, "eTag");
+
+        // values moving the state back are ignored
+        assertTrue(store.mergeWatermarks("c1", 7L, 8L, 9L, 50L));
+        ChatConversationBase conversation = store.getConversation("c1");
+        assertEquals(5, conversation.getFirstLocalEventId().longValue());
+        assertEquals(10, conversation.getLastLocalEventId().longValue());
+        assertEquals(12, conversation.getLastRemoteEventId().longValue());
+        assertEquals(100, conversation.getUpdatedOn().longValue());
+
+        assertTrue(store.mergeWatermarks("c1", 3L, 11L, null, 150L));
+        conversation = store.getConversation("c1");
+        assertEquals(3, conversation.getFirstLocalEventId().longValue());
+        assertEquals(11, conversation.getLastLocalEventId().longValue());
+        assertEquals(12, conversation.getLastRemoteEventId().longValue());
+        assertEquals(150, conversation.getUpdatedOn().longValue());
+        assertEquals("eTag", conversation.getETag());
+
+        assertFalse(store.mergeWatermarks("c2", 1L, 1L, 1L, 1L));
+    }
+
+    @Test
+    public void test_mergeWatermarks_emptyConversation() {
+
+        TestChatStore store = new TestChatStore();
+        store.addConversationToStore("c1", -1L, -1L, -1L, 0, "eTag");
+
+        assertTrue(store.mergeWatermarks("c1", -1L, 4L, 6L, null));
+        ChatConversationBase conversation = store.getConversation("c1");
+        assertEquals(-1, conversation.getFirstLocalEventId().longValue());
+        assertEquals(4, conversation.getLastLocalEventId().longValue());
+        assertEquals(6, conversation.getLastRemoteEventId().longValue());
+
+        assertTrue(store.mergeWatermarks("c1", 2L, null, null, null));
+        assertEquals(2, store.getConversation("c1").getFirstLocalEventId().longValue());
+    }
+
+    @Test
+    public void test_mergeWatermarks_cache() {
+
+        ConversationCache cache = new ConversationCache(10);
+        cache.put(ChatConversationBase.baseBuilder().setConversationId("c1").setFirstLocalEventId(5L).setLastLocalEventId(10L).setLastRemoteEventId(12L).setUpdatedOn(100L).build());
+
+        cache.merge("c1", cached -> ChatConversationBase.baseBuilder().populate(cached).mergeWatermarks(3L, 8L, 20L, null).build());
+        ChatConversationBase conversation = cache.get("c1");
+        assertEquals(3, conversation.getFirstLocalEventId().longValue());
+        assertEquals(10, conversation.getLastLocalEventId().longValue());
+        assertEquals(20, conversation.getLastRemoteEventId().longValue());
+        assertEquals(100, conversation.getUpdatedOn().longValue());
+
+        // Not cached conversations are not added by merge
+        cache.merge("c2", cached -> cached);
+        assertNull(cache.get("c2"));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.internal.MessageStatusCache;
+import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.LocalMessageStatus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MessageStatusCacheTest {
+
+    private static ChatMessageStatus status(String messageId, String profileId, LocalMessageStatus status) {
+        return ChatMessageStatus.builder().populate("c1", messageId, profileId, status, 0L, null).build();
+    }
+
+    @Test
+    public void test_skipNotAdvancing() {
+
+        MessageStatusCache cache = new MessageStatusCache(10);
+
+        assertTrue(cache.filter(status("m1", "p1", LocalMessageStatus.delivered)));
+        cache.onSaved(status("m1", "p1", LocalMessageStatus.delivered));
+        assertFalse(cache.filter(status("m1", "p1", LocalMessageStatus.delivered)));
+        assertTrue(cache.filter(status("m1", "p2", LocalMessageStatus.delivered)));
+        assertTrue(cache.filter(status("m1", "p1", LocalMessageStatus.read)));
+        cache.onSaved(status("m1", "p1", LocalMessageStatus.read));
+        assertFalse(cache.filter(status("m1", "p1", LocalMessageStatus.delivered)));
+        assertFalse(cache.filter(status("m1", "p1", LocalMessageStatus.read)));
+
+        // other statuses are never skipped
+        assertTrue(cache.filter(status("m1", "p1", LocalMessageStatus.error)));
+        cache.onSaved(status("m1", "p1", LocalMessageStatus.error));
+        assertTrue(cache.filter(status("m1", "p1", LocalMessageStatus.error)));
+
+        List<ChatMessageStatus> statuses = new ArrayList<>();
+        statuses.add(status("m1", "p1", LocalMessageStatus.read));
+        statuses.add(status("m2", "p1", LocalMessageStatus.read));
+        statuses.add(status("m2", "p1", LocalMessageStatus.delivered));
+        statuses.add(status("m2", "p1", LocalMessageStatus.read));
+        List<ChatMessageStatus> filtered = cache.filter(statuses);
+        assertEquals(1, filtered.size());
+        assertEquals("m2", filtered.get(0).getMessageId());
+        cache.onSaved(filtered);
+
+        cache.invalidate("m1");
+        assertTrue(cache.filter(status("m1", "p1", LocalMessageStatus.read)));
+        cache.invalidate(Collections.singletonList("m2"));
+        assertTrue(cache.filter(status("m2", "p1", LocalMessageStatus.delivered)));
+        cache.onSaved(status("m2", "p1", LocalMessageStatus.delivered));
+        cache.clear();
+        assertTrue(cache.filter(status("m2", "p1", LocalMessageStatus.delivered)));
+    }
+
+    @Test
+    public void test_recordedOnlyWhenSaved() {
+
+        MessageStatusCache cache = new MessageStatusCache(10);
+
+        List<ChatMessageStatus> statuses = Collections.singletonList(status("m1", "p1", LocalMessageStatus.read));
+
+        // Statuses not committed to the store, e.g. transaction failed, are saved again next time
+        assertEquals(1, cache.filter(statuses).size());
+        assertEquals(1, cache.filter(statuses).size());
+
+        cache.onSaved(statuses);
+        assertTrue(cache.filter(statuses).isEmpty());
+
+        // Saving older status doesn't move the cached state back
+        cache.onSaved(status("m1", "p1", LocalMessageStatus.delivered));
+        assertFalse(cache.filter(status("m1", "p1", LocalMessageStatus.read)));
+    }
+
+    @Test
+    public void test_bounded() {
+
+        MessageStatusCache cache = new MessageStatusCache(2);
+        cache.onSaved(status("m1", "p1", LocalMessageStatus.read));
+        cache.onSaved(status("m2", "p1", LocalMessageStatus.read));
+        cache.onSaved(status("m3", "p1", LocalMessageStatus.read));
+        assertTrue(cache.filter(status("m1", "p1", LocalMessageStatus.read)));
+        assertFalse(cache.filter(status("m3", "p1", LocalMessageStatus.read)));
+
+        MessageStatusCache disabled = new MessageStatusCache(0);
+        disabled.onSaved(status("m1", "p1", LocalMessageStatus.read));
+        assertTrue(disabled.filter(status("m1", "p1", LocalMessageStatus.read)));
+    }
+}
@@ -25,8 +25,13 @@ import com.comapi.chat.internal.MissingEventsTracker;
 import org.junit.After;
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class MissingEventsTest {
 
@@ -72,6 +77,46 @@ public class MissingEventsTest {
         assertNull(listener.from);
     }
 
+    @Test
+    public void test_TrackIdsDuplicates() {
+
+        String conversationId = "id-1";
+
+        MissingEventsTracker tracker = new MissingEventsTracker(60000, MissingEventsTracker.DEFAULT_IDLE_TIMEOUT);
+        listener = new Listener();
+
+        assertFalse(tracker.checkEventId(conversationId, 1, listener));
+        assertFalse(tracker.checkEventId(conversationId, 5, listener));
+        assertFalse(tracker.checkEventId(conversationId, 3, listener));
+        assertTrue(tracker.checkEventId(conversationId, 3, listener));
+        assertTrue(tracker.checkEventId(conversationId, 5, listener));
+        assertFalse(tracker.checkEventId(conversationId, 2, listener));
+        assertFalse(tracker.checkEventId(conversationId, 4, listener));
+        assertTrue(tracker.checkEventId(conversationId, 4, listener));
+        assertNull(listener.conversationId);
+    }
+
+    @Test
+    public void test_TrackIdsGracePeriod() throws InterruptedException {
+
+        String conversationId = "id-1";
+
+        MissingEventsTracker tracker = new MissingEventsTracker(200, MissingEventsTracker.DEFAULT_IDLE_TIMEOUT);
+        listener = new Listener();
+
+        tracker.checkEventId(conversationId, 1, listener);
+        tracker.checkEventId(conversationId, 3, listener);
+        tracker.checkEventId(conversationId, 2, listener);
+        tracker.checkEventId(conversationId, 5, listener);
+        tracker.checkEventId(conversationId, 8, listener);
+        assertNull(listener.conversationId);
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(conversationId, listener.conversationId);
+        assertEquals(Long.valueOf(4), listener.from);
+        assertEquals(Integer.valueOf(5), listener.limit);
+    }
+
     @After
     public void tearDown() throws Exception {
         listener.reset();
@@ -82,12 +127,14 @@ public class MissingEventsTest {
         String conversationId;
         Long from;
         Integer limit;
+        CountDownLatch latch = new CountDownLatch(1);
 
         @Override
         public void missingEvents(String conversationId, long from, int limit) {
             this.conversationId = conversationId;
             this.from = from;
             this.limit = limit;
+            latch.countDown();
         }
 
         void reset() {
@@ -27,11 +27,16 @@ import com.comapi.chat.helpers.ChatTestConst;
 import com.comapi.chat.helpers.TestChatStore;
 import com.comapi.chat.model.ChatConversation;
 import com.comapi.chat.model.ChatConversationBase;
+import com.comapi.chat.model.ChatMessage;
+import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.ChatStatusWatermark;
 import com.comapi.chat.model.ChatStore;
+import com.comapi.chat.model.LocalMessageStatus;
 import com.comapi.chat.model.ModelAdapter;
 import com.comapi.internal.log.LogLevel;
 import com.comapi.internal.log.LogManager;
 import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.model.messaging.Sender;
 
 import org.junit.After;
 import org.junit.Before;
@@ -45,6 +50,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
@@ -57,6 +63,8 @@ public class PersistenceControllerTest {
 
     private PersistenceController persistenceController;
 
+    private PersistenceController cachingPersistenceController;
+
     @Before
     public void setUpChat() throws Exception {
 
@@ -77,7 +85,8 @@ public class PersistenceControllerTest {
 
         ModelAdapter modelAdapter = new ModelAdapter();
         Database db = Database.getInstance(RuntimeEnvironment.application, true, new Logger(logMgr, ""));
-        persistenceController = new PersistenceController(db, modelAdapter, factory, log);
+        persistenceController = new PersistenceController(db, modelAdapter, factory, new InternalConfig(), log);
+        cachingPersistenceController = new PersistenceController(db, modelAdapter, factory, new InternalConfig().limitConversationsCached(1), log);
     }
 
     @Test
@@ -123,6 +132,163 @@ public class PersistenceControllerTest {
         assertEquals(Long.valueOf(4), conversation2.getFirstLocalEventId());
     }
 
+    @Test
+    public void test_upsertReadWatermark() {
+
+        store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, 1L, 4L, 4L, 0L, ChatTestConst.ETAG);
+
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId("id1").setSentEventId(3L).setSentOn(10L).build());
+        messages.add(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId("id2").setSentEventId(4L).setSentOn(20L).build());
+        for (ChatMessage message : messages) {
+            store.upsert(message);
+        }
+
+        // store without watermarks gets status for every message
+        assertTrue(persistenceController.upsertReadWatermark(ChatTestConst.CONVERSATION_ID1, ChatTestConst.PROFILE_ID, messages, 30L).toBlocking().first());
+        assertEquals(1, store.getMessages().get("id1").getStatusUpdates().size());
+        assertEquals(1, store.getMessages().get("id2").getStatusUpdates().size());
+        assertTrue(store.getWatermarks(ChatTestConst.CONVERSATION_ID1).isEmpty());
+
+        // store with watermarks gets a single watermark
+        store.clearDatabase();
+        store.setWatermarkSupported(true);
+        for (ChatMessage message : messages) {
+            store.upsert(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId(message.getMessageId()).setSentEventId(message.getSentEventId()).build());
+        }
+        assertTrue(persistenceController.upsertReadWatermark(ChatTestConst.CONVERSATION_ID1, ChatTestConst.PROFILE_ID, messages.subList(0, 1), 30L).toBlocking().first());
+        assertTrue(persistenceController.upsertReadWatermark(ChatTestConst.CONVERSATION_ID1, ChatTestConst.PROFILE_ID, messages, 40L).toBlocking().first());
+        assertTrue(persistenceController.upsertReadWatermark(ChatTestConst.CONVERSATION_ID1, ChatTestConst.PROFILE_ID, messages.subList(0, 1), 50L).toBlocking().first());
+        assertTrue(store.getMessages().get("id1").getStatusUpdates().isEmpty());
+        assertTrue(store.getMessages().get("id2").getStatusUpdates().isEmpty());
+
+        List<ChatStatusWatermark> watermarks = store.getWatermarks(ChatTestConst.CONVERSATION_ID1);
+        assertEquals(1, watermarks.size());
+        assertEquals(ChatTestConst.PROFILE_ID, watermarks.get(0).getProfileId());
+        assertEquals(4L, watermarks.get(0).getReadUpTo());
+        assertEquals(LocalMessageStatus.read, watermarks.get(0).getStatus(store.getMessages().get("id2")).getMessageStatus());
+        store.setWatermarkSupported(false);
+    }
+
+    @Test
+    public void test_upsertMessageStatus_watermarkOverContiguousMessages() {
+
+        store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, 3L, 6L, 6L, 0L, ChatTestConst.ETAG);
+        store.setWatermarkSupported(true);
+
+        Sender other = new Sender("otherId", "other");
+        Sender self = new Sender(ChatTestConst.PROFILE_ID, "self");
+        store.upsert(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId("id1").setSentEventId(3L).setFromWhom(other).build());
+        store.upsert(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId("id2").setSentEventId(4L).setFromWhom(self).build());
+        store.upsert(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId("id3").setSentEventId(5L).setFromWhom(other).build());
+        store.upsert(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId("id4").setSentEventId(6L).setFromWhom(other).build());
+
+        // status after a gap is kept per message
+        assertTrue(persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate(ChatTestConst.CONVERSATION_ID1, "id4", ChatTestConst.PROFILE_ID, LocalMessageStatus.read, 10L, 7L).build()).toBlocking().first());
+        assertTrue(store.getWatermarks(ChatTestConst.CONVERSATION_ID1).isEmpty());
+        assertEquals(1, store.getMessages().get("id4").getStatusUpdates().size());
+
+        // watermark skips participant's own message
+        assertTrue(persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate(ChatTestConst.CONVERSATION_ID1, "id1", ChatTestConst.PROFILE_ID, LocalMessageStatus.read, 20L, 8L).build()).toBlocking().first());
+        assertTrue(persistenceController.upsertMessageStatus(ChatMessageStatus.builder().populate(ChatTestConst.CONVERSATION_ID1, "id3", ChatTestConst.PROFILE_ID, LocalMessageStatus.read, 30L, 9L).build()).toBlocking().first());
+        assertTrue(store.getMessages().get("id1").getStatusUpdates().isEmpty());
+        assertTrue(store.getMessages().get("id3").getStatusUpdates().isEmpty());
+
+        List<ChatStatusWatermark> watermarks = store.getWatermarks(ChatTestConst.CONVERSATION_ID1);
+        assertEquals(1, watermarks.size());
+        assertEquals(5L, watermarks.get(0).getReadUpTo());
+        assertNull(watermarks.get(0).getStatus(store.getMessages().get("id2")));
+        assertEquals(LocalMessageStatus.read, watermarks.get(0).getStatus(store.getMessages().get("id3")).getMessageStatus());
+        assertNull(watermarks.get(0).getStatus(store.getMessages().get("id4")));
+        store.setWatermarkSupported(false);
+    }
+
+    @Test
+    public void test_updateStoreFromEvents() {
+
+        store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, -1L, -1L, 2L, 0L, ChatTestConst.ETAG);
+
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId("id1").setSentEventId(3L).setSentOn(10L).build());
+        messages.add(ChatMessage.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setMessageId("id2").setSentEventId(4L).setSentOn(20L).build());
+
+        List<ChatMessageStatus> statuses = new ArrayList<>();
+        statuses.add(ChatMessageStatus.builder().populate(ChatTestConst.CONVERSATION_ID1, "id1", "profileId", LocalMessageStatus.read, 30L, 5L).build());
+
+        Boolean result = persistenceController.updateStoreFromEvents(ChatTestConst.CONVERSATION_ID1, messages, statuses, null).toBlocking().first();
+        assertTrue(result);
+
+        assertEquals(2, store.getMessages().size());
+        assertEquals(1, store.getMessages().get("id1").getStatusUpdates().size());
+
+        ChatConversationBase conversation = store.getConversation(ChatTestConst.CONVERSATION_ID1);
+        assertEquals(Long.valueOf(3), conversation.getFirstLocalEventId());
+        assertEquals(Long.valueOf(5), conversation.getLastLocalEventId());
+        assertEquals(Long.valueOf(5), conversation.getLastRemoteEventId());
+        assertEquals(Long.valueOf(30), conversation.getUpdatedOn());
+    }
+
+    @Test
+    public void test_conversationCache() {
+
+        store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, 1L, 2L, 2L, 0L, ChatTestConst.ETAG);
+        store.addConversationToStore(ChatTestConst.CONVERSATION_ID2, 1L, 2L, 2L, 0L, ChatTestConst.ETAG);
+
+        assertEquals(Long.valueOf(2), cachingPersistenceController.getConversation(ChatTestConst.CONVERSATION_ID1).toBlocking().first().getLastLocalEventId());
+
+        // Cached state is returned until the conversation is evicted
+        store.addConversationToStore(ChatTestConst.CONVERSATION_ID1, 1L, 3L, 3L, 0L, ChatTestConst.ETAG);
+        assertEquals(Long.valueOf(2), cachingPersistenceController.getConversation(ChatTestConst.CONVERSATION_ID1).toBlocking().first().getLastLocalEventId());
+
+        assertEquals(Long.valueOf(2), cachingPersistenceController.getConversation(ChatTestConst.CONVERSATION_ID2).toBlocking().first().getLastLocalEventId());
+        assertEquals(Long.valueOf(3), cachingPersistenceController.getConversation(ChatTestConst.CONVERSATION_ID1).toBlocking().first().getLastLocalEventId());
+
+        // Updates are written through to the store and the cache
+        List<ChatConversation> list = new ArrayList<>();
+        list.add(ChatConversation.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setLastRemoteEventId(5L).setUpdatedOn(1L).setETag(ChatTestConst.ETAG).build());
+        assertTrue(cachingPersistenceController.updateConversations(list).toBlocking().first());
+        assertEquals(Long.valueOf(5), store.getConversation(ChatTestConst.CONVERSATION_ID1).getLastRemoteEventId());
+        assertEquals(Long.valueOf(5), cachingPersistenceController.getConversation(ChatTestConst.CONVERSATION_ID1).toBlocking().first().getLastRemoteEventId());
+
+        // Deleted conversations are removed from the cache
+        assertTrue(cachingPersistenceController.deleteConversation(ChatTestConst.CONVERSATION_ID1).toBlocking().first());
+        assertNull(cachingPersistenceController.getConversation(ChatTestConst.CONVERSATION_ID1).toBlocking().first());
+    }
+
+    @Test
+    public void test_conversationCache_notUpdatedIfTransactionFailed() {
+
+        final boolean[] isFailing = {false};
+        final TestChatStore failingStore = new TestChatStore() {
+            @Override
+            public void endTransaction() {
+                if (isFailing[0]) {
+                    throw new IllegalStateException("Commit failed");
+                }
+            }
+        };
+        failingStore.addConversationToStore(ChatTestConst.CONVERSATION_ID1, 1L, 2L, 2L, 0L, ChatTestConst.ETAG);
+
+        LogManager logMgr = new LogManager();
+        logMgr.init(RuntimeEnvironment.application, LogLevel.OFF.getValue(), LogLevel.OFF.getValue(), 0);
+        PersistenceController controller = new PersistenceController(Database.getInstance(RuntimeEnvironment.application, true, new Logger(logMgr, "")), new ModelAdapter(), new StoreFactory<ChatStore>() {
+            @Override
+            public void build(StoreCallback<ChatStore> callback) {
+                callback.created(failingStore);
+            }
+        }, new InternalConfig().limitConversationsCached(1), new Logger(logMgr, ""));
+
+        assertEquals(Long.valueOf(2), controller.getConversation(ChatTestConst.CONVERSATION_ID1).toBlocking().first().getLastRemoteEventId());
+
+        isFailing[0] = true;
+        List<ChatConversation> list = new ArrayList<>();
+        list.add(ChatConversation.builder().setConversationId(ChatTestConst.CONVERSATION_ID1).setLastRemoteEventId(5L).setUpdatedOn(1L).setETag(ChatTestConst.ETAG).build());
+        assertNull(controller.updateConversations(list).toBlocking().firstOrDefault(null));
+
+        // Uncommitted state is not cached
+        assertEquals(Long.valueOf(2), controller.getConversation(ChatTestConst.CONVERSATION_ID1).toBlocking().first().getLastRemoteEventId());
+    }
+
     @After
     public void tearDown() throws Exception {
         store.clearDatabase();
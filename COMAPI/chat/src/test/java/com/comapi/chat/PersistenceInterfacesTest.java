@@ -33,8 +33,11 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.Arrays;
+
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(manifest = "chat/src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.M, constants = BuildConfig.class, packageName = "com.comapi.chat")
@@ -93,6 +96,28 @@ public class PersistenceInterfacesTest {
         });
     }
 
+    @Test
+    public void test_StoreBulkApis() throws InterruptedException {
+
+        factory.execute(new StoreTransaction<ChatStore>() {
+            @Override
+            protected void execute(ChatStore store) {
+                String conversationId1 = "id321";
+                String conversationId2 = "id322";
+                store.upsert(DBObjectsHelper.createConversation(conversationId1));
+                store.upsert(DBObjectsHelper.createConversation(conversationId2));
+                assertEquals(2, store.getConversations(Arrays.asList(conversationId1, conversationId2, "id323")).size());
+
+                assertTrue(store.upsertMessages(Arrays.asList(DBObjectsHelper.createMessage("id1", conversationId1), DBObjectsHelper.createMessage("id2", conversationId1))));
+                assertEquals(2, ((TestChatStore) store).getMessages().size());
+
+                assertTrue(store.deleteConversations(Arrays.asList(conversationId1, conversationId2)));
+                assertTrue(store.getConversations(Arrays.asList(conversationId1, conversationId2)).isEmpty());
+                assertTrue(((TestChatStore) store).getMessages().isEmpty());
+            }
+        });
+    }
+
     @Test
     public void test_StoreClear() throws InterruptedException {
 
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void test_retryIOErrors() {
+
+        final AtomicInteger calls = new AtomicInteger();
+        Observable<String> call = Observable.fromCallable(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("Network error");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", new RetryPolicy(3, 1, 10).apply(call).toBlocking().first());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void test_retriesRunOut() {
+
+        final AtomicInteger calls = new AtomicInteger();
+        Observable<String> call = Observable.fromCallable(() -> {
+            calls.incrementAndGet();
+            throw new IOException("Network error");
+        });
+
+        Throwable error = null;
+        try {
+            new RetryPolicy(2, 1, 10).apply(call).toBlocking().first();
+        } catch (Exception e) {
+            error = e.getCause() != null ? e.getCause() : e;
+        }
+        assertTrue(error instanceof IOException);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void test_runtimeErrorsNotRetried() {
+
+        final AtomicInteger calls = new AtomicInteger();
+        Observable<String> call = Observable.fromCallable(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Not retryable");
+        });
+
+        try {
+            new RetryPolicy(3, 1, 10).retryAllErrors(true).apply(call).toBlocking().first();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void test_otherErrorsRetriedIfEnabled() {
+
+        final AtomicInteger calls = new AtomicInteger();
+        Observable<String> call = Observable.fromCallable(() -> {
+            calls.incrementAndGet();
+            throw new Exception("Error");
+        });
+
+        new RetryPolicy(2, 1, 10).apply(call).onErrorResumeNext(Observable.empty()).toBlocking().firstOrDefault(null);
+        assertEquals(1, calls.get());
+
+        calls.set(0);
+        new RetryPolicy(2, 1, 10).retryAllErrors(true).apply(call).onErrorResumeNext(Observable.empty()).toBlocking().firstOrDefault(null);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void test_noRetries() {
+
+        final AtomicInteger calls = new AtomicInteger();
+        Observable<String> call = Observable.fromCallable(() -> {
+            calls.incrementAndGet();
+            throw new IOException("Network error");
+        });
+
+        RetryPolicy.none().apply(call).onErrorResumeNext(Observable.empty()).toBlocking().firstOrDefault(null);
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat;
+
+import com.comapi.chat.model.ChatMessage;
+import com.comapi.internal.network.model.messaging.Part;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import rx.observers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SynchronisationTrackerTest {
+
+    @Test
+    public void test_progress() {
+
+        SynchronisationTracker tracker = new SynchronisationTracker();
+        TestSubscriber<SynchronisationProgress> subscriber = new TestSubscriber<>();
+        tracker.observe().subscribe(subscriber);
+
+        subscriber.assertValueCount(1);
+        assertEquals(0, subscriber.getOnNextEvents().get(0).getConversationsCompared());
+        assertFalse(subscriber.getOnNextEvents().get(0).isFinished());
+
+        tracker.onConversationsCompared(5, 1, 2, 1);
+        tracker.onEventPagesFetched(2);
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(ChatMessage.builder().setMessageId("m1").setParts(Arrays.asList(Part.builder().setData("abc").build(), Part.builder().setData("\u00f3").build())).build());
+        messages.add(ChatMessage.builder().setMessageId("m2").build());
+        tracker.onEventsApplied(messages, 3);
+        tracker.onEventsApplied(Collections.emptyList(), 1);
+
+        SynchronisationProgress progress = tracker.getProgress();
+        assertEquals(5, progress.getConversationsCompared());
+        assertEquals(1, progress.getConversationsAdded());
+        assertEquals(2, progress.getConversationsUpdated());
+        assertEquals(1, progress.getConversationsDeleted());
+        assertEquals(2, progress.getEventPagesFetched());
+        assertEquals(6, progress.getEventsApplied());
+        assertEquals(5, progress.getBytesReceived());
+        assertFalse(progress.isFinished());
+        assertNull(progress.getResult());
+        subscriber.assertValueCount(5);
+        subscriber.assertNotCompleted();
+
+        tracker.onFinished(new ChatResult(true, null));
+        subscriber.assertValueCount(6);
+        subscriber.assertCompleted();
+        SynchronisationProgress last = subscriber.getOnNextEvents().get(5);
+        assertTrue(last.isFinished());
+        assertTrue(last.getResult().isSuccessful());
+        assertEquals(6, last.getEventsApplied());
+    }
+
+    @Test
+    public void test_observeAfterFinished() {
+
+        SynchronisationTracker tracker = new SynchronisationTracker();
+        tracker.onEventPagesFetched(3);
+        tracker.onFinished(new ChatResult(true, null));
+
+        TestSubscriber<SynchronisationProgress> subscriber = new TestSubscriber<>();
+        tracker.observe().subscribe(subscriber);
+
+        subscriber.assertValueCount(1);
+        subscriber.assertCompleted();
+        SynchronisationProgress last = subscriber.getOnNextEvents().get(0);
+        assertTrue(last.isFinished());
+        assertEquals(3, last.getEventPagesFetched());
+    }
+
+    @Test
+    public void test_none() {
+
+        SynchronisationTracker.NONE.onConversationsCompared(5, 1, 2, 1);
+        SynchronisationTracker.NONE.onEventPagesFetched(2);
+        SynchronisationTracker.NONE.onFinished(new ChatResult(true, null));
+
+        SynchronisationProgress progress = SynchronisationTracker.NONE.getProgress();
+        assertEquals(0, progress.getConversationsCompared());
+        assertEquals(0, progress.getEventPagesFetched());
+        assertFalse(progress.isFinished());
+    }
+}
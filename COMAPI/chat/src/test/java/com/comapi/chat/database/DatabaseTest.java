@@ -25,6 +25,7 @@ import android.text.TextUtils;
 
 import com.comapi.chat.BuildConfig;
 import com.comapi.chat.database.model.DbOrphanedEvent;
+import com.comapi.chat.database.model.DbSyncCheckpoint;
 import com.comapi.chat.helpers.FileResHelper;
 import com.comapi.internal.Parser;
 import com.comapi.internal.log.LogLevel;
@@ -44,6 +45,7 @@ import org.robolectric.annotation.Config;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -152,6 +154,74 @@ public class DatabaseTest {
         assertTrue(database.deleteOrphanedEvents(new String[0]).toBlocking().first() == 0);
     }
 
+    @Test
+    public void test_SyncCheckpoints_shouldSucceedSaveUpdateQueryDelete() {
+
+        long now = System.currentTimeMillis();
+
+        /*
+         * Check if initially query returns no results.
+         */
+        assertTrue(database.querySyncCheckpoints(0).toBlocking().first().isEmpty());
+
+        /*
+         * Save checkpoints, saving again replaces previous ones.
+         */
+        assertEquals(1, database.saveSyncCheckpoints(Arrays.asList(DbSyncCheckpoint.create("c0", 1, 1, false, now))).toBlocking().first().intValue());
+        assertEquals(2, database.saveSyncCheckpoints(Arrays.asList(
+                DbSyncCheckpoint.create("c1", 10, 0, false, now),
+                DbSyncCheckpoint.create("c2", 20, 3, true, now))).toBlocking().first().intValue());
+
+        List<DbSyncCheckpoint> loaded = database.querySyncCheckpoints(0).toBlocking().first();
+        assertEquals(2, loaded.size());
+        for (DbSyncCheckpoint checkpoint : loaded) {
+            if ("c1".equals(checkpoint.conversationId())) {
+                assertEquals(10, checkpoint.from());
+                assertEquals(0, checkpoint.events());
+                assertFalse(checkpoint.isFinished());
+            } else {
+                assertEquals("c2", checkpoint.conversationId());
+                assertEquals(20, checkpoint.from());
+                assertEquals(3, checkpoint.events());
+                assertTrue(checkpoint.isFinished());
+            }
+            assertEquals(now, checkpoint.updatedOn());
+        }
+
+        /*
+         * Update single conversation progress.
+         */
+        assertTrue(database.updateSyncCheckpoint(DbSyncCheckpoint.create("c1", 110, 1, true, now + 1)).toBlocking().first());
+        loaded = database.querySyncCheckpoints(0).toBlocking().first();
+        assertEquals(2, loaded.size());
+        for (DbSyncCheckpoint checkpoint : loaded) {
+            if ("c1".equals(checkpoint.conversationId())) {
+                assertEquals(110, checkpoint.from());
+                assertEquals(1, checkpoint.events());
+                assertTrue(checkpoint.isFinished());
+            }
+        }
+
+        /*
+         * Outdated checkpoints are skipped by the query and deleted by the purge.
+         */
+        loaded = database.querySyncCheckpoints(now + 1).toBlocking().first();
+        assertEquals(1, loaded.size());
+        assertEquals("c1", loaded.get(0).conversationId());
+        assertEquals(2, database.querySyncCheckpoints(0).toBlocking().first().size());
+        assertEquals(1, database.purgeSyncCheckpoints(now + 1).toBlocking().first().intValue());
+        assertEquals(1, database.querySyncCheckpoints(0).toBlocking().first().size());
+
+        /*
+         * Delete and clear.
+         */
+        assertEquals(0, database.deleteSyncCheckpoints(new String[0]).toBlocking().first().intValue());
+        assertEquals(1, database.deleteSyncCheckpoints(new String[]{"c1"}).toBlocking().first().intValue());
+        database.saveSyncCheckpoints(Arrays.asList(DbSyncCheckpoint.create("c3", 1, 0, false, now))).toBlocking().first();
+        assertEquals(1, database.clearSyncCheckpoints().toBlocking().first().intValue());
+        assertTrue(database.querySyncCheckpoints(0).toBlocking().first().isEmpty());
+    }
+
     @After
     public void tearDown() throws Exception {
         database.closeDatabase();
@@ -77,8 +77,17 @@ import rx.Observable;
 @SuppressWarnings("unchecked")
 public class MockComapiClient extends RxComapiClient {
 
+    /**
+     * Notified about every conversation events query before the mocked result is returned.
+     */
+    public interface EventsQueryListener {
+        void onQuery(String conversationId, long from, int limit);
+    }
+
     private LinkedBlockingQueue<ComapiResult<?>> results;
 
+    private volatile EventsQueryListener eventsQueryListener;
+
     private ProfileListener testProfileListener;
     private MessagingListener testMessagingListener;
 
@@ -307,6 +316,10 @@ public class MockComapiClient extends RxComapiClient {
                     @Override
                     public Observable<ComapiResult<ConversationEventsResponse>> queryConversationEvents(@NonNull String conversationId, @NonNull Long from, @NonNull Integer limit) {
                         return Observable.fromCallable(() -> {
+                            EventsQueryListener listener = eventsQueryListener;
+                            if (listener != null) {
+                                listener.onQuery(conversationId, from, limit);
+                            }
                             ComapiResult<?> result = results.poll();
                             if (result == null || !(result.getResult() == null || result.getResult() instanceof ConversationEventsResponse)) {
                                 throw new Exception("Mocking response error in MockFoundationFactory class");
@@ -597,6 +610,10 @@ public class MockComapiClient extends RxComapiClient {
         results.add(result);
     }
 
+    public void setEventsQueryListener(EventsQueryListener listener) {
+        eventsQueryListener = listener;
+    }
+
     public void clearResults() {
         results.clear();
     }
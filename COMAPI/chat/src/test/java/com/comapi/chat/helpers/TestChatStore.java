@@ -24,6 +24,7 @@ import com.comapi.chat.model.ChatConversation;
 import com.comapi.chat.model.ChatConversationBase;
 import com.comapi.chat.model.ChatMessage;
 import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.ChatStatusWatermark;
 import com.comapi.chat.model.ChatStore;
 
 import java.util.ArrayList;
@@ -41,6 +42,8 @@ public class TestChatStore extends ChatStore {
 
     private final Map<String, ChatConversationBase> conversations = new HashMap<>();
     private final Map<String, ChatMessage> messages = new HashMap<>();
+    private final Map<String, ChatStatusWatermark> watermarks = new HashMap<>();
+    private boolean isWatermarkSupported;
 
     @Override
     public ChatConversationBase getConversation(String conversationId) {
@@ -83,10 +86,54 @@ public class TestChatStore extends ChatStore {
         return true;
     }
 
+    @Override
+    public boolean supportsWatermarks() {
+        return isWatermarkSupported;
+    }
+
+    @Override
+    public boolean update(ChatStatusWatermark watermark) {
+        String key = watermark.getConversationId() + ":" + watermark.getProfileId();
+        watermarks.put(key, watermark.merge(watermarks.get(key)));
+        return true;
+    }
+
+    @Override
+    public List<ChatStatusWatermark> getWatermarks(String conversationId) {
+        List<ChatStatusWatermark> result = new ArrayList<>();
+        for (ChatStatusWatermark watermark : watermarks.values()) {
+            if (conversationId.equals(watermark.getConversationId())) {
+                result.add(watermark);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ChatMessage getMessage(String conversationId, String messageId) {
+        return messages.get(messageId);
+    }
+
+    @Override
+    public boolean hasMessagesBetween(String conversationId, long afterEventId, long beforeEventId, String profileId) {
+        for (ChatMessage msg : messages.values()) {
+            if (conversationId.equals(msg.getConversationId()) && msg.getSentEventId() != null && msg.getSentEventId() > afterEventId && msg.getSentEventId() < beforeEventId
+                    && (msg.getFromWhom() == null || !msg.getFromWhom().getId().equals(profileId))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setWatermarkSupported(boolean isWatermarkSupported) {
+        this.isWatermarkSupported = isWatermarkSupported;
+    }
+
     @Override
     public boolean clearDatabase() {
         conversations.clear();
         messages.clear();
+        watermarks.clear();
         return true;
     }
 
@@ -0,0 +1,243 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.chat.store;
+
+import android.os.Build;
+
+import com.comapi.chat.BuildConfig;
+import com.comapi.chat.StoreTransaction;
+import com.comapi.chat.model.ChatConversation;
+import com.comapi.chat.model.ChatConversationBase;
+import com.comapi.chat.model.ChatMessage;
+import com.comapi.chat.model.ChatMessageStatus;
+import com.comapi.chat.model.ChatStatusWatermark;
+import com.comapi.chat.model.LocalMessageStatus;
+import com.comapi.internal.network.model.messaging.Part;
+import com.comapi.internal.network.model.messaging.Sender;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = "chat/src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.M, constants = BuildConfig.class, packageName = "com.comapi.chat")
+public class SQLiteChatStoreTest {
+
+    private SQLiteStoreFactory factory;
+
+    @Before
+    public void setUpChat() throws Exception {
+        factory = new SQLiteStoreFactory(RuntimeEnvironment.application, "TestChatStore.db", true);
+        execute(store -> {
+            store.beginTransaction();
+            store.clearDatabase();
+            store.endTransaction();
+        });
+    }
+
+    private interface Transaction {
+        void execute(SQLiteChatStore store);
+    }
+
+    private void execute(final Transaction transaction) {
+        factory.execute(new StoreTransaction<SQLiteChatStore>() {
+            @Override
+            protected void execute(SQLiteChatStore store) {
+                transaction.execute(store);
+            }
+        });
+    }
+
+    private static ChatMessage message(String messageId, long sentEventId) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("key", "value");
+        return ChatMessage.builder()
+                .setMessageId(messageId)
+                .setConversationId("c1")
+                .setSentEventId(sentEventId)
+                .setFromWhom(new Sender("p1", "name"))
+                .setSentBy("p1")
+                .setSentOn(sentEventId * 1000)
+                .setParts(Arrays.asList(Part.builder().setName("body").setType("text/plain").setData("text " + sentEventId).setSize(6).build()))
+                .setMetadata(metadata)
+                .build();
+    }
+
+    @Test
+    public void test_conversations() {
+
+        execute(store -> {
+
+            store.beginTransaction();
+            assertTrue(store.upsert(ChatConversation.builder().setConversationId("c1").setName("name").setDescription("description").setPublic(true)
+                    .setFirstLocalEventId(5L).setLastLocalEventId(10L).setLastRemoteEventId(12L).setUpdatedOn(100L).setETag("eTag").build()));
+            assertTrue(store.upsert(ChatConversation.builder().setConversationId("c2").setFirstLocalEventId(-1L).setLastLocalEventId(-1L).setLastRemoteEventId(-1L).setUpdatedOn(0L).build()));
+            store.endTransaction();
+
+            ChatConversation loaded = (ChatConversation) store.getConversation("c1");
+            assertEquals("name", loaded.getName());
+            assertEquals("description", loaded.getDescription());
+            assertTrue(loaded.isPublic());
+            assertEquals("eTag", loaded.getETag());
+            assertEquals(2, store.getAllConversations().size());
+            assertEquals(2, store.getConversations(Arrays.asList("c1", "c2", "c3")).size());
+            assertNull(store.getConversation("c3"));
+
+            store.beginTransaction();
+            assertTrue(store.update(ChatConversationBase.baseBuilder().setConversationId("c1").setFirstLocalEventId(5L).setLastLocalEventId(11L).setLastRemoteEventId(12L).setUpdatedOn(200L).setETag("eTag2").build()));
+            assertFalse(store.update(ChatConversationBase.baseBuilder().setConversationId("c3").build()));
+            store.endTransaction();
+
+            loaded = (ChatConversation) store.getConversation("c1");
+            assertEquals("name", loaded.getName());
+            assertEquals(11L, loaded.getLastLocalEventId().longValue());
+            assertEquals("eTag2", loaded.getETag());
+
+            store.beginTransaction();
+            assertTrue(store.mergeWatermarks("c1", 7L, 8L, 20L, null));
+            assertTrue(store.mergeWatermarks("c2", 3L, 4L, null, 50L));
+            assertFalse(store.mergeWatermarks("c3", 1L, 1L, 1L, 1L));
+            store.endTransaction();
+
+            loaded = (ChatConversation) store.getConversation("c1");
+            assertEquals(5L, loaded.getFirstLocalEventId().longValue());
+            assertEquals(11L, loaded.getLastLocalEventId().longValue());
+            assertEquals(20L, loaded.getLastRemoteEventId().longValue());
+            assertEquals(200L, loaded.getUpdatedOn().longValue());
+
+            ChatConversationBase empty = store.getConversation("c2");
+            assertEquals(3L, empty.getFirstLocalEventId().longValue());
+            assertEquals(4L, empty.getLastLocalEventId().longValue());
+            assertEquals(-1L, empty.getLastRemoteEventId().longValue());
+            assertEquals(50L, empty.getUpdatedOn().longValue());
+
+            store.beginTransaction();
+            assertTrue(store.deleteConversation("c2"));
+            store.endTransaction();
+            assertNull(store.getConversation("c2"));
+        });
+    }
+
+    @Test
+    public void test_messagesAndStatuses() {
+
+        execute(store -> {
+
+            List<ChatMessage> messages = new ArrayList<>();
+            for (long i = 1; i <= 5; i++) {
+                messages.add(message("m" + i, i));
+            }
+            messages.get(4).addStatusUpdate(ChatMessageStatus.builder().populate("c1", "m5", "p1", LocalMessageStatus.sent, 1L, null).build());
+
+            store.beginTransaction();
+            assertTrue(store.upsertMessages(messages));
+            assertTrue(store.update(ChatMessageStatus.builder().populate("c1", "m5", "p2", LocalMessageStatus.delivered, 2L, 6L).build()));
+            assertTrue(store.update(ChatMessageStatus.builder().populate("c1", "m5", "p2", LocalMessageStatus.read, 3L, 7L).build()));
+            assertTrue(store.update(ChatMessageStatus.builder().populate("c1", "m5", "p2", LocalMessageStatus.read, 4L, 7L).build()));
+            store.endTransaction();
+
+            List<ChatMessage> loaded = store.getMessages("c1", null, 2);
+            assertEquals(2, loaded.size());
+            assertEquals("m5", loaded.get(0).getMessageId());
+            assertEquals("m4", loaded.get(1).getMessageId());
+            assertEquals("p1", loaded.get(0).getFromWhom().getId());
+            assertEquals("text 5", loaded.get(0).getParts().get(0).getData());
+            assertEquals("value", loaded.get(0).getMetadata().get("key"));
+            assertEquals(3, loaded.get(0).getStatusUpdates().size());
+            assertTrue(loaded.get(1).getStatusUpdates().isEmpty());
+
+            loaded = store.getMessages("c1", 2L, 10);
+            assertEquals(1, loaded.size());
+            assertEquals("m1", loaded.get(0).getMessageId());
+
+            store.beginTransaction();
+            assertTrue(store.deleteMessage("c1", "m5"));
+            store.endTransaction();
+            assertEquals(4, store.getMessages("c1", null, 10).size());
+
+            store.beginTransaction();
+            assertTrue(store.deleteAllMessages("c1"));
+            store.endTransaction();
+            assertTrue(store.getMessages("c1", null, 10).isEmpty());
+        });
+    }
+
+    @Test
+    public void test_watermarks() {
+
+        execute(store -> {
+
+            assertTrue(store.supportsWatermarks());
+
+            store.beginTransaction();
+            assertTrue(store.upsertMessages(Arrays.asList(message("m1", 1), message("m2", 2), message("m3", 3))));
+            assertTrue(store.update(ChatStatusWatermark.builder().populate("c1", "p2", 2L, 1L, 10L).build()));
+            assertTrue(store.update(ChatStatusWatermark.builder().populate("c1", "p2", 1L, -1L, 5L).build()));
+            store.endTransaction();
+
+            List<ChatStatusWatermark> watermarks = store.getWatermarks("c1");
+            assertEquals(1, watermarks.size());
+            assertEquals(2L, watermarks.get(0).getDeliveredUpTo());
+            assertEquals(1L, watermarks.get(0).getReadUpTo());
+            assertEquals(10L, watermarks.get(0).getUpdatedOn());
+
+            List<ChatMessage> loaded = store.getMessages("c1", null, 10);
+            assertTrue(loaded.get(0).getStatusUpdates().isEmpty());
+            assertEquals(LocalMessageStatus.delivered, loaded.get(1).getStatusUpdates().iterator().next().getMessageStatus());
+            assertEquals(LocalMessageStatus.read, loaded.get(2).getStatusUpdates().iterator().next().getMessageStatus());
+        });
+    }
+
+    @Test
+    public void test_rollbackUnfinishedTransaction() {
+
+        execute(store -> {
+            store.beginTransaction();
+            store.upsert(ChatConversation.builder().setConversationId("c1").build());
+            throw new RuntimeException("failed transaction");
+        });
+
+        execute(store -> assertNull(store.getConversation("c1")));
+
+        execute(store -> {
+            assertNotNull(store);
+            store.beginTransaction();
+            store.upsert(ChatConversation.builder().setConversationId("c1").build());
+            store.endTransaction();
+        });
+
+        execute(store -> assertNotNull(store.getConversation("c1")));
+    }
+}